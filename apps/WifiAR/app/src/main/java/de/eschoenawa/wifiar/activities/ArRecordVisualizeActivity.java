@@ -44,9 +44,11 @@ public class ArRecordVisualizeActivity extends AppCompatActivity implements Heat
     private ProgressBar hintLoading;
     private ArWifiToolbar toolbar;
     private ImageView heatmapHoldingImageView;
+    private ImageView previewHoldingImageView;
 
     // Renderables
     private ViewRenderable heatmapRenderable;
+    private ViewRenderable previewRenderable;
 
     // Flags
     private boolean noAreaPointPlacedYet = true;
@@ -73,6 +75,14 @@ public class ArRecordVisualizeActivity extends AppCompatActivity implements Heat
                     heatmapRenderable.setPixelsToMetersRatio(Preferences.getInstance().getPixelsPerMeter());
                     heatmapHoldingImageView = heatmapRenderable.getView().findViewById(R.id.heatmapImageView);
                 });
+        ViewRenderable.builder()
+                .setView(this, R.layout.heatmap_holder)
+                .build()
+                .thenAccept(renderable -> {
+                    // The pixels to meters ratio is set by the controller for every preview
+                    previewRenderable = renderable;
+                    previewHoldingImageView = previewRenderable.getView().findViewById(R.id.heatmapImageView);
+                });
     }
 
     @Override
@@ -81,6 +91,12 @@ public class ArRecordVisualizeActivity extends AppCompatActivity implements Heat
         controller.refreshAreaDesignationMode();
     }
 
+    @Override
+    protected void onDestroy() {
+        controller.onDestroy();
+        super.onDestroy();
+    }
+
     // Permission handling
     @NeedsPermission(Manifest.permission.ACCESS_COARSE_LOCATION)
     void requireLocationPermission() {
@@ -155,6 +171,7 @@ public class ArRecordVisualizeActivity extends AppCompatActivity implements Heat
     }
 
     public void onClickRestart(View view) {
+        controller.discardSurvey();
         restart();
     }
 
@@ -250,6 +267,11 @@ public class ArRecordVisualizeActivity extends AppCompatActivity implements Heat
         });
     }
 
+    @Override
+    public void onHeatmapLevelDisplayed(int step) {
+        runOnUiThread(() -> txtHint.setText(getString(R.string.hint_refining_heatmap, step)));
+    }
+
     @Override
     public void onRenderStarted() {
         runOnUiThread(() -> {
@@ -283,6 +305,16 @@ public class ArRecordVisualizeActivity extends AppCompatActivity implements Heat
         return heatmapHoldingImageView;
     }
 
+    @Override
+    public ViewRenderable getPreviewRenderable() {
+        return previewRenderable;
+    }
+
+    @Override
+    public ImageView getPreviewImageView() {
+        return previewHoldingImageView;
+    }
+
     @Override
     public void uiOperation(Runnable runnable) {
         runOnUiThread(runnable);
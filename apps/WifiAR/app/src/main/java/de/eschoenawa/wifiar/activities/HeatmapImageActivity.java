@@ -1,21 +1,26 @@
 package de.eschoenawa.wifiar.activities;
 
 import android.Manifest;
-import android.annotation.SuppressLint;
 import android.graphics.Bitmap;
 import android.graphics.Matrix;
 import android.os.Bundle;
 import android.support.annotation.NonNull;
 import android.support.v4.app.NavUtils;
 import android.support.v7.app.AppCompatActivity;
-import android.view.MotionEvent;
 import android.view.View;
-import android.widget.ImageView;
 import android.widget.Toast;
 
+import java.io.File;
+
 import de.eschoenawa.wifiar.R;
+import de.eschoenawa.wifiar.heatmap.HeatmapTilePyramid;
 import de.eschoenawa.wifiar.utils.ImageHolder;
 import de.eschoenawa.wifiar.utils.Utils;
+import de.eschoenawa.wifiar.views.HeatmapTileView;
+
+import static de.eschoenawa.wifiar.common.Constants.HEATMAP_TILE_SIZE;
+import static de.eschoenawa.wifiar.common.Constants.TILE_CACHE_MEMORY_FRACTION;
+import static de.eschoenawa.wifiar.common.Constants.TILE_SPILL_DIRECTORY;
 import permissions.dispatcher.NeedsPermission;
 import permissions.dispatcher.OnPermissionDenied;
 import permissions.dispatcher.RuntimePermissions;
@@ -23,36 +28,33 @@ import permissions.dispatcher.RuntimePermissions;
 @RuntimePermissions
 public class HeatmapImageActivity extends AppCompatActivity {
 
-    private ImageView imgView;
+    private HeatmapTileView heatmapView;
+    private HeatmapTilePyramid pyramid;
     private Bitmap image;
-    private Bitmap rotatedImage;
 
-    @SuppressLint("ClickableViewAccessibility")
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_heatmap_image);
-        imgView = findViewById(R.id.heatmap);
+        heatmapView = findViewById(R.id.heatmap);
 
         ImageHolder imageHolder = ImageHolder.getInstance();
-        rotatedImage = image = imageHolder.getImage();
+        image = imageHolder.getImage();
         imageHolder.clear();
 
-        imgView.setImageBitmap(image);
-        imgView.setOnTouchListener((v, event) -> {
-            float xOffset = imgView.getWidth() / 2;
-            float yOffset = imgView.getHeight() / 2;
-
-            float x = event.getX();
-            float y = event.getY();
-
-            if (event.getAction() == MotionEvent.ACTION_MOVE) {
-                float angle = (float) Math.toDegrees(Math.atan2(x - xOffset, yOffset - y));
-                rotate(angle);
-            }
+        if (image != null) {
+            int maxCacheBytes = (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / TILE_CACHE_MEMORY_FRACTION);
+            pyramid = new HeatmapTilePyramid(image, HEATMAP_TILE_SIZE, maxCacheBytes, new File(getCacheDir(), TILE_SPILL_DIRECTORY), heatmapView);
+            heatmapView.setPyramid(pyramid);
+        }
+    }
 
-            return true;
-        });
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (pyramid != null) {
+            pyramid.close();
+        }
     }
 
     @Override
@@ -67,6 +69,13 @@ public class HeatmapImageActivity extends AppCompatActivity {
 
     @NeedsPermission(Manifest.permission.WRITE_EXTERNAL_STORAGE)
     public void saveImage() {
+        if (image == null) {
+            return;
+        }
+        // The rotated image is only created once when saving, the view just rotates the tiles
+        Matrix matrix = new Matrix();
+        matrix.postRotate(heatmapView.getImageRotation());
+        Bitmap rotatedImage = Bitmap.createBitmap(image, 0, 0, image.getWidth(), image.getHeight(), matrix, true);
         long timestamp = System.currentTimeMillis();
         Utils.saveBitmap(rotatedImage, "heatmap_" + timestamp + ".png");
         Toast.makeText(this, "Heatmap gespeichert!", Toast.LENGTH_SHORT).show();
@@ -77,14 +86,4 @@ public class HeatmapImageActivity extends AppCompatActivity {
     public void savePermissionDenied() {
         Toast.makeText(this, "Um das Bild zu speichern benötigt WifiAR Zugriff auf Ihren Speicher!", Toast.LENGTH_LONG).show();
     }
-
-    private void rotate(float toDegrees) {
-        if (image == null) {
-            return;
-        }
-        Matrix matrix = new Matrix();
-        matrix.postRotate(toDegrees);
-        rotatedImage = Bitmap.createBitmap(image, 0, 0, image.getWidth(), image.getHeight(), matrix, true);
-        imgView.setImageBitmap(rotatedImage);
-    }
 }
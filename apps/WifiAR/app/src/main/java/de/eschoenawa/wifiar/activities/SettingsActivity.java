@@ -204,6 +204,8 @@ public class SettingsActivity extends AppCompatPreferenceActivity {
 
             bindPreferenceSummaryToValue(findPreference(Constants.SETTING_PIXEL_PER_METER));
             bindPreferenceSummaryToValue(findPreference(Constants.SETTING_HEATMAP_COLOR));
+            bindPreferenceSummaryToValue(findPreference(Constants.SETTING_INTERPOLATION));
+            bindPreferenceSummaryToValue(findPreference(Constants.SETTING_POWER_SCALE));
 
             ListPreference gradientWidthPreference = (ListPreference) findPreference(Constants.SETTING_GRADIENT_WIDTH);
             bindPreferenceSummaryToValue(gradientWidthPreference);
@@ -20,19 +20,38 @@ import com.google.ar.sceneform.math.Vector3;
 import com.google.ar.sceneform.rendering.ViewRenderable;
 import com.google.ar.sceneform.ux.ArFragment;
 
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Stack;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicReference;
 
+import de.eschoenawa.wifiar.R;
 import de.eschoenawa.wifiar.controller.callback.HeatmapGenerationControllerCallback;
 import de.eschoenawa.wifiar.controller.manager.MaterialManager;
 import de.eschoenawa.wifiar.heatmap.BitmapGenerator;
 import de.eschoenawa.wifiar.heatmap.ColorSelector;
 import de.eschoenawa.wifiar.heatmap.GradientColors;
 import de.eschoenawa.wifiar.heatmap.HeatmapGenerator;
+import de.eschoenawa.wifiar.heatmap.HeatmapGrid;
+import de.eschoenawa.wifiar.heatmap.HeatmapPreviewRenderer;
+import de.eschoenawa.wifiar.heatmap.HeatmapRegion;
+import de.eschoenawa.wifiar.heatmap.PathLossInterpolator;
+import de.eschoenawa.wifiar.heatmap.PathLossModel;
+import de.eschoenawa.wifiar.heatmap.PngStripWriter;
+import de.eschoenawa.wifiar.heatmap.PowerScale;
+import de.eschoenawa.wifiar.heatmap.TiledHeatmapRenderer;
 import de.eschoenawa.wifiar.models.Polygon;
+import de.eschoenawa.wifiar.models.PolygonMask;
 import de.eschoenawa.wifiar.models.RssiAggregate;
+import de.eschoenawa.wifiar.models.Survey;
 import de.eschoenawa.wifiar.models.WifiMeasurement;
+import de.eschoenawa.wifiar.persistence.SurveyBinaryFormat;
+import de.eschoenawa.wifiar.persistence.SurveyJournal;
 import de.eschoenawa.wifiar.utils.DialogHelper;
 import de.eschoenawa.wifiar.utils.DrawingHelper;
 import de.eschoenawa.wifiar.utils.Preferences;
@@ -41,10 +60,19 @@ import de.eschoenawa.wifiar.utils.StateMachine;
 import de.eschoenawa.wifiar.utils.UnitConverter;
 import de.eschoenawa.wifiar.utils.Utils;
 import de.eschoenawa.wifiar.utils.WifiDataCollector;
+import de.eschoenawa.wifiar.utils.concurrent.CancellationToken;
+import de.eschoenawa.wifiar.utils.concurrent.JobExecutor;
+import de.eschoenawa.wifiar.utils.concurrent.JobSlot;
 import io.github.jdiemke.triangulation.Vector2D;
 
+import static de.eschoenawa.wifiar.common.Constants.HEATMAP_TILE_SIZE;
+import static de.eschoenawa.wifiar.common.Constants.MAX_IN_MEMORY_HEATMAP_PIXELS;
 import static de.eschoenawa.wifiar.common.Constants.MAX_MEASURE_DISTANCE;
 import static de.eschoenawa.wifiar.common.Constants.MILLIS_BETWEEN_SCANS;
+import static de.eschoenawa.wifiar.common.Constants.PREVIEW_PIXELS_PER_METER;
+import static de.eschoenawa.wifiar.common.Constants.PROGRESSIVE_COARSEST_STEP;
+import static de.eschoenawa.wifiar.common.Constants.SURVEY_FILE_EXTENSION;
+import static de.eschoenawa.wifiar.common.Constants.SURVEY_JOURNAL_FILE_NAME;
 import static de.eschoenawa.wifiar.utils.StateMachine.State.AREA_COMPLETED;
 import static de.eschoenawa.wifiar.utils.StateMachine.State.DISPLAY_HEATMAP;
 import static de.eschoenawa.wifiar.utils.StateMachine.State.DRAW_AREA;
@@ -53,7 +81,7 @@ import static de.eschoenawa.wifiar.utils.StateMachine.State.MEASURE;
 import static de.eschoenawa.wifiar.utils.StateMachine.State.MEASURING;
 import static de.eschoenawa.wifiar.utils.StateMachine.State.PLACE_AREA_ANCHOR;
 
-public class HeatmapGenerationController implements Scene.OnUpdateListener, WifiDataCollector.ScanResultsAvailableListener, HeatmapGenerator.HeatmapGeneratorCallback, BitmapGenerator.BitmapGeneratorCallback {
+public class HeatmapGenerationController implements Scene.OnUpdateListener, WifiDataCollector.ScanResultsAvailableListener, HeatmapGenerator.HeatmapGeneratorCallback, BitmapGenerator.BitmapGeneratorCallback, TiledHeatmapRenderer.TiledHeatmapRendererCallback, HeatmapPreviewRenderer.HeatmapPreviewRendererCallback {
     private static final String TAG = "HGC";
     private ArFragment arFragment;
     private HeatmapGenerationControllerCallback callback;
@@ -66,6 +94,9 @@ public class HeatmapGenerationController implements Scene.OnUpdateListener, Wifi
     private Stack<Node> areaPoints;
     private Stack<Node> measurementPoints;
     private Node lastLineNode;
+    private Node previewNode;
+    private Node heatmapNode;
+    private Node accessPointNode;
 
     // Anchors
     private Anchor targetAnchor;
@@ -88,18 +119,41 @@ public class HeatmapGenerationController implements Scene.OnUpdateListener, Wifi
 
     // HeatmapGenerator
     private HeatmapGenerator heatmapGenerator;
+    private int pixelsPerMeter;
+    private HeatmapPreviewRenderer previewRenderer;
+    private JobSlot generationJobs = new JobSlot();
+    private CancellationToken generationToken;
+
+    // BitmapGenerator, only replaced on the UI thread
+    private ColorSelector colorSelector;
+    private BitmapGenerator bitmapGenerator;
+    // The colors of the coarse levels shown while the heatmap is generated
+    private ColorSelector levelColorSelector;
+    // The colors the jobs adding measurements to the displayed heatmap draw with
+    private AtomicReference<ColorSelector> updateColorSelector;
 
     // Models
     private Polygon area;
     private RssiAggregate rssiAggregate;
 
+    // Persistence
+    private SurveyJournal journal;
+    private SurveyJournal.Recovery recovery;
+    private JobSlot saveJobs = new JobSlot();
+    private File surveyFile;
+    private Survey savedSurvey;
+
     // Heatmap Bitmap
     private Bitmap heatmap;
+    private File tiledHeatmapFile;
+    private PngStripWriter tiledHeatmapWriter;
 
     // Flags
     private boolean permissionRequested;
     private boolean autoArea;
     private boolean autoAreaClosed;
+    private boolean destroyed;
+    private boolean updatingHeatmap;
 
     public HeatmapGenerationController(ArFragment arFragment, @NonNull HeatmapGenerationControllerCallback callback, Context context) {
         this.permissionRequested = false;
@@ -116,11 +170,73 @@ public class HeatmapGenerationController implements Scene.OnUpdateListener, Wifi
         measurements = new Stack<>();
         measurementPoints = new Stack<>();
 
+        openJournal();
+        previewRenderer = new HeatmapPreviewRenderer(PREVIEW_PIXELS_PER_METER, this);
+
         // Set state
         this.stateMachine.setState(FIND_PLANES);
         callback.onDenyUndo();
     }
 
+    /**
+     * Opens the journal of the current survey in the background. If the last survey has been
+     * interrupted, it is restored when the first area point is placed.
+     */
+    private void openJournal() {
+        SurveyJournal.openAsync(Utils.createSurveyFile(context, SURVEY_JOURNAL_FILE_NAME), new SurveyJournal.SurveyJournalCallback() {
+            @Override
+            public void onJournalOpened(SurveyJournal openedJournal, SurveyJournal.Recovery openedRecovery) {
+                callback.uiOperation(() -> onJournalReady(openedJournal, openedRecovery));
+            }
+
+            @Override
+            public void onJournalError(Exception exception) {
+                Log.e(TAG, "Unable to open survey journal, the survey can't be recovered after a crash!", exception);
+            }
+        });
+    }
+
+    /**
+     * Starts journaling the survey once the journal is open. Must be called on the UI thread.
+     *
+     * @param openedJournal  The journal
+     * @param openedRecovery The survey recorded by the journal
+     */
+    private void onJournalReady(SurveyJournal openedJournal, SurveyJournal.Recovery openedRecovery) {
+        if (destroyed) {
+            openedJournal.closeAsync();
+            return;
+        }
+        journal = openedJournal;
+        if (areaAnchor != null) {
+            // A new survey has been started while the journal was opened, it replaces the recorded one
+            journal.clear();
+            // Once the heatmap is generated the survey has been saved already
+            if (heatmapGenerator == null) {
+                journalCurrentSurvey();
+            }
+        } else if (!openedRecovery.isEmpty()) {
+            recovery = openedRecovery;
+            Toast.makeText(context, "Place the start point of the last survey to resume it!", Toast.LENGTH_LONG).show();
+        }
+    }
+
+    /**
+     * Appends the area points and measurements placed so far to the journal.
+     */
+    private void journalCurrentSurvey() {
+        Survey survey = createSurvey();
+        for (Vector2D areaPoint : survey.getAreaPoints()) {
+            journal.appendAreaPoint(areaPoint);
+        }
+        if (isAreaClosed()) {
+            journal.append(SurveyJournal.RecordType.AREA_CLOSED);
+        }
+        for (WifiMeasurement measurement : survey.getMeasurements()) {
+            journal.appendMeasurement(measurement);
+        }
+    }
+
     /**
      * This method initializes the {@code arFragment} field, enables this activity to
      * receive frame-updates and disables shadows on the ground for AR-Objects.
@@ -283,8 +399,10 @@ public class HeatmapGenerationController implements Scene.OnUpdateListener, Wifi
         } else {
             stateMachine.setState(autoArea ? MEASURE : AREA_COMPLETED);
             autoAreaClosed = true;
-            targetAnchor.detach();
-            targetAnchor = null;
+            if (targetAnchor != null) {
+                targetAnchor.detach();
+                targetAnchor = null;
+            }
             lastLineNode = new Node();
             lastLineNode.setParent(areaPoints.peek());
             DrawingHelper.drawLineBetweenNodes(lastLineNode, areaPoints.firstElement(), materialManager.getAreaLineMaterial());
@@ -304,6 +422,7 @@ public class HeatmapGenerationController implements Scene.OnUpdateListener, Wifi
                 case DRAW_AREA:
                     Node nodeToRemove = areaPoints.pop();
                     nodeToRemove.setParent(null);
+                    appendToJournal(SurveyJournal.RecordType.REMOVE_AREA_POINT);
                     if (areaPoints.isEmpty()) {
                         areaAnchor.detach();
                         areaAnchor = null;
@@ -323,6 +442,8 @@ public class HeatmapGenerationController implements Scene.OnUpdateListener, Wifi
                         Node nodeToDelete = measurementPoints.pop();
                         nodeToDelete.setParent(null);
                         measurements.pop();
+                        appendToJournal(SurveyJournal.RecordType.REMOVE_MEASUREMENT);
+                        updatePreview();
                         if (measurements.size() <= 2 && callback != null) {
                             callback.onDenyGeneration();
                         }
@@ -333,6 +454,7 @@ public class HeatmapGenerationController implements Scene.OnUpdateListener, Wifi
                     lastLineNode.setParent(null);
                     lastLineNode = null;
                     stateMachine.setState(DRAW_AREA);
+                    appendToJournal(SurveyJournal.RecordType.AREA_OPENED);
                     if (callback != null) {
                         callback.onDrawAreaState(true);
                     }
@@ -342,6 +464,8 @@ public class HeatmapGenerationController implements Scene.OnUpdateListener, Wifi
                 Node nodeToDelete = measurementPoints.pop();
                 nodeToDelete.setParent(null);
                 measurements.pop();
+                appendToJournal(SurveyJournal.RecordType.REMOVE_MEASUREMENT);
+                updatePreview();
             } else if (!areaPoints.isEmpty() && areaPoints.size() == measurementPoints.size()) {
                 // Remove measurement
                 Node nodeToDelete = measurementPoints.pop();
@@ -351,6 +475,9 @@ public class HeatmapGenerationController implements Scene.OnUpdateListener, Wifi
                 Node nodeToRemove = areaPoints.pop();
                 nodeToRemove.setParent(null);
                 autoAreaClosed = false;
+                appendToJournal(SurveyJournal.RecordType.REMOVE_MEASUREMENT);
+                appendToJournal(SurveyJournal.RecordType.REMOVE_AREA_POINT);
+                updatePreview();
                 if (callback != null) {
                     callback.onDenyGeneration();
                 }
@@ -368,10 +495,22 @@ public class HeatmapGenerationController implements Scene.OnUpdateListener, Wifi
     }
 
     public void addAreaPoint() {
+        if (recovery != null && areaAnchor == null) {
+            restoreRecoveredSurvey();
+            return;
+        }
         if (currentlyTargetingAreaStart()) {
+            boolean areaWasClosed = isAreaClosed();
             finishArea();
+            if (!areaWasClosed && isAreaClosed()) {
+                appendToJournal(SurveyJournal.RecordType.AREA_CLOSED);
+            }
         } else {
+            int numberOfAreaPoints = areaPoints.size();
             createAreaPointAtCurrentTarget();
+            if (journal != null && areaPoints.size() > numberOfAreaPoints) {
+                journal.appendAreaPoint(worldCoordinatesToSurveyCoordinates(areaPoints.peek().getWorldPosition()));
+            }
             if (callback != null) {
                 callback.onDrawAreaState(areaPoints.size() > 2);
             }
@@ -379,6 +518,10 @@ public class HeatmapGenerationController implements Scene.OnUpdateListener, Wifi
     }
 
     public void measureAtCurrentPosition() {
+        if (recovery != null && areaAnchor == null) {
+            restoreRecoveredSurvey();
+            return;
+        }
         if (autoArea && !autoAreaClosed) {
             addAreaPoint();
             if (autoAreaClosed) {
@@ -392,7 +535,13 @@ public class HeatmapGenerationController implements Scene.OnUpdateListener, Wifi
         WifiDataCollector wifiData = WifiDataCollector.getInstance();
         Vector3 camPosition = arFragment.getArSceneView().getScene().getCamera().getWorldPosition();
         camPosition.y = areaAnchorWorldPosition.y;
-        if (stateMachine.getState() == MEASURE && callback != null) {
+        if (stateMachine.getState() == DISPLAY_HEATMAP && !canUpdateHeatmap()) {
+            Toast.makeText(context, "This heatmap can't be updated with new measurements!", Toast.LENGTH_LONG).show();
+            return;
+        }
+        if ((stateMachine.getState() == MEASURE || stateMachine.getState() == DISPLAY_HEATMAP) && callback != null) {
+            // Measurements taken while the heatmap is displayed are added to it
+            updatingHeatmap = stateMachine.getState() == DISPLAY_HEATMAP;
             boolean waitForScanResults = Preferences.getInstance().shouldWaitForNewWifiScan();
             stateMachine.setState(MEASURING);
             rssiAggregate = new RssiAggregate(camPosition);
@@ -409,25 +558,106 @@ public class HeatmapGenerationController implements Scene.OnUpdateListener, Wifi
     }
 
     public void startHeatmapGeneration() {
+        // The preview stays visible until the heatmap replaces it, but isn't updated anymore
+        previewRenderer.cancel();
+        // Save before the measurements are moved to pixel coordinates
+        surveyFile = Utils.createSurveyFile(context, "survey_" + System.currentTimeMillis() + SURVEY_FILE_EXTENSION);
+        savedSurvey = createSurvey();
+        saveSurveyAsync(savedSurvey);
         this.heatmapGenerator = createHeatmapGenerator();
         this.area = createArea(heatmapGenerator.getOffset());
-        heatmapGenerator.generateHeatmapAsync(this);
+        // A generation that is still running is superseded
+        generationToken = generationJobs.next();
+        if ((long) heatmapGenerator.getWidth() * heatmapGenerator.getHeight() > MAX_IN_MEMORY_HEATMAP_PIXELS) {
+            startTiledHeatmapGeneration();
+        } else {
+            heatmapGenerator.setArea(area);
+            // All levels share the bounds, so the colors don't change from level to level
+            PowerScale powerScale = heatmapGenerator.getPowerScale();
+            Preferences prefs = Preferences.getInstance();
+            levelColorSelector = new ColorSelector(prefs.getColorSelectionMode(), new GradientColors(prefs.getHeatmapColors()), prefs.getGradientWidth(), powerScale, ColorSelector.findMinAndMaxValuesOfMeasurements(measurements, powerScale));
+            heatmapGenerator.generateHeatmapProgressivelyAsync(PROGRESSIVE_COARSEST_STEP, generationToken, this);
+        }
         if (callback != null) {
             callback.onGenerationStarted();
         }
 
     }
 
+    /**
+     * Renders heatmaps that are too large to be held in memory tile by tile into a PNG file. Once
+     * the file is complete a subsampled version of it is displayed.
+     */
+    private void startTiledHeatmapGeneration() {
+        Log.d(TAG, "Heatmap too large for memory, rendering tiles to file.");
+        Preferences prefs = Preferences.getInstance();
+        // The bounds have to be known before the first tile is colored
+        PowerScale powerScale = heatmapGenerator.getPowerScale();
+        ColorSelector colorSelector = new ColorSelector(prefs.getColorSelectionMode(), new GradientColors(prefs.getHeatmapColors()), prefs.getGradientWidth(), powerScale, ColorSelector.findMinAndMaxValuesOfMeasurements(measurements, powerScale));
+        tiledHeatmapFile = Utils.createHeatmapImageFile(context, "heatmap_" + System.currentTimeMillis() + ".png");
+        try {
+            tiledHeatmapWriter = new PngStripWriter(new BufferedOutputStream(new FileOutputStream(tiledHeatmapFile)));
+        } catch (IOException e) {
+            onTilesError(e);
+            return;
+        }
+        TiledHeatmapRenderer renderer = new TiledHeatmapRenderer(heatmapGenerator, area, colorSelector, HEATMAP_TILE_SIZE);
+        renderer.renderAsync(tiledHeatmapWriter, generationToken, this);
+    }
+
+    /**
+     * Writes the survey to the survey file in the background so it can be rendered again without
+     * a new walk. A save that hasn't started yet is superseded by the next one.
+     *
+     * @param survey The survey to save
+     */
+    private void saveSurveyAsync(Survey survey) {
+        File file = surveyFile;
+        SurveyJournal surveyJournal = journal;
+        // Records appended while saving aren't part of the saved survey
+        long journalMark = surveyJournal != null ? surveyJournal.mark() : 0;
+        CancellationToken token = saveJobs.next();
+        // Saving isn't cancelled once it started, the survey would be lost otherwise
+        JobExecutor.getInstance().execute(() -> {
+            // Saves of the same file must not overlap, they share the temporary file
+            synchronized (file) {
+                if (token.isCancelled()) {
+                    return;
+                }
+                try {
+                    SurveyBinaryFormat.write(file, survey);
+                    Log.d(TAG, "Survey saved to " + file.getAbsolutePath());
+                    // The survey no longer has to be recovered, unless it changed in the meantime
+                    if (surveyJournal != null && !surveyJournal.clear(journalMark)) {
+                        Log.d(TAG, "Survey changed while saving, keeping the journal.");
+                    }
+                } catch (IOException e) {
+                    Log.e(TAG, "Unable to save survey!", e);
+                }
+            }
+        });
+    }
+
+    private void closeTiledHeatmapWriter() {
+        if (tiledHeatmapWriter != null) {
+            try {
+                tiledHeatmapWriter.close();
+            } catch (IOException e) {
+                Log.w(TAG, "Unable to close heatmap image file!", e);
+            }
+            tiledHeatmapWriter = null;
+        }
+    }
+
     public void tipTextClicked() {
-        if (this.stateMachine.getState() == DISPLAY_HEATMAP && heatmapGenerator != null && heatmapGenerator.getHeatmap() != null && callback != null) {
+        if (this.stateMachine.getState() == DISPLAY_HEATMAP && heatmapGenerator != null && heatmapGenerator.isPrepared() && callback != null) {
             double measuredRssi = WifiDataCollector.getInstance().getCurrentRssiInDbm();
             Vector3 camPosition = arFragment.getArSceneView().getScene().getCamera().getWorldPosition();
             Vector2D heatmapCoordinates = worldCoordinatesToHeatmapCoordinates(camPosition);
-            int x = (int) heatmapCoordinates.x;
-            int y = (int) heatmapCoordinates.y;
-            double[][] heatmap = heatmapGenerator.getHeatmap();
-            if (x < heatmap.length && y < heatmap[0].length) {
-                double heatmapRssi = UnitConverter.wattsToDbm(heatmap[x][y]);
+            // Interpolate at the exact camera position, this works for tiled heatmaps as well
+            double heatmapValue = heatmapGenerator.getValueAt(heatmapCoordinates.x, heatmapCoordinates.y);
+            if (!Double.isNaN(heatmapValue)) {
+                double heatmapRssi = heatmapGenerator.getPowerScale().toDbm(heatmapValue);
                 callback.uiOperation(() -> Toast.makeText(context, "Measured: " + measuredRssi + "dBm\nHeatmap: " + heatmapRssi + "dBm", Toast.LENGTH_LONG).show());
             } else {
                 callback.uiOperation(() -> Toast.makeText(context, "Außerhalb der Heatmap!", Toast.LENGTH_SHORT).show());
@@ -439,6 +669,31 @@ public class HeatmapGenerationController implements Scene.OnUpdateListener, Wifi
         return heatmap;
     }
 
+    /**
+     * Discards the journal of the current survey, so it isn't restored when a new survey is
+     * started.
+     */
+    public void discardSurvey() {
+        recovery = null;
+        if (journal != null) {
+            journal.clear();
+        }
+    }
+
+    /**
+     * Releases the journal; its pending records are written in the background. Must be called
+     * when the activity is destroyed.
+     */
+    public void onDestroy() {
+        destroyed = true;
+        previewRenderer.cancel();
+        generationJobs.cancel();
+        if (journal != null) {
+            journal.closeAsync();
+            journal = null;
+        }
+    }
+
     public void refreshAreaDesignationMode() {
         autoArea = Preferences.getInstance().isAreaAutoDefinitionEnabled();
     }
@@ -458,9 +713,13 @@ public class HeatmapGenerationController implements Scene.OnUpdateListener, Wifi
             if (vectorBetweenStartMeasurementPositionAndCameraPositionOnPlane.mag() > MAX_MEASURE_DISTANCE) {
                 DialogHelper.showTooMuchMovementDialog(context);
                 rssiAggregate = null;
-                stateMachine.setState(MEASURE);
+                stateMachine.setState(updatingHeatmap ? DISPLAY_HEATMAP : MEASURE);
                 if (callback != null) {
-                    callback.onEnterMeasureState();
+                    if (updatingHeatmap) {
+                        callback.onRenderFinished();
+                    } else {
+                        callback.onEnterMeasureState();
+                    }
                     if (waitForNewScanResults) {
                         wifiData.stopReceivingScanResults(callback.getActivity());
                         wifiData.setScanResultsAvailableListener(null);
@@ -475,8 +734,36 @@ public class HeatmapGenerationController implements Scene.OnUpdateListener, Wifi
                 double rssi = rssiAggregate.getAverage();
                 Toast.makeText(context, "RSSI: " + UnitConverter.wattsToDbm(rssi) + "dBm", Toast.LENGTH_SHORT).show();
                 Vector2D vectorBetweenAreaAnchorAndCameraPositionOnPlane = new Vector2D(camPosition.x - areaAnchorWorldPosition.x, camPosition.z - areaAnchorWorldPosition.z);
-                WifiMeasurement measurement = new WifiMeasurement(wifiData.getCurrentRssiInWatts(), wifiData.getCurrentFrequency(), vectorBetweenAreaAnchorAndCameraPositionOnPlane);
+                WifiMeasurement measurement = new WifiMeasurement(wifiData.getCurrentRssiInWatts(), wifiData.getCurrentFrequency(), vectorBetweenAreaAnchorAndCameraPositionOnPlane.x, vectorBetweenAreaAnchorAndCameraPositionOnPlane.y, System.currentTimeMillis(), rssiAggregate.getNumberOfValues());
+                if (updatingHeatmap) {
+                    // The measurement becomes part of the survey, so it is recorded like the others
+                    if (journal != null) {
+                        journal.appendMeasurement(measurement);
+                    }
+                    WifiMeasurement surveyMeasurement = new WifiMeasurement(measurement);
+                    surveyMeasurement.moveTo(worldCoordinatesToSurveyCoordinates(startMeasurementPosition));
+                    savedSurvey.getMeasurements().add(surveyMeasurement);
+                    saveSurveyAsync(new Survey(savedSurvey.getAreaPoints(), new ArrayList<>(savedSurvey.getMeasurements())));
+                    // Like the other measurements it is placed where the measurement started, in pixels
+                    measurement.x = metersToPixels(startMeasurementPosition.x);
+                    measurement.y = metersToPixels(startMeasurementPosition.z);
+                    rssiAggregate = null;
+                    stateMachine.setState(DISPLAY_HEATMAP);
+                    updateHeatmapAsync(measurement);
+                    if (callback != null) {
+                        callback.onRenderFinished();
+                        if (waitForNewScanResults) {
+                            wifiData.stopReceivingScanResults(callback.getActivity());
+                            wifiData.setScanResultsAvailableListener(null);
+                        }
+                    }
+                    return;
+                }
                 measurements.add(measurement);
+                if (journal != null) {
+                    journal.appendMeasurement(measurement);
+                }
+                updatePreview();
                 rssiAggregate = null;
                 stateMachine.setState(MEASURE);
                 if (callback != null) {
@@ -496,25 +783,206 @@ public class HeatmapGenerationController implements Scene.OnUpdateListener, Wifi
         }
     }
 
+    /**
+     * Requests a new preview of the heatmap for the current measurements. The preview is rendered
+     * in the background and replaces the displayed one once it is finished. Must be called on the
+     * UI thread.
+     */
+    private void updatePreview() {
+        if (measurements.size() > 2) {
+            previewRenderer.requestPreview(createSurvey());
+        } else {
+            previewRenderer.cancel();
+            removePreview();
+        }
+    }
+
+    private void removePreview() {
+        if (previewNode != null) {
+            previewNode.setParent(null);
+            previewNode = null;
+        }
+    }
+
+    private boolean canUpdateHeatmap() {
+        // Heatmaps rendered to a file in tiles aren't kept in memory and methods fitted to all
+        // measurements would have to interpolate the whole heatmap again
+        return heatmapGenerator != null && heatmapGenerator.getHeatmap() != null && heatmapGenerator.hasLocalUpdates() && bitmapGenerator != null && heatmap != null;
+    }
+
+    /**
+     * Adds a measurement to the displayed heatmap in the background. Only the region of the
+     * heatmap that changed is interpolated and colored again, unless the measurement is outside of
+     * the bounds of the colors, in which case the whole heatmap is colored again with new bounds.
+     * The colors are copied to the displayed bitmap on the UI thread.
+     *
+     * @param measurement The measurement in pixels
+     */
+    private void updateHeatmapAsync(WifiMeasurement measurement) {
+        Bitmap bitmap = heatmap;
+        HeatmapGenerator generator = heatmapGenerator;
+        AtomicReference<ColorSelector> colors = updateColorSelector;
+        // The user waits for the update, so it doesn't queue behind other jobs
+        JobExecutor.getUpdateInstance().execute(() -> {
+            try {
+                addMeasurementToHeatmap(measurement, generator, bitmap, colors);
+            } catch (RuntimeException e) {
+                // The job runs on the executor directly, an uncaught exception would crash the app
+                Log.e(TAG, "Failed to update heatmap!", e);
+                callback.uiOperation(() -> Toast.makeText(context, "Unable to add this measurement to the heatmap!", Toast.LENGTH_LONG).show());
+            }
+        });
+    }
+
+    private void addMeasurementToHeatmap(WifiMeasurement measurement, HeatmapGenerator generator, Bitmap bitmap, AtomicReference<ColorSelector> colors) {
+        // Updates must not run concurrently with other uses of the generator
+        synchronized (generator) {
+            HeatmapRegion changedRegion = generator.addMeasurement(measurement);
+            if (changedRegion == null) {
+                callback.uiOperation(() -> Toast.makeText(context, "Unable to add this measurement to the heatmap!", Toast.LENGTH_LONG).show());
+                return;
+            }
+            ColorSelector currentColorSelector = colors.get();
+            boolean boundsChanged = !currentColorSelector.isWithinBounds(generator.getPowerScale().fromWatts(measurement.getPower()));
+            if (boundsChanged) {
+                currentColorSelector = createColorSelector(generator);
+                colors.set(currentColorSelector);
+                changedRegion = new HeatmapRegion(0, 0, bitmap.getWidth(), bitmap.getHeight());
+            }
+            if (changedRegion.isEmpty()) {
+                return;
+            }
+            ColorSelector regionColorSelector = currentColorSelector;
+            HeatmapRegion region = changedRegion;
+            BitmapGenerator regionBitmapGenerator = new BitmapGenerator(generator.getHeatmap(), generator.getAreaMask(), regionColorSelector);
+            int[] pixels = regionBitmapGenerator.colorRegion(region);
+            Log.d(TAG, "Heatmap updated in " + region);
+            // Posted while holding the lock, so the updates are copied in the order they were made
+            callback.uiOperation(() -> {
+                if (heatmap != bitmap) {
+                    // The heatmap has been replaced in the meantime
+                    return;
+                }
+                if (boundsChanged) {
+                    colorSelector = regionColorSelector;
+                    bitmapGenerator = regionBitmapGenerator;
+                }
+                bitmap.setPixels(pixels, 0, region.getWidth(), region.getLeft(), region.getTop(), region.getWidth(), region.getHeight());
+                callback.getHeatmapImageView().invalidate();
+            });
+        }
+    }
+
+    private ColorSelector createColorSelector(HeatmapGenerator generator) {
+        Preferences prefs = Preferences.getInstance();
+        return new ColorSelector(prefs.getColorSelectionMode(), new GradientColors(prefs.getHeatmapColors()), prefs.getGradientWidth(), generator.getPowerScale(), ColorSelector.findMinAndMaxValuesInHeatmap(generator.getAreaMask(), generator.getHeatmap()));
+    }
+
     private Vector2D worldCoordinatesToHeatmapCoordinates(Vector3 position) {
-        if (heatmapGenerator == null || heatmapGenerator.getHeatmap() == null) {
+        if (heatmapGenerator == null) {
             throw new IllegalStateException("Unable to convert to heatmap coordinates: Heatmap not created yet!");
         }
         Vector2D offset = heatmapGenerator.getOffset();
-        return new Vector2D(ScaleHelper.metersToPixels(position.x) + offset.x, ScaleHelper.metersToPixels(position.z) + offset.y);
+        return new Vector2D(metersToPixels(position.x) + offset.x, metersToPixels(position.z) + offset.y);
     }
 
     private Polygon createArea(Vector2D offset) {
         List<Vector2D> points = new ArrayList<>();
         for (Node node : areaPoints) {
             Vector3 nodeCoords = node.getWorldPosition();
-            Vector2D newPoint = new Vector2D(ScaleHelper.metersToPixels(nodeCoords.x) + offset.x, ScaleHelper.metersToPixels(nodeCoords.z) + offset.y);
+            Vector2D newPoint = new Vector2D(metersToPixels(nodeCoords.x) + offset.x, metersToPixels(nodeCoords.z) + offset.y);
             points.add(newPoint);
         }
         return new Polygon(points);
     }
 
+    /**
+     * Creates a survey of the area and the measurements. Positions are in meters relative to the
+     * first area point, where ARCore thinks they are now.
+     *
+     * @return The survey
+     */
+    private Survey createSurvey() {
+        List<Vector2D> surveyAreaPoints = new ArrayList<>(areaPoints.size());
+        for (Node node : areaPoints) {
+            surveyAreaPoints.add(worldCoordinatesToSurveyCoordinates(node.getWorldPosition()));
+        }
+        List<WifiMeasurement> surveyMeasurements = new ArrayList<>(measurements.size());
+        for (int i = 0; i < measurements.size(); i++) {
+            WifiMeasurement measurement = new WifiMeasurement(measurements.get(i));
+            measurement.moveTo(worldCoordinatesToSurveyCoordinates(measurementPoints.get(i).getWorldPosition()));
+            surveyMeasurements.add(measurement);
+        }
+        return new Survey(surveyAreaPoints, surveyMeasurements);
+    }
+
+    private Vector2D worldCoordinatesToSurveyCoordinates(Vector3 position) {
+        return new Vector2D(position.x - areaAnchorWorldPosition.x, position.z - areaAnchorWorldPosition.z);
+    }
+
+    private Vector3 surveyCoordinatesToWorldCoordinates(Vector2D position) {
+        return new Vector3((float) (areaAnchorWorldPosition.x + position.x), areaAnchorWorldPosition.y, (float) (areaAnchorWorldPosition.z + position.y));
+    }
+
+    /**
+     * Restores the survey recovered from the journal. The area point placed now replaces the
+     * first point of the recovered area and everything else is placed relative to it. Note that
+     * ARCore aligns its world with the device when a session starts, so the restored survey is
+     * only rotated correctly if the session was started facing the same direction as before.
+     */
+    private void restoreRecoveredSurvey() {
+        createAreaPointAtCurrentTarget();
+        if (areaAnchor == null) {
+            return;
+        }
+        SurveyJournal.Recovery recoveredSurvey = recovery;
+        recovery = null;
+        List<Vector2D> recoveredAreaPoints = recoveredSurvey.getAreaPoints();
+        for (int i = 1; i < recoveredAreaPoints.size(); i++) {
+            targetWorldPosition = surveyCoordinatesToWorldCoordinates(recoveredAreaPoints.get(i));
+            createAreaPointAtCurrentTarget();
+        }
+        for (WifiMeasurement recoveredMeasurement : recoveredSurvey.getMeasurements()) {
+            measurementPoints.add(DrawingHelper.attachPillarToAnchorIfPossible(areaAnchor, materialManager.getMeasurementIndicatorMaterial(), surveyCoordinatesToWorldCoordinates(recoveredMeasurement), arFragment.getArSceneView().getScene()));
+            measurements.add(new WifiMeasurement(recoveredMeasurement));
+        }
+        if (recoveredSurvey.isAreaClosed() && areaPoints.size() > 2) {
+            finishArea();
+            if (!autoArea && !measurements.isEmpty()) {
+                // Enter measure mode as the area has been completed before measuring
+                finishArea();
+            }
+        }
+        if (callback != null) {
+            if (!isAreaClosed()) {
+                if (!autoArea) {
+                    callback.onDrawAreaState(areaPoints.size() > 2);
+                }
+            } else if (autoArea || measurements.size() > 2) {
+                callback.onAllowGeneration();
+            }
+        }
+        updatePreview();
+        Toast.makeText(context, "Restored " + areaPoints.size() + " area points and " + measurements.size() + " measurements.", Toast.LENGTH_LONG).show();
+    }
+
+    private boolean isAreaClosed() {
+        return autoArea ? autoAreaClosed : stateMachine.isAreaCompleted();
+    }
+
+    private void appendToJournal(SurveyJournal.RecordType type) {
+        if (journal != null) {
+            journal.append(type);
+        }
+    }
+
+    private int metersToPixels(double meters) {
+        return ScaleHelper.metersToPixels(meters, pixelsPerMeter);
+    }
+
     private HeatmapGenerator createHeatmapGenerator() {
+        // Keep the scale of this heatmap even if the setting changes while it is displayed
+        pixelsPerMeter = Preferences.getInstance().getPixelsPerMeter();
         double minX = Double.MAX_VALUE;
         double minY = Double.MAX_VALUE;
         double maxX = Double.MIN_VALUE;
@@ -527,8 +995,8 @@ public class HeatmapGenerationController implements Scene.OnUpdateListener, Wifi
             maxX = Math.max(maxX, node.getWorldPosition().x);
             maxY = Math.max(maxY, node.getWorldPosition().z);
             // Update measurement position to ensure the measurement is placed where ARCore thinks the measurement took place. Also change coordinates from meters to pixels
-            measurements.get(i).x = ScaleHelper.metersToPixels(node.getWorldPosition().x);
-            measurements.get(i).y = ScaleHelper.metersToPixels(node.getWorldPosition().z);
+            measurements.get(i).x = metersToPixels(node.getWorldPosition().x);
+            measurements.get(i).y = metersToPixels(node.getWorldPosition().z);
 
         }
         for (Node node : areaPoints) {
@@ -545,12 +1013,15 @@ public class HeatmapGenerationController implements Scene.OnUpdateListener, Wifi
         if (Preferences.getInstance().shouldDrawDebugLines()) {
             drawHelperMarkers((float) minX, (float) maxX, (float) minY, (float) maxY, height);
         }
-        Vector2D zero = new Vector2D(ScaleHelper.metersToPixels(minX), ScaleHelper.metersToPixels(minY));
+        Vector2D zero = new Vector2D(metersToPixels(minX), metersToPixels(minY));
         sizeX = Math.abs(minX - maxX);
         sizeY = Math.abs(minY - maxY);
         Log.d(TAG, "sizeX = " + sizeX);
         Log.d(TAG, "sizeY = " + sizeY);
-        return new HeatmapGenerator(ScaleHelper.metersToPixels(sizeX), ScaleHelper.metersToPixels(sizeY), zero, HeatmapGenerator.ExternalPointStrategy.ASSUME_NEAREST, measurements);
+        HeatmapGenerator generator = new HeatmapGenerator(metersToPixels(sizeX), metersToPixels(sizeY), zero, HeatmapGenerator.ExternalPointStrategy.ASSUME_NEAREST, measurements);
+        generator.setInterpolator(Preferences.getInstance().getInterpolationMethod().createInterpolator(pixelsPerMeter));
+        generator.setPowerScale(Preferences.getInstance().getPowerScale());
+        return generator;
     }
 
     /**
@@ -580,6 +1051,32 @@ public class HeatmapGenerationController implements Scene.OnUpdateListener, Wifi
         DrawingHelper.drawLineAtNodeToPoint(minMin2, new Vector3(minX, height, maxY), materialManager.getAreaLineMaterial());
     }
 
+    /**
+     * Marks the position of the access point estimated by the {@link PathLossModel} with a pillar
+     * if the heatmap was predicted by a {@link PathLossInterpolator}.
+     */
+    private void showAccessPointEstimate() {
+        HeatmapGenerator generator = heatmapGenerator;
+        if (callback == null || !(generator.getInterpolator() instanceof PathLossInterpolator)) {
+            return;
+        }
+        PathLossModel model = ((PathLossInterpolator) generator.getInterpolator()).getModel();
+        if (model == null) {
+            return;
+        }
+        Log.d(TAG, "Estimated " + model);
+        // Inverse of worldCoordinatesToHeatmapCoordinates, the model is fitted in meters already
+        Vector2D offset = generator.getOffset();
+        Vector3 position = new Vector3((float) (model.getAccessPointX() - offset.x / pixelsPerMeter), areaAnchorWorldPosition.y, (float) (model.getAccessPointY() - offset.y / pixelsPerMeter));
+        callback.uiOperation(() -> {
+            if (accessPointNode != null) {
+                accessPointNode.setParent(null);
+            }
+            accessPointNode = DrawingHelper.attachPillarToAnchorIfPossible(areaAnchor, materialManager.getTargetIndicatorMaterial(), position, arFragment.getArSceneView().getScene());
+            Toast.makeText(context, context.getString(R.string.toast_access_point_estimated, model.getExponent(), model.getRmsError()), Toast.LENGTH_LONG).show();
+        });
+    }
+
     private void notifyOfProgress(double percentage) {
         if (callback != null) {
             callback.setProgress(percentage);
@@ -597,18 +1094,50 @@ public class HeatmapGenerationController implements Scene.OnUpdateListener, Wifi
         notifyOfProgress(percentage);
     }
 
+    @Override
+    public void onHeatmapLevelFinished(int step, HeatmapGrid level) {
+        // Coarse levels are small, so they are drawn right away on the generating thread
+        if (!containsValues(level)) {
+            // The level is too coarse to sample the area
+            return;
+        }
+        PolygonMask levelMask = PolygonMask.full(level.getWidth(), level.getHeight());
+        Bitmap bitmap = new BitmapGenerator(level, levelMask, levelColorSelector).drawHeatmap(generationToken);
+        if (callback != null) {
+            callback.uiOperation(() -> showHeatmap(bitmap, (double) pixelsPerMeter / step));
+            callback.onHeatmapLevelDisplayed(step);
+        }
+    }
+
+    private static boolean containsValues(HeatmapGrid grid) {
+        for (float value : grid.getValues()) {
+            if (!Float.isNaN(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public void onHeatmapGenerationFinished() {
         if (callback != null) {
             callback.onRenderStarted();
         }
-        double[][] heatmap = heatmapGenerator.getHeatmap();
-        if (heatmap != null) {
-            Preferences prefs = Preferences.getInstance();
-            ColorSelector colorSelector = new ColorSelector(prefs.getColorSelectionMode(), new GradientColors(prefs.getHeatmapColors()), ColorSelector.findMinAndMaxValuesInHeatmap(area, heatmap));
-            BitmapGenerator bitmapGenerator = new BitmapGenerator(heatmap, area, colorSelector);
-            bitmapGenerator.drawHeatmapAsync(this);
+        HeatmapGenerator generator = heatmapGenerator;
+        if (generator.getHeatmap() != null) {
+            ColorSelector finalColorSelector = createColorSelector(generator);
+            BitmapGenerator finalBitmapGenerator = new BitmapGenerator(generator.getHeatmap(), generator.getAreaMask(), finalColorSelector);
+            if (callback != null) {
+                // Posted before the bitmap is finished, so the fields are set when it is displayed
+                callback.uiOperation(() -> {
+                    colorSelector = finalColorSelector;
+                    bitmapGenerator = finalBitmapGenerator;
+                    updateColorSelector = new AtomicReference<>(finalColorSelector);
+                });
+            }
+            finalBitmapGenerator.drawHeatmapAsync(generationToken, this);
         }
+        showAccessPointEstimate();
     }
 
     @Override
@@ -617,6 +1146,37 @@ public class HeatmapGenerationController implements Scene.OnUpdateListener, Wifi
         Toast.makeText(context, "Failed to generate heatmap!", Toast.LENGTH_LONG).show();
     }
 
+    @Override
+    public void onTileProgress(double percentage) {
+        notifyOfProgress(percentage);
+    }
+
+    @Override
+    public void onTilesFinished() {
+        closeTiledHeatmapWriter();
+        Log.d(TAG, "Heatmap tiles written to " + tiledHeatmapFile.getAbsolutePath());
+        Bitmap bitmap = Utils.decodeSampledBitmap(tiledHeatmapFile, heatmapGenerator.getWidth(), heatmapGenerator.getHeight(), MAX_IN_MEMORY_HEATMAP_PIXELS);
+        if (bitmap == null) {
+            onTilesError(new IOException("Unable to decode " + tiledHeatmapFile.getAbsolutePath()));
+            return;
+        }
+        onBitmapFinished(bitmap);
+        showAccessPointEstimate();
+    }
+
+    @Override
+    public void onTilesError(Exception exception) {
+        closeTiledHeatmapWriter();
+        if (exception instanceof CancellationException) {
+            Log.d(TAG, "Rendering heatmap tiles cancelled.");
+            return;
+        }
+        Log.e(TAG, "Failed to render heatmap tiles!", exception);
+        if (callback != null) {
+            callback.uiOperation(() -> Toast.makeText(context, "Failed to generate heatmap!", Toast.LENGTH_LONG).show());
+        }
+    }
+
     @Override
     public void onBitmapProgress(double percentage) {
         notifyOfProgress(percentage);
@@ -628,25 +1188,89 @@ public class HeatmapGenerationController implements Scene.OnUpdateListener, Wifi
         if (callback != null) {
             callback.onRenderFinished();
             callback.uiOperation(() -> {
-                Node node = new Node();
-                node.setParent(areaPoints.firstElement());
-                ViewRenderable heatmapRenderable = callback.getHeatmapRenderable();
-                node.setRenderable(heatmapRenderable);
-                callback.getHeatmapImageView().setImageBitmap(bitmap);
-
-                correctHeatmapWorldPosition(node);
+                showHeatmap(bitmap, pixelsPerMeter);
+                stateMachine.setState(DISPLAY_HEATMAP);
+                heatmap = bitmap;
             });
-            this.stateMachine.setState(DISPLAY_HEATMAP);
-            this.heatmap = bitmap;
         }
     }
 
-    private void correctHeatmapWorldPosition(Node node) {
+    @Override
+    public void onBitmapError(Exception exception) {
+        Log.e(TAG, "Failed to draw heatmap!", exception);
+        if (callback != null) {
+            callback.uiOperation(() -> Toast.makeText(context, "Failed to generate heatmap!", Toast.LENGTH_LONG).show());
+        }
+    }
+
+    /**
+     * Displays a bitmap of the heatmap (or a coarser level of it) on the plane. Must be called on
+     * the UI thread.
+     *
+     * @param bitmap               The bitmap
+     * @param bitmapPixelsPerMeter The resolution of the bitmap
+     */
+    private void showHeatmap(Bitmap bitmap, double bitmapPixelsPerMeter) {
+        removePreview();
+        ViewRenderable heatmapRenderable = callback.getHeatmapRenderable();
+        if (heatmapNode == null) {
+            heatmapNode = new Node();
+            heatmapNode.setParent(areaPoints.firstElement());
+            heatmapNode.setRenderable(heatmapRenderable);
+        }
+        // The renderable only supports whole pixels per meter, the node scales the remainder
+        int ratio = (int) Math.max(1, Math.round(bitmapPixelsPerMeter));
+        heatmapRenderable.setPixelsToMetersRatio(ratio);
+        float scale = (float) (ratio / bitmapPixelsPerMeter);
+        heatmapNode.setLocalScale(new Vector3(scale, scale, scale));
+        callback.getHeatmapImageView().setImageBitmap(bitmap);
+
+        correctHeatmapWorldPosition(heatmapNode, localBitmapZeroPosition, sizeX, sizeY);
+    }
+
+    @Override
+    public void onPreviewFinished(Bitmap preview, int previewPixelsPerMeter, Vector2D origin) {
+        if (callback == null) {
+            return;
+        }
+        // Only the bitmap is swapped on the UI thread, the preview has been rendered completely
+        callback.uiOperation(() -> {
+            ViewRenderable previewRenderable = callback.getPreviewRenderable();
+            if (heatmapGenerator != null || areaPoints.isEmpty() || previewRenderable == null) {
+                // The heatmap is generated already or the survey has been undone
+                return;
+            }
+            if (previewNode == null) {
+                previewNode = new Node();
+                previewNode.setParent(areaPoints.firstElement());
+                previewNode.setRenderable(previewRenderable);
+            }
+            previewRenderable.setPixelsToMetersRatio(previewPixelsPerMeter);
+            callback.getPreviewImageView().setImageBitmap(preview);
+            Vector3 localZeroPosition = areaPoints.firstElement().worldToLocalPoint(surveyCoordinatesToWorldCoordinates(origin));
+            correctHeatmapWorldPosition(previewNode, localZeroPosition, (double) preview.getWidth() / previewPixelsPerMeter, (double) preview.getHeight() / previewPixelsPerMeter);
+        });
+    }
+
+    @Override
+    public void onPreviewFailed(Exception exception) {
+        if (callback == null) {
+            return;
+        }
+        // The displayed preview doesn't show the current measurements anymore
+        callback.uiOperation(() -> {
+            if (heatmapGenerator == null) {
+                removePreview();
+            }
+        });
+    }
+
+    private void correctHeatmapWorldPosition(Node node, Vector3 localZeroPosition, double sizeX, double sizeY) {
         // correct rotation for heatmap
         node.setWorldRotation(new Quaternion(0, 0, 0, 1));
         node.setWorldRotation(Quaternion.multiply(Quaternion.axisAngle(Vector3.up(), 180), Quaternion.axisAngle(Vector3.right(), 90)));
         // correct worldposition
-        node.setLocalPosition(localBitmapZeroPosition);
+        node.setLocalPosition(localZeroPosition);
         // correct offset for heatmap (ViewRenderer has anchor point in the middle)
         node.setWorldPosition(Vector3.add(node.getWorldPosition(), new Vector3((float) (sizeX / 2), 0, (float) sizeY)));
     }
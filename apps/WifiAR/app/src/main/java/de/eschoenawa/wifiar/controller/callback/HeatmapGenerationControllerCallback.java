@@ -28,6 +28,8 @@ public interface HeatmapGenerationControllerCallback {
 
     void onGenerationStarted();
 
+    void onHeatmapLevelDisplayed(int step);
+
     void onRenderStarted();
 
     void onRenderFinished();
@@ -38,6 +40,10 @@ public interface HeatmapGenerationControllerCallback {
 
     ImageView getHeatmapImageView();
 
+    ViewRenderable getPreviewRenderable();
+
+    ImageView getPreviewImageView();
+
     void uiOperation(Runnable runnable);
 
     void requestLocationPermission();
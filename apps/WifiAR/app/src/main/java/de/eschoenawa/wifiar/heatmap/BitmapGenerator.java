@@ -1,25 +1,34 @@
 package de.eschoenawa.wifiar.heatmap;
 
 import android.graphics.Bitmap;
-import android.graphics.Color;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
-import de.eschoenawa.wifiar.models.Polygon;
-import io.github.jdiemke.triangulation.Vector2D;
+import de.eschoenawa.wifiar.models.PolygonMask;
+import de.eschoenawa.wifiar.utils.concurrent.CancellationToken;
+import de.eschoenawa.wifiar.utils.concurrent.ComputePool;
+import de.eschoenawa.wifiar.utils.concurrent.JobExecutor;
+
+import static de.eschoenawa.wifiar.common.Constants.BITMAP_STRIPE_PIXELS;
+import static de.eschoenawa.wifiar.common.Constants.MIN_PIXELS_PER_TASK;
 
 /**
- * This class can generate a bitmap from a given two-dimensional double-array. The values in the array
+ * This class can generate a bitmap from a given {@link HeatmapGrid}. The values in the grid
  * represent a position along a given gradient and therefore each pixel gets a color on the gradient
  * representing it's value. This is meant to be used to generate heatmaps.
+ * <p>
+ * The bitmap is written in horizontal stripes: the colors of a stripe are determined in parallel
+ * (split into bands of rows) into a reusable buffer which is then copied to the bitmap with a
+ * single call to {@link Bitmap#setPixels(int[], int, int, int, int, int, int)}.
  *
  * @author Emil Schoenawa
  */
 public class BitmapGenerator {
-    private double[][] heatmap;
-    private Polygon area;
-    private ColorSelector colorSelector;
+    private HeatmapGrid heatmap;
+    private PolygonMask area;
+    private HeatmapColorizer colorizer;
     private BitmapGeneratorCallback callback;
     private final long pixels;
     private long pixelsDone;
@@ -28,45 +37,115 @@ public class BitmapGenerator {
      * Creates a new BitmapGenerator
      *
      * @param heatmap       The heatmap for which the bitmap should be generated
-     * @param area          The area as a {@link Polygon} in which the image should have color (pixels outside
-     *                      this area will be transparent)
+     * @param area          The area as a {@link PolygonMask} in which the image should have color
+     *                      (pixels outside this area will be transparent)
      * @param colorSelector The {@link ColorSelector} to use for value to color resolution
      */
-    public BitmapGenerator(double[][] heatmap, Polygon area, ColorSelector colorSelector) {
+    public BitmapGenerator(HeatmapGrid heatmap, PolygonMask area, ColorSelector colorSelector) {
         this.heatmap = heatmap;
         this.area = area;
-        this.colorSelector = colorSelector;
+        this.colorizer = new HeatmapColorizer(colorSelector);
         this.pixelsDone = 0;
-        this.pixels = heatmap.length * heatmap[0].length;
+        this.pixels = (long) heatmap.getWidth() * heatmap.getHeight();
 
     }
 
-    private Bitmap drawHeatmap() {
-        Bitmap result = Bitmap.createBitmap(heatmap.length, heatmap[0].length, Bitmap.Config.ARGB_8888);
-        for (int x = 0; x < heatmap.length; x++) {
-            for (int y = 0; y < heatmap[x].length; y++) {
-                if (!Double.isNaN(heatmap[x][y]) && area.isPointInPolygon(new Vector2D(x, y))) {
-                    result.setPixel(x, y, colorSelector.getColorForValue(heatmap[x][y]));
-                } else {
-                    result.setPixel(x, y, Color.TRANSPARENT);
-                }
-            }
-            sendProgressUpdateToCallbackIfAvailable(heatmap[x].length);
+    /**
+     * Draws the whole heatmap on the calling thread.
+     *
+     * @return The bitmap
+     */
+    public Bitmap drawHeatmap() {
+        return drawHeatmap(CancellationToken.NONE);
+    }
+
+    /**
+     * Draws the whole heatmap on the calling thread, but stops as soon as the given token is
+     * cancelled. The token is checked before every stripe.
+     *
+     * @param cancellationToken The token to stop drawing with
+     * @return The bitmap
+     * @throws CancellationException If the token has been cancelled
+     */
+    public Bitmap drawHeatmap(CancellationToken cancellationToken) {
+        int width = heatmap.getWidth();
+        int height = heatmap.getHeight();
+        Bitmap result = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        if (width == 0) {
+            return result;
+        }
+        ForkJoinPool pool = ComputePool.getInstance();
+        int stripeRows = Math.max(1, Math.min(height, BITMAP_STRIPE_PIXELS / width));
+        int bandRows = Math.max(1, MIN_PIXELS_PER_TASK / width);
+        int[] buffer = new int[stripeRows * width];
+        for (int y = 0; y < height; y += stripeRows) {
+            cancellationToken.throwIfCancelled();
+            int rows = Math.min(stripeRows, height - y);
+            pool.invoke(new ColorBandTask(buffer, y, y, y + rows, bandRows));
+            result.setPixels(buffer, 0, width, 0, y, width, rows);
+            sendProgressUpdateToCallbackIfAvailable((long) rows * width);
         }
         return result;
     }
 
-    public void drawHeatmapAsync(BitmapGeneratorCallback callback) {
+    /**
+     * Draws the heatmap on the {@link JobExecutor}. If the token is cancelled drawing stops and
+     * the callback isn't notified anymore. Other errors are reported to the callback.
+     *
+     * @param cancellationToken The token to stop drawing with
+     * @param callback          The callback to notify of the progress and the result
+     */
+    public void drawHeatmapAsync(CancellationToken cancellationToken, BitmapGeneratorCallback callback) {
         this.callback = callback;
-        ExecutorService executorService = Executors.newSingleThreadExecutor();
-        executorService.submit(() -> {
-            Bitmap result = drawHeatmap();
+        JobExecutor.getInstance().execute(() -> {
+            Bitmap result;
+            try {
+                cancellationToken.throwIfCancelled();
+                result = drawHeatmap(cancellationToken);
+            } catch (CancellationException e) {
+                return;
+            } catch (RuntimeException e) {
+                // The job runs on the executor directly, an uncaught exception would crash the app
+                if (callback != null) {
+                    callback.onBitmapError(e);
+                }
+                return;
+            }
             if (callback != null) {
                 callback.onBitmapFinished(result);
             }
         });
     }
 
+    /**
+     * Draws a region of the heatmap into an existing bitmap of the heatmap again, e.g. after
+     * {@link HeatmapGenerator#addMeasurement(de.eschoenawa.wifiar.models.WifiMeasurement)}
+     * changed it.
+     *
+     * @param bitmap The bitmap that was drawn for the heatmap
+     * @param region The region that should be drawn again
+     */
+    public void drawRegion(Bitmap bitmap, HeatmapRegion region) {
+        if (region.isEmpty()) {
+            return;
+        }
+        int[] buffer = colorRegion(region);
+        bitmap.setPixels(buffer, 0, region.getWidth(), region.getLeft(), region.getTop(), region.getWidth(), region.getHeight());
+    }
+
+    /**
+     * Determines the colors of a region of the heatmap without drawing them, so a bitmap that is
+     * displayed can be colored in the background and only be changed on the UI thread.
+     *
+     * @param region The region to color
+     * @return The colors of the region, row by row
+     */
+    public int[] colorRegion(HeatmapRegion region) {
+        int[] buffer = new int[region.getWidth() * region.getHeight()];
+        colorizer.colorRegion(heatmap, area, region, buffer);
+        return buffer;
+    }
+
     private void sendProgressUpdateToCallbackIfAvailable(long pixelsDone) {
         synchronized (this) {
             this.pixelsDone += pixelsDone;
@@ -77,9 +156,43 @@ public class BitmapGenerator {
         }
     }
 
+    /**
+     * Colors a band of rows of the current stripe. Bands with more rows than the threshold are
+     * split in two halves. The bands don't overlap, so the tasks never write the same part of the
+     * buffer.
+     */
+    private class ColorBandTask extends RecursiveAction {
+        private final int[] buffer;
+        private final int bufferStart;
+        private final int startY;
+        private final int endY;
+        private final int bandRows;
+
+        ColorBandTask(int[] buffer, int bufferStart, int startY, int endY, int bandRows) {
+            this.buffer = buffer;
+            this.bufferStart = bufferStart;
+            this.startY = startY;
+            this.endY = endY;
+            this.bandRows = bandRows;
+        }
+
+        @Override
+        protected void compute() {
+            if (endY - startY > bandRows) {
+                int middle = (startY + endY) >>> 1;
+                invokeAll(new ColorBandTask(buffer, bufferStart, startY, middle, bandRows),
+                        new ColorBandTask(buffer, bufferStart, middle, endY, bandRows));
+                return;
+            }
+            colorizer.colorRows(heatmap, 0, 0, area, startY, endY, buffer, (startY - bufferStart) * heatmap.getWidth());
+        }
+    }
+
     public interface BitmapGeneratorCallback {
         void onBitmapProgress(double percentage);
 
         void onBitmapFinished(Bitmap bitmap);
+
+        void onBitmapError(Exception exception);
     }
 }
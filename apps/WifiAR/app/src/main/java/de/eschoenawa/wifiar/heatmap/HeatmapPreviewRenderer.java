@@ -0,0 +1,122 @@
+package de.eschoenawa.wifiar.heatmap;
+
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import java.util.concurrent.CancellationException;
+
+import de.eschoenawa.wifiar.models.Survey;
+import de.eschoenawa.wifiar.utils.Preferences;
+import de.eschoenawa.wifiar.utils.concurrent.CancellationToken;
+import de.eschoenawa.wifiar.utils.concurrent.JobExecutor;
+import de.eschoenawa.wifiar.utils.concurrent.JobSlot;
+import io.github.jdiemke.triangulation.NotEnoughPointsException;
+import io.github.jdiemke.triangulation.Vector2D;
+
+import static de.eschoenawa.wifiar.common.Constants.MAX_PREVIEW_PIXELS;
+
+/**
+ * This class renders low resolution previews of a survey while it is measured. The previews are
+ * interpolated just like the heatmap, in the background on the {@link JobExecutor}.
+ * <p>
+ * Only the latest requested survey is rendered: every request cancels the render of the previous
+ * one, whether it is still waiting for a thread (it won't start) or already running (it stops at
+ * the next check of its {@link CancellationToken}). The resolution is lowered for large surveys,
+ * so a preview never has more than
+ * {@link de.eschoenawa.wifiar.common.Constants#MAX_PREVIEW_PIXELS} pixels. This bounds both the
+ * time to render it and the time the UI thread needs to display it.
+ *
+ * @author Emil Schoenawa
+ */
+public class HeatmapPreviewRenderer {
+    private static final String TAG = "HPR";
+    private final int pixelsPerMeter;
+    private final HeatmapPreviewRendererCallback callback;
+    private final JobSlot previewJobs;
+
+    /**
+     * Creates a new HeatmapPreviewRenderer
+     *
+     * @param pixelsPerMeter The resolution of the previews (if they are small enough)
+     * @param callback       The callback that receives the previews
+     */
+    public HeatmapPreviewRenderer(int pixelsPerMeter, HeatmapPreviewRendererCallback callback) {
+        this.pixelsPerMeter = pixelsPerMeter;
+        this.callback = callback;
+        this.previewJobs = new JobSlot();
+    }
+
+    /**
+     * Requests a preview of the given survey. A preview that hasn't been finished yet is
+     * discarded.
+     *
+     * @param survey The survey (requires at least 3 measurements)
+     */
+    public void requestPreview(Survey survey) {
+        CancellationToken cancellationToken = previewJobs.next();
+        JobExecutor.getInstance().execute(() -> renderPreview(survey, cancellationToken));
+    }
+
+    /**
+     * Discards the preview that hasn't been finished yet.
+     */
+    public void cancel() {
+        previewJobs.cancel();
+    }
+
+    private void renderPreview(Survey survey, CancellationToken cancellationToken) {
+        try {
+            cancellationToken.throwIfCancelled();
+            int previewPixelsPerMeter = findPixelsPerMeter(survey);
+            SurveyHeatmapFactory factory = new SurveyHeatmapFactory(survey, previewPixelsPerMeter);
+            HeatmapGenerator heatmapGenerator = factory.createHeatmapGenerator(HeatmapGenerator.ExternalPointStrategy.ASSUME_NEAREST);
+            Preferences prefs = Preferences.getInstance();
+            PowerScale powerScale = prefs.getPowerScale();
+            heatmapGenerator.setPowerScale(powerScale);
+            if (survey.getAreaPoints().size() > 2) {
+                heatmapGenerator.setArea(factory.createArea(heatmapGenerator));
+            }
+            heatmapGenerator.generateHeatmap(cancellationToken);
+            ColorSelector colorSelector = new ColorSelector(prefs.getColorSelectionMode(), new GradientColors(prefs.getHeatmapColors()), prefs.getGradientWidth(), powerScale, ColorSelector.findMinAndMaxValuesOfMeasurements(survey.getMeasurements(), powerScale));
+            Bitmap preview = new BitmapGenerator(heatmapGenerator.getHeatmap(), heatmapGenerator.getAreaMask(), colorSelector).drawHeatmap(cancellationToken);
+            cancellationToken.throwIfCancelled();
+            callback.onPreviewFinished(preview, previewPixelsPerMeter, factory.getOrigin());
+        } catch (CancellationException e) {
+            Log.d(TAG, "Preview superseded.");
+        } catch (NotEnoughPointsException | IllegalArgumentException e) {
+            Log.d(TAG, "Unable to render preview: " + e.getMessage());
+        } catch (RuntimeException e) {
+            // The job runs on the executor directly, an uncaught exception would crash the app
+            Log.e(TAG, "Failed to render preview!", e);
+            if (!cancellationToken.isCancelled()) {
+                callback.onPreviewFailed(e);
+            }
+        }
+    }
+
+    private int findPixelsPerMeter(Survey survey) {
+        SurveyHeatmapFactory factory = new SurveyHeatmapFactory(survey, pixelsPerMeter);
+        double squareMeters = Math.max(1, (factory.getWidthInMeters() + 1) * (factory.getHeightInMeters() + 1));
+        return (int) Math.max(1, Math.min(pixelsPerMeter, Math.floor(Math.sqrt(MAX_PREVIEW_PIXELS / squareMeters))));
+    }
+
+    public interface HeatmapPreviewRendererCallback {
+        /**
+         * Called on the rendering thread when a preview is finished.
+         *
+         * @param preview        The preview
+         * @param pixelsPerMeter The resolution of the preview
+         * @param origin         The position of the top left corner of the preview in the
+         *                       coordinate system of the survey (in meters)
+         */
+        void onPreviewFinished(Bitmap preview, int pixelsPerMeter, Vector2D origin);
+
+        /**
+         * Called on the rendering thread when the latest preview can't be rendered because of an
+         * unexpected error.
+         *
+         * @param exception The error
+         */
+        void onPreviewFailed(Exception exception);
+    }
+}
@@ -0,0 +1,224 @@
+package de.eschoenawa.wifiar.heatmap;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.util.Log;
+import android.util.LruCache;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import de.eschoenawa.wifiar.utils.concurrent.JobExecutor;
+
+/**
+ * This class provides the tiles of a heatmap image at multiple resolutions (a tile pyramid), so
+ * large heatmaps can be displayed zoomed in and out without scaling or rotating the whole image.
+ * Level 0 has the resolution of the image, every further level half the resolution of the
+ * previous one until the whole image fits into a single tile.
+ * <p>
+ * Every tile is rendered only once. Rendered tiles are kept in an LRU memory cache; tiles that
+ * are evicted from it are spilled to a directory on disk and decoded from there when they are
+ * needed again. Tiles that aren't in the memory cache are loaded on the {@link JobExecutor} and
+ * the {@link TileListener} is notified once they are available.
+ *
+ * @author Emil Schoenawa
+ */
+public class HeatmapTilePyramid {
+    private static final String TAG = "HTP";
+    private final Bitmap image;
+    private final int tileSize;
+    private final int levelCount;
+    private final File spillDirectory;
+    private final TileListener listener;
+    private final LruCache<Long, Bitmap> memoryCache;
+    private final Set<Long> spilledTiles;
+    private final Set<Long> loadingTiles;
+    private final Paint paint;
+    private volatile boolean closed;
+
+    /**
+     * Creates a new HeatmapTilePyramid. The tiles are rendered when they are requested first.
+     *
+     * @param image          The heatmap image
+     * @param tileSize       The width and height of a tile in pixels
+     * @param maxCacheBytes  The number of bytes the tiles in the memory cache may occupy
+     * @param spillDirectory The directory to spill evicted tiles to (its content is deleted)
+     * @param listener       The listener to notify when a tile has been loaded
+     */
+    public HeatmapTilePyramid(Bitmap image, int tileSize, int maxCacheBytes, File spillDirectory, TileListener listener) {
+        this.image = image;
+        this.tileSize = tileSize;
+        this.spillDirectory = spillDirectory;
+        this.listener = listener;
+        int levels = 1;
+        while (((image.getWidth() - 1) >> (levels - 1)) >= tileSize || ((image.getHeight() - 1) >> (levels - 1)) >= tileSize) {
+            levels++;
+        }
+        this.levelCount = levels;
+        this.spilledTiles = ConcurrentHashMap.newKeySet();
+        this.loadingTiles = ConcurrentHashMap.newKeySet();
+        this.paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+        this.memoryCache = new LruCache<Long, Bitmap>(maxCacheBytes) {
+            @Override
+            protected int sizeOf(Long key, Bitmap tile) {
+                return tile.getByteCount();
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, Long key, Bitmap oldTile, Bitmap newTile) {
+                if (evicted && !closed && !spilledTiles.contains(key)) {
+                    JobExecutor.getInstance().execute(() -> spillTile(key, oldTile));
+                }
+            }
+        };
+        deleteSpilledTiles();
+        if (!spillDirectory.exists() && !spillDirectory.mkdirs()) {
+            Log.w(TAG, "Unable to create " + spillDirectory.getAbsolutePath() + ", evicted tiles will be rendered again.");
+        }
+    }
+
+    public int getLevelCount() {
+        return levelCount;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * @return The number of tiles of a row of the given level
+     */
+    public int getTilesX(int level) {
+        return (getLevelWidth(level) + tileSize - 1) / tileSize;
+    }
+
+    /**
+     * @return The number of rows of tiles of the given level
+     */
+    public int getTilesY(int level) {
+        return (getLevelHeight(level) + tileSize - 1) / tileSize;
+    }
+
+    public int getImageWidth() {
+        return image.getWidth();
+    }
+
+    public int getImageHeight() {
+        return image.getHeight();
+    }
+
+    /**
+     * Returns a tile if it is in the memory cache. Otherwise it is loaded in the background and
+     * {@code null} is returned; the listener is notified once it is available.
+     *
+     * @param level The level of the tile
+     * @param tileX The column of the tile in its level
+     * @param tileY The row of the tile in its level
+     * @return The tile (which may be smaller than the tile size at the right and bottom edges) or
+     * {@code null} if it isn't loaded yet
+     */
+    public Bitmap getTile(int level, int tileX, int tileY) {
+        long key = createKey(level, tileX, tileY);
+        Bitmap tile = memoryCache.get(key);
+        if (tile == null && !closed && loadingTiles.add(key)) {
+            JobExecutor.getInstance().execute(() -> {
+                Bitmap loadedTile = loadTile(key, level, tileX, tileY);
+                loadingTiles.remove(key);
+                if (loadedTile != null && !closed) {
+                    memoryCache.put(key, loadedTile);
+                    listener.onTileLoaded();
+                }
+            });
+        }
+        return tile;
+    }
+
+    /**
+     * Releases the memory cache and deletes the spilled tiles. The pyramid can't be used
+     * afterwards.
+     */
+    public void close() {
+        closed = true;
+        memoryCache.evictAll();
+        deleteSpilledTiles();
+    }
+
+    private Bitmap loadTile(long key, int level, int tileX, int tileY) {
+        if (spilledTiles.contains(key)) {
+            Bitmap tile = BitmapFactory.decodeFile(getSpillFile(key).getAbsolutePath());
+            if (tile != null) {
+                return tile;
+            }
+            spilledTiles.remove(key);
+        }
+        return renderTile(level, tileX, tileY);
+    }
+
+    /**
+     * Renders a tile by drawing the part of the image it covers scaled down to its level.
+     */
+    private Bitmap renderTile(int level, int tileX, int tileY) {
+        int width = Math.min(tileSize, getLevelWidth(level) - tileX * tileSize);
+        int height = Math.min(tileSize, getLevelHeight(level) - tileY * tileSize);
+        Bitmap tile = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        int left = (tileX * tileSize) << level;
+        int top = (tileY * tileSize) << level;
+        Rect source = new Rect(left, top, Math.min(image.getWidth(), left + (width << level)), Math.min(image.getHeight(), top + (height << level)));
+        // The last tiles of coarse levels cover partial pixels of the image, keep their scale
+        Rect destination = new Rect(0, 0, (source.width() + (1 << level) - 1) >> level, (source.height() + (1 << level) - 1) >> level);
+        new Canvas(tile).drawBitmap(image, source, destination, paint);
+        return tile;
+    }
+
+    private void spillTile(long key, Bitmap tile) {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(getSpillFile(key)))) {
+            tile.compress(Bitmap.CompressFormat.PNG, 100, out);
+            spilledTiles.add(key);
+        } catch (IOException e) {
+            Log.w(TAG, "Unable to spill tile, it will be rendered again.", e);
+        }
+    }
+
+    private void deleteSpilledTiles() {
+        spilledTiles.clear();
+        File[] files = spillDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (!file.delete()) {
+                    Log.w(TAG, "Unable to delete " + file.getAbsolutePath());
+                }
+            }
+        }
+    }
+
+    private File getSpillFile(long key) {
+        return new File(spillDirectory, Long.toHexString(key) + ".png");
+    }
+
+    private int getLevelWidth(int level) {
+        return (image.getWidth() + (1 << level) - 1) >> level;
+    }
+
+    private int getLevelHeight(int level) {
+        return (image.getHeight() + (1 << level) - 1) >> level;
+    }
+
+    private static long createKey(int level, int tileX, int tileY) {
+        return ((long) level << 48) | ((long) tileX << 24) | tileY;
+    }
+
+    public interface TileListener {
+        /**
+         * Called on a background thread when a tile that wasn't in the memory cache is available.
+         */
+        void onTileLoaded();
+    }
+}
@@ -8,6 +8,8 @@ import android.util.Log;
 import de.eschoenawa.wifiar.common.Constants;
 import de.eschoenawa.wifiar.exceptions.NotInitializedException;
 import de.eschoenawa.wifiar.heatmap.ColorSelector;
+import de.eschoenawa.wifiar.heatmap.InterpolationMethod;
+import de.eschoenawa.wifiar.heatmap.PowerScale;
 
 /**
  * This utility-class provides methods for storing and retrieving primitives to persist settings
@@ -110,6 +112,16 @@ public class Preferences {
         return Integer.parseInt(value);
     }
 
+    public InterpolationMethod getInterpolationMethod() {
+        String value = settings.getString(Constants.SETTING_INTERPOLATION, "TRIANGULATION");
+        return InterpolationMethod.getMethod(value);
+    }
+
+    public PowerScale getPowerScale() {
+        String value = settings.getString(Constants.SETTING_POWER_SCALE, "WATTS");
+        return PowerScale.getScale(value);
+    }
+
     public boolean shouldWaitForNewWifiScan() {
         return settings.getBoolean(Constants.SETTING_ACCURATE_RSSI, false);
     }
@@ -1,7 +1,9 @@
 package de.eschoenawa.wifiar.utils;
 
 import android.app.Activity;
+import android.content.Context;
 import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
 import android.graphics.Point;
 import android.net.Uri;
 import android.os.Environment;
@@ -55,4 +57,59 @@ public class Utils {
         }
         return Uri.fromFile(file);
     }
+
+    /**
+     * Creates a file in the app-specific pictures directory (no permission required) to which a
+     * heatmap image can be written.
+     *
+     * @param context  The context of the app
+     * @param filename The name of the image file
+     * @return The file; its parent directories exist
+     */
+    public static File createHeatmapImageFile(Context context, String filename) {
+        File directory = context.getExternalFilesDir(Environment.DIRECTORY_PICTURES);
+        if (directory == null) {
+            directory = context.getFilesDir();
+        }
+        if (!directory.exists() && !directory.mkdirs()) {
+            Log.e(TAG, "Unable to create directory for heatmap images!");
+        }
+        return new File(directory, filename);
+    }
+
+    /**
+     * Creates a file in the app-specific files directory (no permission required) to which a
+     * survey can be written.
+     *
+     * @param context  The context of the app
+     * @param filename The name of the survey file
+     * @return The file; its parent directories exist
+     */
+    public static File createSurveyFile(Context context, String filename) {
+        File directory = new File(context.getFilesDir(), Constants.SURVEY_DIRECTORY);
+        if (!directory.exists() && !directory.mkdirs()) {
+            Log.e(TAG, "Unable to create directory for surveys!");
+        }
+        return new File(directory, filename);
+    }
+
+    /**
+     * Decodes an image file with the smallest power-of-two subsampling that keeps the resulting
+     * bitmap below the given number of pixels. The image is subsampled while decoding so the
+     * full-size image is never held in memory.
+     *
+     * @param file      The image file
+     * @param width     The width of the image
+     * @param height    The height of the image
+     * @param maxPixels The maximum number of pixels of the resulting bitmap
+     * @return The decoded bitmap or {@code null} if the file can't be decoded
+     */
+    public static Bitmap decodeSampledBitmap(File file, int width, int height, long maxPixels) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = 1;
+        while ((long) (width / options.inSampleSize) * (height / options.inSampleSize) > maxPixels) {
+            options.inSampleSize *= 2;
+        }
+        return BitmapFactory.decodeFile(file.getAbsolutePath(), options);
+    }
 }
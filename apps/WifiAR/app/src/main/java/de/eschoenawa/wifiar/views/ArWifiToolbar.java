@@ -94,5 +94,7 @@ public class ArWifiToolbar extends LinearLayout {
 
     public void onHeatmapDisplay() {
         spinner.setVisibility(GONE);
+        // Further measurements are added to the displayed heatmap
+        btnMeasure.setVisibility(VISIBLE);
     }
 }
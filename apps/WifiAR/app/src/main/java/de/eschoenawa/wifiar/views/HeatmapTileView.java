@@ -0,0 +1,181 @@
+package de.eschoenawa.wifiar.views;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.support.annotation.Nullable;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+
+import de.eschoenawa.wifiar.heatmap.HeatmapTilePyramid;
+
+/**
+ * This view displays a {@link HeatmapTilePyramid}. It can be panned with one finger and zoomed
+ * and rotated with two fingers. Gestures only change the transformation the tiles are drawn
+ * with, so no bitmaps are allocated while the user interacts with the view.
+ *
+ * @author Emil Schoenawa
+ */
+public class HeatmapTileView extends View implements HeatmapTilePyramid.TileListener {
+    private final Matrix imageMatrix = new Matrix();
+    private final Matrix inverseMatrix = new Matrix();
+    private final RectF visibleRect = new RectF();
+    private final RectF tileRect = new RectF();
+    private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final float[] matrixValues = new float[9];
+    private HeatmapTilePyramid pyramid;
+    private float imageRotation;
+
+    // Gesture state of the previous touch event
+    private float lastFocusX;
+    private float lastFocusY;
+    private float lastSpan;
+    private float lastAngle;
+    private int lastPointerCount;
+
+    public HeatmapTileView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    public void setPyramid(HeatmapTilePyramid pyramid) {
+        this.pyramid = pyramid;
+        this.imageRotation = 0;
+        fitImage();
+        invalidate();
+    }
+
+    /**
+     * @return The rotation the user applied to the heatmap in degrees (clockwise)
+     */
+    public float getImageRotation() {
+        return imageRotation;
+    }
+
+    @Override
+    public void onTileLoaded() {
+        postInvalidate();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        fitImage();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (pyramid == null) {
+            return;
+        }
+        imageMatrix.getValues(matrixValues);
+        float scale = (float) Math.hypot(matrixValues[Matrix.MSCALE_X], matrixValues[Matrix.MSKEW_Y]);
+        int level = 0;
+        while (level < pyramid.getLevelCount() - 1 && scale * (2 << level) <= 1) {
+            level++;
+        }
+        // Determine the part of the image that is visible on the view
+        imageMatrix.invert(inverseMatrix);
+        visibleRect.set(0, 0, getWidth(), getHeight());
+        inverseMatrix.mapRect(visibleRect);
+
+        canvas.save();
+        canvas.concat(imageMatrix);
+        // The coarsest level covers tiles of the finer level that aren't loaded yet
+        drawLevel(canvas, pyramid.getLevelCount() - 1);
+        if (level < pyramid.getLevelCount() - 1) {
+            drawLevel(canvas, level);
+        }
+        canvas.restore();
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (pyramid == null) {
+            return false;
+        }
+        int pointerCount = event.getPointerCount();
+        float focusX = event.getX(0);
+        float focusY = event.getY(0);
+        float span = 0;
+        float angle = 0;
+        if (pointerCount > 1) {
+            float dx = event.getX(1) - event.getX(0);
+            float dy = event.getY(1) - event.getY(0);
+            focusX = (event.getX(0) + event.getX(1)) / 2;
+            focusY = (event.getY(0) + event.getY(1)) / 2;
+            span = (float) Math.hypot(dx, dy);
+            angle = (float) Math.toDegrees(Math.atan2(dy, dx));
+        }
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_MOVE:
+                if (pointerCount != lastPointerCount) {
+                    break;
+                }
+                imageMatrix.postTranslate(focusX - lastFocusX, focusY - lastFocusY);
+                if (pointerCount > 1 && lastSpan > 0) {
+                    float rotation = angle - lastAngle;
+                    imageMatrix.postScale(span / lastSpan, span / lastSpan, focusX, focusY);
+                    imageMatrix.postRotate(rotation, focusX, focusY);
+                    imageRotation = (imageRotation + rotation) % 360;
+                }
+                invalidate();
+                break;
+            case MotionEvent.ACTION_POINTER_UP:
+                // The lifted pointer is still part of this event, the next move event starts anew
+                pointerCount = 0;
+                break;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                performClick();
+                pointerCount = 0;
+                break;
+            default:
+                break;
+        }
+        lastPointerCount = pointerCount;
+        lastFocusX = focusX;
+        lastFocusY = focusY;
+        lastSpan = span;
+        lastAngle = angle;
+        return true;
+    }
+
+    @Override
+    public boolean performClick() {
+        return super.performClick();
+    }
+
+    private void drawLevel(Canvas canvas, int level) {
+        int tileSizeInImage = pyramid.getTileSize() << level;
+        int firstX = Math.max(0, (int) Math.floor(visibleRect.left / tileSizeInImage));
+        int firstY = Math.max(0, (int) Math.floor(visibleRect.top / tileSizeInImage));
+        int lastX = Math.min(pyramid.getTilesX(level) - 1, (int) Math.floor(visibleRect.right / tileSizeInImage));
+        int lastY = Math.min(pyramid.getTilesY(level) - 1, (int) Math.floor(visibleRect.bottom / tileSizeInImage));
+        for (int tileY = firstY; tileY <= lastY; tileY++) {
+            for (int tileX = firstX; tileX <= lastX; tileX++) {
+                Bitmap tile = pyramid.getTile(level, tileX, tileY);
+                if (tile != null) {
+                    float left = tileX * tileSizeInImage;
+                    float top = tileY * tileSizeInImage;
+                    tileRect.set(left, top, left + (tile.getWidth() << level), top + (tile.getHeight() << level));
+                    canvas.drawBitmap(tile, null, tileRect, paint);
+                }
+            }
+        }
+    }
+
+    private void fitImage() {
+        imageMatrix.reset();
+        if (pyramid == null || getWidth() == 0 || getHeight() == 0) {
+            return;
+        }
+        float scale = Math.min((float) getWidth() / pyramid.getImageWidth(), (float) getHeight() / pyramid.getImageHeight());
+        imageMatrix.postScale(scale, scale);
+        imageMatrix.postTranslate((getWidth() - pyramid.getImageWidth() * scale) / 2, (getHeight() - pyramid.getImageHeight() * scale) / 2);
+    }
+}
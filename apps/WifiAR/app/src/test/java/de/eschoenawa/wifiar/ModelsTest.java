@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import de.eschoenawa.wifiar.models.Polygon;
+import de.eschoenawa.wifiar.models.PolygonMask;
 import de.eschoenawa.wifiar.models.RssiAggregate;
 import io.github.jdiemke.triangulation.Vector2D;
 
@@ -33,6 +34,33 @@ public class ModelsTest {
         // this points on the edge will not be tested here.
     }
 
+    @Test
+    public void testPolygonMaskMatchesIsPointInPolygon() {
+        List<Vector2D> points = new ArrayList<>();
+        // Concave polygon with vertices on and between pixels that partially leaves the grid
+        points.add(new Vector2D(2, 1));
+        points.add(new Vector2D(30.5, 3));
+        points.add(new Vector2D(20, 12));
+        points.add(new Vector2D(36, 25.25));
+        points.add(new Vector2D(10.3, 30));
+        points.add(new Vector2D(-5, 15));
+        points.add(new Vector2D(8, 12));
+
+        Polygon polygon = new Polygon(points);
+        PolygonMask mask = polygon.createMask(32, 28);
+        long pixelCount = 0;
+        for (int y = 0; y < 28; y++) {
+            for (int x = 0; x < 32; x++) {
+                boolean inside = polygon.isPointInPolygon(new Vector2D(x, y));
+                assertEquals("Pixel " + x + "/" + y, inside, mask.contains(x, y));
+                if (inside) {
+                    pixelCount++;
+                }
+            }
+        }
+        assertEquals(pixelCount, mask.getPixelCount());
+    }
+
     @Test
     public void testRssiAverageCalculation() {
         RssiAggregate rssiAggregate = new RssiAggregate();
@@ -0,0 +1,163 @@
+package de.eschoenawa.wifiar.batch;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.eschoenawa.wifiar.heatmap.ColorSelector;
+import de.eschoenawa.wifiar.heatmap.GradientColors;
+import de.eschoenawa.wifiar.heatmap.InterpolationMethod;
+import de.eschoenawa.wifiar.heatmap.PowerScale;
+
+import static de.eschoenawa.wifiar.common.Constants.HEATMAP_TILE_SIZE;
+
+/**
+ * This class holds the command line options of the {@link BatchRenderer}. The defaults match the
+ * defaults of the app settings.
+ *
+ * @author Emil Schoenawa
+ */
+public class BatchOptions {
+    static final String USAGE = "Usage: batch [options] <survey files...>\n"
+            + "  --ppm <n>             Pixels per meter (default 100)\n"
+            + "  --mode <mode>         Color selection mode: BOUNDS or WIFI_BARS (default BOUNDS)\n"
+            + "  --colors <n>          Gradient colors (0-4, see GradientColors; default 0)\n"
+            + "  --gradient-width <n>  Number of colors in the gradient, -1 for one per color (default 100)\n"
+            + "  --interpolation <m>   TRIANGULATION, INVERSE_DISTANCE, KRIGING or PATH_LOSS\n"
+            + "                        (default TRIANGULATION); PATH_LOSS also prints the estimated access point\n"
+            + "  --scale <scale>       Unit the power is interpolated in: WATTS or DBM (default WATTS)\n"
+            + "  --jobs <n>            Number of files rendered at the same time (default: number of cores)\n"
+            + "  --tile-size <n>       Edge length of the rendered tiles (default " + HEATMAP_TILE_SIZE + ")\n"
+            + "  --out <directory>     Directory for the images (default: next to the survey file)";
+
+    private int pixelsPerMeter = 100;
+    private ColorSelector.Mode mode = ColorSelector.Mode.BOUNDS;
+    private int colors = GradientColors.MODE_RED_YELLOW_GREEN;
+    private int gradientWidth = 100;
+    private InterpolationMethod interpolationMethod = InterpolationMethod.TRIANGULATION;
+    private PowerScale powerScale = PowerScale.WATTS;
+    private int jobs = Runtime.getRuntime().availableProcessors();
+    private int tileSize = HEATMAP_TILE_SIZE;
+    private File outputDirectory;
+    private final List<File> surveyFiles = new ArrayList<>();
+
+    private BatchOptions() {
+    }
+
+    /**
+     * Parses the command line arguments.
+     *
+     * @param args The arguments
+     * @return The options
+     * @throws IllegalArgumentException If the arguments are invalid
+     */
+    public static BatchOptions parse(String[] args) {
+        BatchOptions options = new BatchOptions();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                options.surveyFiles.add(new File(arg));
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg + "!");
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--ppm":
+                    options.pixelsPerMeter = parsePositive(arg, value);
+                    break;
+                case "--mode":
+                    options.mode = ColorSelector.Mode.valueOf(value);
+                    break;
+                case "--colors":
+                    options.colors = Integer.parseInt(value);
+                    break;
+                case "--gradient-width":
+                    options.gradientWidth = Integer.parseInt(value);
+                    break;
+                case "--interpolation":
+                    options.interpolationMethod = InterpolationMethod.valueOf(value);
+                    break;
+                case "--scale":
+                    options.powerScale = PowerScale.valueOf(value);
+                    break;
+                case "--jobs":
+                    options.jobs = parsePositive(arg, value);
+                    break;
+                case "--tile-size":
+                    options.tileSize = parsePositive(arg, value);
+                    break;
+                case "--out":
+                    options.outputDirectory = new File(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + arg + "!");
+            }
+        }
+        if (options.surveyFiles.isEmpty()) {
+            throw new IllegalArgumentException("No survey files given!");
+        }
+        return options;
+    }
+
+    private static int parsePositive(String option, String value) {
+        int result = Integer.parseInt(value);
+        if (result <= 0) {
+            throw new IllegalArgumentException(option + " has to be positive!");
+        }
+        return result;
+    }
+
+    public int getPixelsPerMeter() {
+        return pixelsPerMeter;
+    }
+
+    public ColorSelector.Mode getMode() {
+        return mode;
+    }
+
+    public int getColors() {
+        return colors;
+    }
+
+    public int getGradientWidth() {
+        return gradientWidth;
+    }
+
+    public InterpolationMethod getInterpolationMethod() {
+        return interpolationMethod;
+    }
+
+    public PowerScale getPowerScale() {
+        return powerScale;
+    }
+
+    public int getJobs() {
+        return jobs;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * Determines the file the image of a survey is written to.
+     *
+     * @param surveyFile The survey file
+     * @return The image file
+     */
+    public File getImageFile(File surveyFile) {
+        String name = surveyFile.getName();
+        int extension = name.lastIndexOf('.');
+        if (extension > 0) {
+            name = name.substring(0, extension);
+        }
+        File directory = outputDirectory != null ? outputDirectory : surveyFile.getAbsoluteFile().getParentFile();
+        return new File(directory, name + ".png");
+    }
+
+    public List<File> getSurveyFiles() {
+        return surveyFiles;
+    }
+}
@@ -0,0 +1,174 @@
+package de.eschoenawa.wifiar.batch;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import de.eschoenawa.wifiar.heatmap.ColorSelector;
+import de.eschoenawa.wifiar.heatmap.GradientColors;
+import de.eschoenawa.wifiar.heatmap.HeatmapGenerator;
+import de.eschoenawa.wifiar.heatmap.PathLossInterpolator;
+import de.eschoenawa.wifiar.heatmap.PathLossModel;
+import de.eschoenawa.wifiar.heatmap.PngStripWriter;
+import de.eschoenawa.wifiar.heatmap.SurveyHeatmapFactory;
+import de.eschoenawa.wifiar.heatmap.TiledHeatmapRenderer;
+import de.eschoenawa.wifiar.models.Polygon;
+import de.eschoenawa.wifiar.models.Survey;
+import de.eschoenawa.wifiar.persistence.SurveyBinaryFormat;
+import de.eschoenawa.wifiar.persistence.SurveyTextFormat;
+import io.github.jdiemke.triangulation.NotEnoughPointsException;
+import io.github.jdiemke.triangulation.Vector2D;
+
+/**
+ * This command line tool renders stored surveys (binary or text format) to PNG images. Multiple files are rendered at the
+ * same time while the interpolation of each file is spread over all cores by the heatmap
+ * generation itself. The images are rendered tile by tile, so their size is not limited by the
+ * available memory. For every file the time required and the throughput in pixels per second is
+ * reported.
+ *
+ * @author Emil Schoenawa
+ */
+public class BatchRenderer {
+    private final BatchOptions options;
+
+    public BatchRenderer(BatchOptions options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) {
+        BatchOptions options;
+        try {
+            options = BatchOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(BatchOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+        boolean success = new BatchRenderer(options).renderAll();
+        System.exit(success ? 0 : 1);
+    }
+
+    /**
+     * Renders all survey files and prints the result of each file as well as a summary.
+     *
+     * @return true if all files were rendered, false otherwise
+     */
+    public boolean renderAll() {
+        List<File> surveyFiles = options.getSurveyFiles();
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.min(options.getJobs(), surveyFiles.size()));
+        long start = System.nanoTime();
+        List<Future<Result>> futures = new ArrayList<>(surveyFiles.size());
+        for (File surveyFile : surveyFiles) {
+            futures.add(executorService.submit(() -> render(surveyFile)));
+        }
+        int failed = 0;
+        long pixels = 0;
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                Result result = futures.get(i).get();
+                pixels += result.pixels;
+                System.out.println(result);
+            } catch (ExecutionException e) {
+                failed++;
+                System.err.println(surveyFiles.get(i) + ": Failed to render heatmap: " + e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed += futures.size() - i;
+                break;
+            }
+        }
+        executorService.shutdownNow();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format(Locale.ROOT, "Rendered %d of %d files (%d px) in %.2f s, %.2f Mpx/s",
+                surveyFiles.size() - failed, surveyFiles.size(), pixels, seconds, pixels / seconds / 1e6));
+        return failed == 0;
+    }
+
+    private Result render(File surveyFile) throws IOException, NotEnoughPointsException {
+        Survey survey = readSurvey(surveyFile);
+        long start = System.nanoTime();
+        SurveyHeatmapFactory heatmapFactory = new SurveyHeatmapFactory(survey, options.getPixelsPerMeter());
+        HeatmapGenerator heatmapGenerator = heatmapFactory.createHeatmapGenerator(HeatmapGenerator.ExternalPointStrategy.ASSUME_NEAREST);
+        heatmapGenerator.setInterpolator(options.getInterpolationMethod().createInterpolator(options.getPixelsPerMeter()));
+        heatmapGenerator.setPowerScale(options.getPowerScale());
+        Polygon area = heatmapFactory.createArea(heatmapGenerator);
+        // The bounds have to be known before the first tile is colored
+        ColorSelector colorSelector = new ColorSelector(options.getMode(), new GradientColors(options.getColors()), options.getGradientWidth(), options.getPowerScale(), ColorSelector.findMinAndMaxValuesOfMeasurements(survey.getMeasurements(), options.getPowerScale()));
+        File imageFile = options.getImageFile(surveyFile);
+        try (PngStripWriter writer = new PngStripWriter(new BufferedOutputStream(new FileOutputStream(imageFile)))) {
+            new TiledHeatmapRenderer(heatmapGenerator, area, colorSelector, options.getTileSize()).render(writer);
+        }
+        long pixels = (long) heatmapGenerator.getWidth() * heatmapGenerator.getHeight();
+        return new Result(surveyFile, imageFile, heatmapGenerator.getWidth(), heatmapGenerator.getHeight(), pixels, System.nanoTime() - start, describeAccessPoint(heatmapGenerator));
+    }
+
+    /**
+     * Describes the access point estimated by the path loss model of the heatmap in the
+     * coordinate system of the survey.
+     *
+     * @param heatmapGenerator The generator of the heatmap
+     * @return The description or {@code null} if the heatmap wasn't predicted by a path loss model
+     */
+    private String describeAccessPoint(HeatmapGenerator heatmapGenerator) {
+        if (!(heatmapGenerator.getInterpolator() instanceof PathLossInterpolator)) {
+            return null;
+        }
+        // The model is fitted in meters, but relative to the origin of the heatmap
+        PathLossModel model = ((PathLossInterpolator) heatmapGenerator.getInterpolator()).getModel();
+        Vector2D offset = heatmapGenerator.getOffset();
+        double x = model.getAccessPointX() - offset.x / options.getPixelsPerMeter();
+        double y = model.getAccessPointY() - offset.y / options.getPixelsPerMeter();
+        return String.format(Locale.ROOT, "access point at (%.2f m|%.2f m), %.1f dBm at 1 m, n = %.2f, rms error = %.1f dB",
+                x, y, model.getReferencePower(), model.getExponent(), model.getRmsError());
+    }
+
+    private static Survey readSurvey(File surveyFile) throws IOException {
+        if (SurveyBinaryFormat.isBinarySurvey(surveyFile)) {
+            return SurveyBinaryFormat.map(surveyFile).toSurvey();
+        }
+        try (Reader reader = new InputStreamReader(Files.newInputStream(surveyFile.toPath()), StandardCharsets.UTF_8)) {
+            return SurveyTextFormat.read(reader);
+        }
+    }
+
+    private static class Result {
+        private final File surveyFile;
+        private final File imageFile;
+        private final int width;
+        private final int height;
+        private final long pixels;
+        private final long nanos;
+        private final String accessPoint;
+
+        Result(File surveyFile, File imageFile, int width, int height, long pixels, long nanos, String accessPoint) {
+            this.surveyFile = surveyFile;
+            this.imageFile = imageFile;
+            this.width = width;
+            this.height = height;
+            this.pixels = pixels;
+            this.nanos = nanos;
+            this.accessPoint = accessPoint;
+        }
+
+        @Override
+        public String toString() {
+            double millis = nanos / 1e6;
+            String result = String.format(Locale.ROOT, "%s -> %s: %dx%d px in %.1f ms, %.2f Mpx/s",
+                    surveyFile, imageFile, width, height, millis, pixels / (millis * 1e3));
+            return accessPoint != null ? result + ", " + accessPoint : result;
+        }
+    }
+}
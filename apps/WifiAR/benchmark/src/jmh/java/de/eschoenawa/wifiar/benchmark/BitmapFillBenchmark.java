@@ -0,0 +1,71 @@
+package de.eschoenawa.wifiar.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+import de.eschoenawa.wifiar.heatmap.ColorSelector;
+import de.eschoenawa.wifiar.heatmap.GradientColors;
+import de.eschoenawa.wifiar.heatmap.HeatmapColorizer;
+import de.eschoenawa.wifiar.heatmap.HeatmapGrid;
+import de.eschoenawa.wifiar.models.PolygonMask;
+
+/**
+ * Measures filling the pixels of a heatmap image (the work of the BitmapGenerator before the
+ * pixels are copied to the bitmap): every pixel inside the area is colored by the
+ * {@link ColorSelector}, all others are transparent.
+ *
+ * @author Emil Schoenawa
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BitmapFillBenchmark {
+    @Param({"42"})
+    private long seed;
+
+    @Param({"10", "30"})
+    private double sizeMeters;
+
+    @Param({"25", "50", "100"})
+    private int pixelsPerMeter;
+
+    @Param({"RECTANGLE", "L_SHAPE"})
+    private SyntheticSurvey.Shape shape;
+
+    @Param({"BOUNDS", "WIFI_BARS"})
+    private ColorSelector.Mode mode;
+
+    private HeatmapGrid heatmap;
+    private PolygonMask area;
+    private HeatmapColorizer colorizer;
+    private int[] pixels;
+
+    @Setup
+    public void setUp() {
+        SyntheticSurvey survey = SyntheticSurvey.generate(seed, 10, sizeMeters, pixelsPerMeter, shape);
+        heatmap = new HeatmapGrid(survey.getWidth(), survey.getHeight());
+        // A smooth field of values is enough here, the colors don't depend on the interpolation
+        for (int y = 0; y < heatmap.getHeight(); y++) {
+            for (int x = 0; x < heatmap.getWidth(); x++) {
+                heatmap.set(x, y, (float) (1e-6 / (1 + x + y)));
+            }
+        }
+        area = survey.getArea().createMask(heatmap.getWidth(), heatmap.getHeight());
+        colorizer = new HeatmapColorizer(new ColorSelector(mode, new GradientColors(GradientColors.MODE_RED_YELLOW_GREEN), 100, 0, 1e-6));
+        pixels = new int[heatmap.getWidth() * heatmap.getHeight()];
+    }
+
+    @Benchmark
+    public int[] fill() {
+        colorizer.colorRows(heatmap, 0, 0, area, 0, heatmap.getHeight(), pixels, 0);
+        return pixels;
+    }
+}
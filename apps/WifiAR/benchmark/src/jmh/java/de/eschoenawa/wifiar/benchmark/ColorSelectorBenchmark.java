@@ -0,0 +1,69 @@
+package de.eschoenawa.wifiar.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import de.eschoenawa.wifiar.heatmap.ColorSelector;
+import de.eschoenawa.wifiar.heatmap.GradientColors;
+import de.eschoenawa.wifiar.heatmap.PowerScale;
+
+/**
+ * Measures the mapping of heatmap values (powers in watts or dBm) to colors.
+ *
+ * @author Emil Schoenawa
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ColorSelectorBenchmark {
+    private static final int VALUES = 1 << 20;
+
+    @Param({"42"})
+    private long seed;
+
+    @Param({"BOUNDS", "WIFI_BARS"})
+    private ColorSelector.Mode mode;
+
+    @Param({"100"})
+    private int gradientWidth;
+
+    @Param({"WATTS", "DBM"})
+    private PowerScale powerScale;
+
+    private float[] values;
+    private ColorSelector colorSelector;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(seed);
+        values = new float[VALUES];
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        for (int i = 0; i < VALUES; i++) {
+            values[i] = (float) powerScale.fromDbm(-95 + random.nextDouble() * 65);
+            min = Math.min(min, values[i]);
+            max = Math.max(max, values[i]);
+        }
+        colorSelector = new ColorSelector(mode, new GradientColors(GradientColors.MODE_RED_YELLOW_GREEN), gradientWidth, powerScale, min, max);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public int getColorForValue() {
+        int result = 0;
+        for (float value : values) {
+            result ^= colorSelector.getColorForValue(value);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,96 @@
+package de.eschoenawa.wifiar.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+import de.eschoenawa.wifiar.heatmap.HeatmapGenerator;
+import de.eschoenawa.wifiar.heatmap.HeatmapGrid;
+import de.eschoenawa.wifiar.utils.concurrent.CancellationToken;
+import io.github.jdiemke.triangulation.NotEnoughPointsException;
+import io.github.jdiemke.triangulation.Vector2D;
+
+/**
+ * Measures the generation of a heatmap for the area of a survey by the {@link HeatmapGenerator}
+ * (triangulation and interpolation of all pixels inside the area), either at once or
+ * progressively from coarse to fine. {@link #generateFirstLevel()} measures the time until the
+ * first coarse level can be shown.
+ *
+ * @author Emil Schoenawa
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class InterpolationBenchmark {
+    @Param({"42"})
+    private long seed;
+
+    @Param({"10", "100", "1000", "5000"})
+    private int measurementCount;
+
+    @Param({"10", "30"})
+    private double sizeMeters;
+
+    @Param({"25", "50", "100"})
+    private int pixelsPerMeter;
+
+    @Param({"RECTANGLE", "L_SHAPE"})
+    private SyntheticSurvey.Shape shape;
+
+    // LINEAR_SEARCH is orders of magnitude slower, compare with -p triangleLookupStrategy=...
+    @Param({"SCANLINE", "ADJACENCY_WALK"})
+    private HeatmapGenerator.TriangleLookupStrategy triangleLookupStrategy;
+
+    private SyntheticSurvey survey;
+
+    @Setup
+    public void setUp() {
+        survey = SyntheticSurvey.generate(seed, measurementCount, sizeMeters, pixelsPerMeter, shape);
+    }
+
+    @Benchmark
+    public HeatmapGrid generateHeatmap() throws NotEnoughPointsException {
+        HeatmapGenerator heatmapGenerator = new HeatmapGenerator(survey.getWidth(), survey.getHeight(), new Vector2D(0, 0), HeatmapGenerator.ExternalPointStrategy.ASSUME_NEAREST, triangleLookupStrategy, survey.copyMeasurements());
+        heatmapGenerator.setArea(survey.getArea());
+        heatmapGenerator.generateHeatmap();
+        return heatmapGenerator.getHeatmap();
+    }
+
+    @Benchmark
+    public HeatmapGrid generateHeatmapProgressively() throws NotEnoughPointsException {
+        HeatmapGenerator heatmapGenerator = createHeatmapGenerator();
+        heatmapGenerator.generateHeatmapProgressively(8, (step, level) -> {
+        }, CancellationToken.NONE);
+        return heatmapGenerator.getHeatmap();
+    }
+
+    @Benchmark
+    public HeatmapGrid generateFirstLevel() throws NotEnoughPointsException {
+        HeatmapGenerator heatmapGenerator = createHeatmapGenerator();
+        CancellationToken cancellationToken = new CancellationToken();
+        HeatmapGrid[] firstLevel = new HeatmapGrid[1];
+        try {
+            heatmapGenerator.generateHeatmapProgressively(8, (step, level) -> {
+                firstLevel[0] = level;
+                cancellationToken.cancel();
+            }, cancellationToken);
+        } catch (CancellationException e) {
+            // Stopped after the first level
+        }
+        return firstLevel[0];
+    }
+
+    private HeatmapGenerator createHeatmapGenerator() {
+        HeatmapGenerator heatmapGenerator = new HeatmapGenerator(survey.getWidth(), survey.getHeight(), new Vector2D(0, 0), HeatmapGenerator.ExternalPointStrategy.ASSUME_NEAREST, triangleLookupStrategy, survey.copyMeasurements());
+        heatmapGenerator.setArea(survey.getArea());
+        return heatmapGenerator;
+    }
+}
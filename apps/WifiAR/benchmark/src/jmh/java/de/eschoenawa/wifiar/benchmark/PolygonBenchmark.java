@@ -0,0 +1,66 @@
+package de.eschoenawa.wifiar.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+import de.eschoenawa.wifiar.models.Polygon;
+import de.eschoenawa.wifiar.models.PolygonMask;
+import io.github.jdiemke.triangulation.Vector2D;
+
+/**
+ * Measures determining the pixels inside the area, once by testing every pixel with
+ * {@link Polygon#isPointInPolygon(Vector2D)} and once by rasterizing the polygon to a
+ * {@link PolygonMask}.
+ *
+ * @author Emil Schoenawa
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PolygonBenchmark {
+    @Param({"42"})
+    private long seed;
+
+    @Param({"10", "30"})
+    private double sizeMeters;
+
+    @Param({"25", "50", "100"})
+    private int pixelsPerMeter;
+
+    @Param({"RECTANGLE", "L_SHAPE", "CORRIDOR"})
+    private SyntheticSurvey.Shape shape;
+
+    private SyntheticSurvey survey;
+
+    @Setup
+    public void setUp() {
+        survey = SyntheticSurvey.generate(seed, 10, sizeMeters, pixelsPerMeter, shape);
+    }
+
+    @Benchmark
+    public long isPointInPolygon() {
+        Polygon area = survey.getArea();
+        long inside = 0;
+        for (int y = 0; y < survey.getHeight(); y++) {
+            for (int x = 0; x < survey.getWidth(); x++) {
+                if (area.isPointInPolygon(new Vector2D(x, y))) {
+                    inside++;
+                }
+            }
+        }
+        return inside;
+    }
+
+    @Benchmark
+    public PolygonMask createMask() {
+        return survey.getArea().createMask(survey.getWidth(), survey.getHeight());
+    }
+}
@@ -0,0 +1,135 @@
+package de.eschoenawa.wifiar.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import de.eschoenawa.wifiar.models.Polygon;
+import de.eschoenawa.wifiar.models.WifiMeasurement;
+import de.eschoenawa.wifiar.utils.UnitConverter;
+import io.github.jdiemke.triangulation.Vector2D;
+
+/**
+ * This class generates reproducible surveys for benchmarks. The area has the given {@link Shape}
+ * and the measurements are distributed randomly inside of it. Their power follows a log-distance
+ * path loss model from a randomly placed access point with gaussian noise (shadowing). The same
+ * seed and parameters always result in the same survey.
+ *
+ * @author Emil Schoenawa
+ */
+public class SyntheticSurvey {
+    private static final double WAVELENGTH = 0.125;
+    private static final double TX_POWER_DBM = -30;
+    private static final double PATH_LOSS_EXPONENT = 3;
+    private static final double SHADOWING_DBM = 4;
+
+    private final int width;
+    private final int height;
+    private final int pixelsPerMeter;
+    private final Polygon area;
+    private final List<Vector2D> areaPoints;
+    private final List<WifiMeasurement> measurements;
+
+    public enum Shape {
+        RECTANGLE, L_SHAPE, CORRIDOR
+    }
+
+    private SyntheticSurvey(int width, int height, int pixelsPerMeter, List<Vector2D> areaPoints, List<WifiMeasurement> measurements) {
+        this.width = width;
+        this.height = height;
+        this.pixelsPerMeter = pixelsPerMeter;
+        this.areaPoints = areaPoints;
+        this.area = new Polygon(areaPoints);
+        this.measurements = measurements;
+    }
+
+    /**
+     * Generates a survey. All coordinates are in pixels.
+     *
+     * @param seed             The seed of the random numbers
+     * @param measurementCount The number of measurements
+     * @param sizeMeters       The size of the longer side of the bounding box of the area in meters
+     * @param pixelsPerMeter   The resolution of the heatmap
+     * @param shape            The {@link Shape} of the area
+     * @return The generated survey
+     */
+    public static SyntheticSurvey generate(long seed, int measurementCount, double sizeMeters, int pixelsPerMeter, Shape shape) {
+        Random random = new Random(seed);
+        int width = (int) Math.ceil(sizeMeters * pixelsPerMeter);
+        int height = shape == Shape.CORRIDOR ? Math.max(1, width / 5) : width;
+        List<Vector2D> areaPoints = createArea(shape, width - 1, height - 1);
+        Polygon area = new Polygon(areaPoints);
+
+        Vector2D accessPoint = randomPointInArea(random, area, width, height);
+        List<WifiMeasurement> measurements = new ArrayList<>(measurementCount);
+        while (measurements.size() < measurementCount) {
+            Vector2D position = randomPointInArea(random, area, width, height);
+            double distance = Math.max(1, position.sub(accessPoint).mag() / pixelsPerMeter);
+            double dbm = TX_POWER_DBM - 10 * PATH_LOSS_EXPONENT * Math.log10(distance) + random.nextGaussian() * SHADOWING_DBM;
+            measurements.add(new WifiMeasurement(UnitConverter.dbmToWatts(dbm), WAVELENGTH, position));
+        }
+        return new SyntheticSurvey(width, height, pixelsPerMeter, areaPoints, measurements);
+    }
+
+    private static List<Vector2D> createArea(Shape shape, double maxX, double maxY) {
+        List<Vector2D> points = new ArrayList<>();
+        points.add(new Vector2D(0, 0));
+        switch (shape) {
+            case L_SHAPE:
+                // Bounding box without the top right quarter
+                points.add(new Vector2D(maxX / 2, 0));
+                points.add(new Vector2D(maxX / 2, maxY / 2));
+                points.add(new Vector2D(maxX, maxY / 2));
+                break;
+            case RECTANGLE:
+            case CORRIDOR:
+            default:
+                points.add(new Vector2D(maxX, 0));
+                break;
+        }
+        points.add(new Vector2D(maxX, maxY));
+        points.add(new Vector2D(0, maxY));
+        return points;
+    }
+
+    private static Vector2D randomPointInArea(Random random, Polygon area, int width, int height) {
+        while (true) {
+            Vector2D point = new Vector2D(random.nextDouble() * width, random.nextDouble() * height);
+            if (area.isPointInPolygon(point)) {
+                return point;
+            }
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getPixelsPerMeter() {
+        return pixelsPerMeter;
+    }
+
+    public Polygon getArea() {
+        return area;
+    }
+
+    public List<Vector2D> getAreaPoints() {
+        return areaPoints;
+    }
+
+    /**
+     * @return New copies of the measurements (the heatmap generation moves and extends the list
+     * it is given)
+     */
+    public List<WifiMeasurement> copyMeasurements() {
+        List<WifiMeasurement> result = new ArrayList<>(measurements.size());
+        for (WifiMeasurement measurement : measurements) {
+            result.add(new WifiMeasurement(measurement));
+        }
+        return result;
+    }
+}
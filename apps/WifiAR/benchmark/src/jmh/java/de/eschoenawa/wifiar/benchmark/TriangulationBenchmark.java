@@ -0,0 +1,66 @@
+package de.eschoenawa.wifiar.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import de.eschoenawa.wifiar.heatmap.SweepHullTriangulator;
+import de.eschoenawa.wifiar.heatmap.Triangulation;
+import io.github.jdiemke.triangulation.DelaunayTriangulator;
+import io.github.jdiemke.triangulation.NotEnoughPointsException;
+import io.github.jdiemke.triangulation.Triangle2D;
+import io.github.jdiemke.triangulation.Vector2D;
+
+/**
+ * Measures the Delaunay triangulation of the measurement positions.
+ *
+ * @author Emil Schoenawa
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TriangulationBenchmark {
+    @Param({"42"})
+    private long seed;
+
+    @Param({"10", "100", "1000", "5000"})
+    private int measurementCount;
+
+    @Param({"RECTANGLE", "L_SHAPE"})
+    private SyntheticSurvey.Shape shape;
+
+    private List<Vector2D> points;
+    private double[] coordinates;
+
+    @Setup
+    public void setUp() {
+        SyntheticSurvey survey = SyntheticSurvey.generate(seed, measurementCount, 30, 50, shape);
+        points = new ArrayList<>(survey.copyMeasurements());
+        coordinates = new double[points.size() * 2];
+        for (int i = 0; i < points.size(); i++) {
+            coordinates[2 * i] = points.get(i).x;
+            coordinates[2 * i + 1] = points.get(i).y;
+        }
+    }
+
+    @Benchmark
+    public List<Triangle2D> triangulate() throws NotEnoughPointsException {
+        DelaunayTriangulator triangulator = new DelaunayTriangulator(points);
+        triangulator.triangulate();
+        return triangulator.getTriangles();
+    }
+
+    @Benchmark
+    public Triangulation triangulateSweepHull() throws NotEnoughPointsException {
+        return new SweepHullTriangulator().triangulate(coordinates);
+    }
+}
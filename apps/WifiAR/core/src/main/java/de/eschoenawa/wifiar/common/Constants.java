@@ -0,0 +1,61 @@
+package de.eschoenawa.wifiar.common;
+
+public class Constants {
+    public static final float INDICATOR_HEIGHT = 0.2f;
+    public static final float FUZZY_TARGET_DETECTION_DISTANCE = 0.1f;
+
+    public static final double INVALID_RSSI = 0;
+    public static final double FUZZY_WIDTH = 0.000000001;
+    public static final int MIN_PIXELS_PER_TASK = 4096;
+    public static final int TASKS_PER_WORKER = 4;
+    public static final long TRIANGLE_TESTS_PER_TASK = 4000000;
+    public static final long MAX_IN_MEMORY_HEATMAP_PIXELS = 8000000;
+    public static final int HEATMAP_TILE_SIZE = 256;
+    public static final int BITMAP_STRIPE_PIXELS = 262144;
+    public static final int JOB_THREADS = 2;
+    public static final long JOB_THREAD_KEEP_ALIVE_SECONDS = 30;
+    public static final int PROGRESSIVE_COARSEST_STEP = 8;
+    public static final int PREVIEW_PIXELS_PER_METER = 10;
+    public static final long MAX_PREVIEW_PIXELS = 262144;
+    public static final int TILE_CACHE_MEMORY_FRACTION = 8;
+    public static final int IDW_NEIGHBORS = 12;
+    public static final double IDW_POWER = 2;
+    public static final int KRIGING_NEIGHBORS = 16;
+    public static final double PATH_LOSS_MIN_DISTANCE = 1;
+    public static final int PATH_LOSS_MEASUREMENTS_PER_TASK = 2048;
+    public static final double MAX_MEASURE_DISTANCE = 0.3;
+    public static final long MILLIS_BETWEEN_SCANS = 1000;
+
+    public static final double MAX_POWER = 0.0001;
+    public static final double MIN_POWER = 0;
+    public static final double MIN_POWER_DBM = -100;
+    // Range of the signal levels calculated by WifiManager.calculateSignalLevel
+    public static final int SIGNAL_LEVEL_MIN_RSSI = -100;
+    public static final int SIGNAL_LEVEL_MAX_RSSI = -55;
+
+    // use for bitmap export / share
+    public static final String BITMAP_PATH = "/wifiar/Heatmaps/";
+
+    // use for survey persistence
+    public static final String SURVEY_DIRECTORY = "surveys";
+    public static final String SURVEY_FILE_EXTENSION = ".wfs";
+    public static final String SURVEY_JOURNAL_FILE_NAME = "survey.journal";
+
+    // use for spilling heatmap tiles evicted from memory
+    public static final String TILE_SPILL_DIRECTORY = "heatmap_tiles";
+
+    // Unique names
+    public static final String SHARED_PREFERENCES_NAME = "de.eschoenawa.wifiar.MAIN_PREFERENCES";
+
+    // Setting fields
+    public static final String SETTING_DEBUG_LINES = "debug_lines";
+    public static final String SETTING_PIXEL_PER_METER = "pixel_meter";
+    public static final String SETTING_GRADIENT_WIDTH = "gradient_width";
+    public static final String SETTING_HEATMAP_MODE = "heatmap_mode";
+    public static final String SETTING_HEATMAP_COLOR = "heatmap_color";
+    public static final String SETTING_ACCURATE_RSSI = "accurate_rssi";
+    public static final String SETTING_NUMBER_OF_MEASUREMENTS = "number_of_measurements";
+    public static final String SETTING_AUTO_AREA = "auto_area";
+    public static final String SETTING_INTERPOLATION = "interpolation";
+    public static final String SETTING_POWER_SCALE = "power_scale";
+}
@@ -0,0 +1,275 @@
+package de.eschoenawa.wifiar.heatmap;
+
+import java.util.List;
+
+import de.eschoenawa.wifiar.models.Polygon;
+import de.eschoenawa.wifiar.models.PolygonMask;
+import de.eschoenawa.wifiar.models.WifiMeasurement;
+
+import static de.eschoenawa.wifiar.common.Constants.SIGNAL_LEVEL_MAX_RSSI;
+import static de.eschoenawa.wifiar.common.Constants.SIGNAL_LEVEL_MIN_RSSI;
+
+/**
+ * This class selects the color of a heatmap value. The linear gradient between the given colors is
+ * sampled once at construction into a lookup table, so determining a color only requires an index
+ * calculation and an array access. The values are expected in the {@link PowerScale} of the
+ * heatmap, so neither mode converts a value to another unit.
+ *
+ * @author Emil Schoenawa
+ */
+public class ColorSelector {
+
+    private Mode mode;
+    private int[] gradient;
+    private int gradientWidth;
+    private double startValue;
+    private double endValue;
+    // BOUNDS: value at index 0 and factor that maps the distance to it to the index in the gradient
+    private double indexOrigin;
+    private double indexScale;
+    // WIFI_BARS: lowest power (in the power scale) of each signal level above 0
+    private double[] levelThresholds;
+
+    public enum Mode {
+        BOUNDS, WIFI_BARS
+    }
+
+    /**
+     * Creates a new ColorSelector based on the mode for values in watts.
+     *
+     * @param mode          The {@link Mode} to use for choosing the color
+     * @param colors        The {@link GradientColors} to use
+     * @param gradientWidth The number of colors sampled from the gradient in {@link Mode#BOUNDS}
+     *                      (-1 to use one per given color); ignored in other modes as the gradient
+     *                      is set to fit the given {@link Mode}
+     * @param boundaries    The lowest and highest possible value; these parameters will be ignored
+     *                      in modes other than {@link Mode#BOUNDS}
+     */
+    public ColorSelector(Mode mode, GradientColors colors, int gradientWidth, double... boundaries) {
+        this(mode, colors, gradientWidth, PowerScale.WATTS, boundaries);
+    }
+
+    /**
+     * Creates a new ColorSelector based on the mode. In {@link Mode#BOUNDS} values in watts are
+     * mapped to the gradient in proportion to the sum of the boundaries; values in dBm are
+     * negative, so the gradient spans from the lowest to the highest boundary instead.
+     *
+     * @param mode          The {@link Mode} to use for choosing the color
+     * @param colors        The {@link GradientColors} to use
+     * @param gradientWidth The number of colors sampled from the gradient in {@link Mode#BOUNDS}
+     *                      (-1 to use one per given color); ignored in other modes as the gradient
+     *                      is set to fit the given {@link Mode}
+     * @param powerScale    The {@link PowerScale} of the values
+     * @param boundaries    The lowest and highest possible value; these parameters will be ignored
+     *                      in modes other than {@link Mode#BOUNDS}
+     */
+    public ColorSelector(Mode mode, GradientColors colors, int gradientWidth, PowerScale powerScale, double... boundaries) {
+        this.mode = mode;
+        switch (this.mode) {
+            case BOUNDS:
+                if (boundaries == null || boundaries.length != 2) {
+                    throw new IllegalArgumentException("Mode set to bounds but an invalid number of boundaries were given.");
+                }
+                this.startValue = boundaries[0];
+                this.endValue = boundaries[1];
+                this.gradientWidth = gradientWidth;
+                if (this.gradientWidth == -1) {
+                    this.gradientWidth = colors.getColors().length;
+                }
+                if (powerScale == PowerScale.DBM) {
+                    this.indexOrigin = startValue;
+                    this.indexScale = endValue > startValue ? this.gradientWidth / (endValue - startValue) : 0;
+                } else {
+                    this.indexScale = this.gradientWidth / (startValue + endValue);
+                }
+                break;
+            case WIFI_BARS:
+                this.startValue = this.endValue = Double.NaN;
+                this.gradientWidth = colors.getColors().length;
+                this.levelThresholds = calculateLevelThresholds(this.gradientWidth, powerScale);
+                break;
+        }
+        if (this.gradientWidth <= 0) {
+            throw new IllegalArgumentException("Gradient width has to be positive!");
+        }
+        this.gradient = createGradient(colors.getColors(), this.gradientWidth);
+    }
+
+    public int getColorForValue(double value) {
+        switch (this.mode) {
+            default:
+            case BOUNDS:
+                int index = (int) ((value - indexOrigin) * indexScale);
+                return gradient[Math.max(0, Math.min(gradientWidth - 1, index))];
+            case WIFI_BARS:
+                int level = 0;
+                while (level < levelThresholds.length && value >= levelThresholds[level]) {
+                    level++;
+                }
+                return gradient[level];
+        }
+    }
+
+    public int getGradientWidth() {
+        return gradientWidth;
+    }
+
+    /**
+     * Checks whether the given value can be told apart from other values. In {@link Mode#BOUNDS}
+     * values outside the boundaries get the color of the nearest boundary, so the boundaries have
+     * to be determined again if such a value is added to the heatmap.
+     *
+     * @param value The value to check
+     * @return true if the value is inside the boundaries or the mode has no boundaries
+     */
+    public boolean isWithinBounds(double value) {
+        return mode != Mode.BOUNDS || (value >= startValue && value <= endValue);
+    }
+
+    /**
+     * Samples the left to right linear gradient through the given (evenly spaced) colors at the
+     * center of each of its pixels. Each channel is interpolated separately.
+     *
+     * @param colors The colors of the gradient as ARGB
+     * @param width  The number of samples
+     * @return The sampled colors as ARGB
+     */
+    private static int[] createGradient(int[] colors, int width) {
+        int[] result = new int[width];
+        for (int i = 0; i < width; i++) {
+            if (colors.length == 1) {
+                result[i] = colors[0];
+                continue;
+            }
+            double position = (i + 0.5) / width * (colors.length - 1);
+            int segment = Math.min(colors.length - 2, (int) position);
+            double fraction = position - segment;
+            int from = colors[segment];
+            int to = colors[segment + 1];
+            int color = 0;
+            for (int shift = 0; shift < 32; shift += 8) {
+                int channelFrom = (from >>> shift) & 0xFF;
+                int channelTo = (to >>> shift) & 0xFF;
+                color |= ((int) Math.round(channelFrom + (channelTo - channelFrom) * fraction)) << shift;
+            }
+            result[i] = color;
+        }
+        return result;
+    }
+
+    /**
+     * Determines the power thresholds between the signal levels shown as bars by Android
+     * ({@code WifiManager.calculateSignalLevel}) for the power rounded to full dBm. Comparing a
+     * value against the thresholds gives the same level without converting it to dBm.
+     *
+     * @param levels     The number of signal levels
+     * @param powerScale The {@link PowerScale} of the values
+     * @return The lowest power of every level above 0
+     */
+    private static double[] calculateLevelThresholds(int levels, PowerScale powerScale) {
+        double[] thresholds = new double[Math.max(0, levels - 1)];
+        int level = 0;
+        for (int rssi = SIGNAL_LEVEL_MIN_RSSI + 1; rssi <= SIGNAL_LEVEL_MAX_RSSI && level < thresholds.length; rssi++) {
+            int levelOfRssi = rssi >= SIGNAL_LEVEL_MAX_RSSI ? levels - 1
+                    : (int) ((float) (rssi - SIGNAL_LEVEL_MIN_RSSI) * (levels - 1) / (SIGNAL_LEVEL_MAX_RSSI - SIGNAL_LEVEL_MIN_RSSI));
+            while (level < levelOfRssi) {
+                // Values are rounded to full dBm, so rssi is reached half a dBm below
+                thresholds[level++] = powerScale.fromDbm(rssi - 0.5);
+            }
+        }
+        return thresholds;
+    }
+
+    /**
+     * This helper method allows finding the minimum and maximum values in a given heatmap.
+     *
+     * @param area    The area in which the values should be considered
+     * @param heatmap The heatmap of which the min/max should be determined
+     * @return An array containing the min value at position 0 and the max at position 1
+     */
+    public static double[] findMinAndMaxValuesInHeatmap(Polygon area, HeatmapGrid heatmap) {
+        return findMinAndMaxValuesInHeatmap(area.createMask(heatmap.getWidth(), heatmap.getHeight()), heatmap);
+    }
+
+    /**
+     * This helper method allows finding the minimum and maximum values in a given heatmap.
+     *
+     * @param area    The rasterized area in which the values should be considered
+     * @param heatmap The heatmap of which the min/max should be determined
+     * @return An array containing the min value at position 0 and the max at position 1
+     */
+    public static double[] findMinAndMaxValuesInHeatmap(PolygonMask area, HeatmapGrid heatmap) {
+        double max = -Double.MAX_VALUE;
+        double min = Double.MAX_VALUE;
+        double[] result = new double[2];
+        float[] values = heatmap.getValues();
+        int height = Math.min(area.getHeight(), heatmap.getHeight());
+        for (int y = 0; y < height; y++) {
+            int rowStart = heatmap.indexOf(0, y);
+            for (int span = 0; span < area.getSpanCount(y); span++) {
+                int end = Math.min(heatmap.getWidth(), area.getSpanEnd(y, span));
+                for (int x = area.getSpanStart(y, span); x < end; x++) {
+                    float heatmapCell = values[rowStart + x];
+                    if (!Float.isNaN(heatmapCell)) {
+                        max = Math.max(max, heatmapCell);
+                        min = Math.min(min, heatmapCell);
+                    }
+                }
+            }
+        }
+        if (min <= max) {
+            result[0] = min;
+            result[1] = max;
+            return result;
+        } else {
+            throw new IllegalArgumentException("Heatmap contains no valid numbers!");
+        }
+    }
+
+    /**
+     * This helper method allows finding the minimum and maximum power of the given measurements.
+     * It can be used instead of {@link #findMinAndMaxValuesInHeatmap(Polygon, HeatmapGrid)} if the
+     * heatmap isn't available as a whole. Most interpolations stay within the range of the
+     * measurements, but not all of them: with {@link HeatmapGenerator.ExternalPointStrategy#ASSUME_LOW}
+     * or {@link HeatmapGenerator.ExternalPointStrategy#ASSUME_HIGH} the edge points lie outside of
+     * it and {@link InterpolationMethod#PATH_LOSS} only limits its predictions to the strongest
+     * measurement. Values outside of the range get the color of the nearest bound.
+     *
+     * @param wifiMeasurements The measurements of which the min/max should be determined
+     * @return An array containing the min value at position 0 and the max at position 1
+     */
+    public static double[] findMinAndMaxValuesOfMeasurements(List<WifiMeasurement> wifiMeasurements) {
+        return findMinAndMaxValuesOfMeasurements(wifiMeasurements, PowerScale.WATTS);
+    }
+
+    /**
+     * This helper method allows finding the minimum and maximum power of the given measurements
+     * in the given {@link PowerScale}, see {@link #findMinAndMaxValuesOfMeasurements(List)}.
+     *
+     * @param wifiMeasurements The measurements of which the min/max should be determined
+     * @param powerScale       The scale of the heatmap the values are used for
+     * @return An array containing the min value at position 0 and the max at position 1
+     */
+    public static double[] findMinAndMaxValuesOfMeasurements(List<WifiMeasurement> wifiMeasurements, PowerScale powerScale) {
+        if (wifiMeasurements.isEmpty()) {
+            throw new IllegalArgumentException("No measurements given!");
+        }
+        double[] result = {Double.MAX_VALUE, -Double.MAX_VALUE};
+        for (WifiMeasurement wifiMeasurement : wifiMeasurements) {
+            double value = powerScale.fromWatts(wifiMeasurement.getPower());
+            result[0] = Math.min(result[0], value);
+            result[1] = Math.max(result[1], value);
+        }
+        return result;
+    }
+
+    public static Mode getMode(String modeString) {
+        switch (modeString) {
+            case "BOUNDS":
+            default:
+                return Mode.BOUNDS;
+            case "WIFI_BARS":
+                return Mode.WIFI_BARS;
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package de.eschoenawa.wifiar.heatmap;
 
-import android.graphics.Color;
-
 public class GradientColors {
     public static final int MODE_RED_YELLOW_GREEN = 0;
     public static final int MODE_GREEN_YELLOW_RED = 1;
@@ -9,6 +7,13 @@ public class GradientColors {
     public static final int MODE_RED_GREEN = 3;
     public static final int MODE_RED_YELLOW_TRANSPARENT = 4;
 
+    // Colors as ARGB (same values as the constants of android.graphics.Color)
+    private static final int RED = 0xFFFF0000;
+    private static final int YELLOW = 0xFFFFFF00;
+    private static final int GREEN = 0xFF00FF00;
+    private static final int DARK_GREEN = 0xFF003C00;
+    private static final int TRANSPARENT_YELLOW = 0x00FFFF00;
+
     private int[] colors;
 
     public GradientColors(int mode) {
@@ -17,37 +22,37 @@ public class GradientColors {
             default:
             case MODE_RED_YELLOW_GREEN:
                 this.colors = new int[]{
-                        Color.RED,
-                        Color.YELLOW,
-                        Color.GREEN
+                        RED,
+                        YELLOW,
+                        GREEN
                 };
                 break;
             case MODE_GREEN_YELLOW_RED:
                 this.colors = new int[]{
-                        Color.GREEN,
-                        Color.YELLOW,
-                        Color.RED
+                        GREEN,
+                        YELLOW,
+                        RED
                 };
                 break;
             case MODE_RED_YELLOW_GREEN_DARKGREEN:
                 this.colors = new int[]{
-                        Color.RED,
-                        Color.YELLOW,
-                        Color.GREEN,
-                        Color.argb(255, 0, 60, 0)
+                        RED,
+                        YELLOW,
+                        GREEN,
+                        DARK_GREEN
                 };
                 break;
             case MODE_RED_GREEN:
                 this.colors = new int[]{
-                        Color.RED,
-                        Color.GREEN
+                        RED,
+                        GREEN
                 };
                 break;
             case MODE_RED_YELLOW_TRANSPARENT:
                 this.colors = new int[]{
-                        Color.RED,
-                        Color.YELLOW,
-                        Color.argb(0, 255, 255, 0)
+                        RED,
+                        YELLOW,
+                        TRANSPARENT_YELLOW
                 };
                 break;
         }
@@ -0,0 +1,88 @@
+package de.eschoenawa.wifiar.heatmap;
+
+import java.util.Arrays;
+
+import de.eschoenawa.wifiar.models.PolygonMask;
+
+/**
+ * This class converts the values of a {@link HeatmapGrid} to ARGB colors in a plain int-array. Only
+ * the pixels inside the area are looked up by the {@link ColorSelector}; all other pixels (and
+ * pixels without a value) are transparent. The resulting array can be copied to a bitmap or an
+ * image file in bulk.
+ *
+ * @author Emil Schoenawa
+ */
+public class HeatmapColorizer {
+    public static final int TRANSPARENT = 0;
+
+    private final ColorSelector colorSelector;
+
+    public HeatmapColorizer(ColorSelector colorSelector) {
+        this.colorSelector = colorSelector;
+    }
+
+    /**
+     * Colors the rows {@code [startY, endY[} of the grid. The colors of a row are written
+     * consecutively, so the pixel (x|y) is located at
+     * {@code offset + (y - startY) * grid.getWidth() + x}.
+     *
+     * @param grid    The grid containing the values
+     * @param originX The x-coordinate of the area that corresponds to x = 0 of the grid
+     * @param originY The y-coordinate of the area that corresponds to y = 0 of the grid
+     * @param area    The area in which the pixels should have color
+     * @param startY  The first row of the grid to color (inclusive)
+     * @param endY    The last row of the grid to color (exclusive)
+     * @param pixels  The array to write the colors to
+     * @param offset  The index of the first pixel of row startY in the array
+     */
+    public void colorRows(HeatmapGrid grid, int originX, int originY, PolygonMask area, int startY, int endY, int[] pixels, int offset) {
+        int width = grid.getWidth();
+        float[] values = grid.getValues();
+        Arrays.fill(pixels, offset, offset + (endY - startY) * width, TRANSPARENT);
+        for (int y = startY; y < endY; y++) {
+            int row = originY + y;
+            int rowStart = grid.indexOf(0, y) - originX;
+            int pixelsRowStart = offset + (y - startY) * width - originX;
+            for (int span = 0; span < area.getSpanCount(row) && area.getSpanStart(row, span) < originX + width; span++) {
+                int start = Math.max(originX, area.getSpanStart(row, span));
+                int end = Math.min(originX + width, area.getSpanEnd(row, span));
+                for (int x = start; x < end; x++) {
+                    float value = values[rowStart + x];
+                    if (!Float.isNaN(value)) {
+                        pixels[pixelsRowStart + x] = colorSelector.getColorForValue(value);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Colors a rectangular region of the grid. The colors of a row of the region are written
+     * consecutively, so the pixel (x|y) is located at
+     * {@code (y - region.getTop()) * region.getWidth() + x - region.getLeft()}.
+     *
+     * @param grid   The grid containing the values
+     * @param area   The area in which the pixels should have color
+     * @param region The region of the grid to color
+     * @param pixels The array to write the colors to
+     */
+    public void colorRegion(HeatmapGrid grid, PolygonMask area, HeatmapRegion region, int[] pixels) {
+        int width = region.getWidth();
+        float[] values = grid.getValues();
+        Arrays.fill(pixels, 0, width * region.getHeight(), TRANSPARENT);
+        for (int y = region.getTop(); y < region.getBottom(); y++) {
+            int rowStart = grid.indexOf(0, y);
+            int pixelsRowStart = (y - region.getTop()) * width - region.getLeft();
+            for (int span = 0; span < area.getSpanCount(y) && area.getSpanStart(y, span) < region.getRight(); span++) {
+                int start = Math.max(region.getLeft(), area.getSpanStart(y, span));
+                int end = Math.min(region.getRight(), area.getSpanEnd(y, span));
+                for (int x = start; x < end; x++) {
+                    float value = values[rowStart + x];
+                    if (!Float.isNaN(value)) {
+                        pixels[pixelsRowStart + x] = colorSelector.getColorForValue(value);
+                    }
+                }
+            }
+        }
+    }
+}
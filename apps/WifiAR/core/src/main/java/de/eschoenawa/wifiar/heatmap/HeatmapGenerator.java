@@ -0,0 +1,1493 @@
+package de.eschoenawa.wifiar.heatmap;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.logging.Logger;
+
+import de.eschoenawa.wifiar.common.Constants;
+import de.eschoenawa.wifiar.models.Polygon;
+import de.eschoenawa.wifiar.models.PolygonMask;
+import de.eschoenawa.wifiar.models.WifiMeasurement;
+import de.eschoenawa.wifiar.utils.concurrent.CancellationToken;
+import de.eschoenawa.wifiar.utils.concurrent.ComputePool;
+import de.eschoenawa.wifiar.utils.concurrent.JobExecutor;
+import io.github.jdiemke.triangulation.NotEnoughPointsException;
+import io.github.jdiemke.triangulation.Triangle2D;
+import io.github.jdiemke.triangulation.Vector2D;
+
+import static de.eschoenawa.wifiar.common.Constants.FUZZY_WIDTH;
+import static de.eschoenawa.wifiar.common.Constants.INVALID_RSSI;
+import static de.eschoenawa.wifiar.common.Constants.MAX_POWER;
+import static de.eschoenawa.wifiar.common.Constants.MIN_PIXELS_PER_TASK;
+import static de.eschoenawa.wifiar.common.Constants.MIN_POWER;
+import static de.eschoenawa.wifiar.common.Constants.TASKS_PER_WORKER;
+import static de.eschoenawa.wifiar.common.Constants.TRIANGLE_TESTS_PER_TASK;
+
+/**
+ * This class generates a heatmap ({@link HeatmapGrid}) for specified WifiMeasurements. Missing
+ * values will be interpolated between the known points. Four points will be generated one pixel outside
+ * the desired heatmap-size at the edges of the map to allow filling the whole map with values. These
+ * points will either take the value of the nearest point, assume a low value or assume a high value
+ * depending on the {@link ExternalPointStrategy} set. If an area is set only the pixels inside the area
+ * are interpolated, all other pixels are {@link Float#NaN}. Once the heatmap has been generated further
+ * measurements can be added by {@link #addMeasurement(WifiMeasurement)} without generating it again.
+ * Instead of the triangulation an {@link Interpolator} can be set, which doesn't need edge points.
+ * The power is interpolated in watts unless another {@link PowerScale} is set.
+ *
+ * @author Emil Schoenawa
+ */
+public class HeatmapGenerator {
+    private int sizeX;
+    private int sizeY;
+    private List<WifiMeasurement> measurements;
+    private ExternalPointStrategy externalPointStrategy;
+    private TriangleLookupStrategy triangleLookupStrategy;
+    private HeatmapGrid heatmap;
+    private PolygonMask area;
+    private Vector2D offset;
+    private HeatmapGeneratorCallback callback;
+    private CancellationToken cancellationToken = CancellationToken.NONE;
+    private long pixels;
+    private long pixelsDone;
+    private Map<Triangle2D, TrianglePlane> planeOfTriangleMap;
+    private Map<Vector2D, WifiMeasurement> measurementOfVertexMap;
+    private MeasurementIndex measurementIndex;
+    private Triangulator triangulator = new SweepHullTriangulator();
+    private Interpolator interpolator;
+    private PowerScale powerScale = PowerScale.WATTS;
+    private Interpolator.Evaluator queryEvaluator;
+    private boolean interpolatorPrepared;
+    private Triangulation triangulation;
+    private TriangleLocator queryLocator;
+    private List<Triangle2D> triangles;
+    private List<WifiMeasurement> edgePoints;
+    private double[] edgePointSourceDistances;
+
+    private static final Logger LOGGER = Logger.getLogger(HeatmapGenerator.class.getName());
+
+    /**
+     * Creates a new HeatmapGenerator.
+     *
+     * @param sizeX                 The size of the resulting heatmap in X-direction
+     * @param sizeY                 The size of the resulting heatmap in Y-direction
+     * @param zero                  The point of the coordinate-system of the measurement coordinates that should be
+     *                              the coordinate origin for the resulting heatmap
+     * @param externalPointStrategy The {@link ExternalPointStrategy} to apply to generate the edge
+     *                              points of the heatmap
+     * @param wifiMeasurements      The measurements made
+     */
+    public HeatmapGenerator(int sizeX, int sizeY, Vector2D zero, ExternalPointStrategy externalPointStrategy, List<WifiMeasurement> wifiMeasurements) {
+        this(sizeX, sizeY, zero, externalPointStrategy, TriangleLookupStrategy.SCANLINE, wifiMeasurements);
+    }
+
+    /**
+     * Creates a new HeatmapGenerator.
+     *
+     * @param sizeX                  The size of the resulting heatmap in X-direction
+     * @param sizeY                  The size of the resulting heatmap in Y-direction
+     * @param zero                   The point of the coordinate-system of the measurement coordinates that should be
+     *                               the coordinate origin for the resulting heatmap
+     * @param externalPointStrategy  The {@link ExternalPointStrategy} to apply to generate the edge
+     *                               points of the heatmap
+     * @param triangleLookupStrategy The {@link TriangleLookupStrategy} to apply to find the
+     *                               triangle of each pixel
+     * @param wifiMeasurements       The measurements made
+     */
+    public HeatmapGenerator(int sizeX, int sizeY, Vector2D zero, ExternalPointStrategy externalPointStrategy, TriangleLookupStrategy triangleLookupStrategy, List<WifiMeasurement> wifiMeasurements) {
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.pixels = (long) sizeX * sizeY;
+        this.pixelsDone = 0;
+        this.externalPointStrategy = externalPointStrategy;
+        this.triangleLookupStrategy = triangleLookupStrategy;
+        this.measurements = wifiMeasurements;
+        this.planeOfTriangleMap = new ConcurrentHashMap<>();
+        offset = new Vector2D(-zero.x, -zero.y);
+    }
+
+    /**
+     * Restricts the interpolation to the pixels inside the given area. Pixels outside the area
+     * are not interpolated and set to {@link Float#NaN} instead, which saves most of the work for
+     * areas that only cover a small part of their bounding box.
+     *
+     * @param area The area in the coordinate system of the heatmap
+     */
+    public void setArea(Polygon area) {
+        this.area = area.createMask(sizeX, sizeY);
+        this.pixels = this.area.getPixelCount();
+    }
+
+    /**
+     * Sets the {@link Triangulator} used to triangulate the measurements. By default the
+     * {@link SweepHullTriangulator} is used.
+     *
+     * @param triangulator The triangulator to use
+     */
+    public void setTriangulator(Triangulator triangulator) {
+        this.triangulator = triangulator;
+    }
+
+    /**
+     * Sets the {@link Interpolator} used to interpolate the values between the measurements
+     * instead of the Delaunay triangulation. The pixels are interpolated in parallel rows; the
+     * {@link TriangleLookupStrategy} and the {@link ExternalPointStrategy} are ignored.
+     *
+     * @param interpolator The interpolator or {@code null} to use the triangulation
+     */
+    public void setInterpolator(Interpolator interpolator) {
+        this.interpolator = interpolator;
+    }
+
+    /**
+     * @return The {@link Interpolator} set by {@link #setInterpolator(Interpolator)} or
+     * {@code null} if the triangulation is used
+     */
+    public Interpolator getInterpolator() {
+        return interpolator;
+    }
+
+    /**
+     * Sets the {@link PowerScale} the power of the measurements is interpolated in, which is also
+     * the unit of the values of the heatmap. By default the power is interpolated in watts. Has
+     * to be set before the heatmap is generated.
+     *
+     * @param powerScale The scale to interpolate in
+     */
+    public void setPowerScale(PowerScale powerScale) {
+        this.powerScale = powerScale;
+    }
+
+    public PowerScale getPowerScale() {
+        return powerScale;
+    }
+
+    /**
+     * @return The rasterized area set by {@link #setArea(Polygon)} or {@code null} if the whole
+     * heatmap is interpolated
+     */
+    public PolygonMask getAreaMask() {
+        return area;
+    }
+
+    /**
+     * This method generates the heatmap for the given measurement points. In order to interpolate
+     * the value for each pixel there are multiple steps required. First a Delauney Triangulation
+     * is performed by the {@link Triangulator} (see {@link #setTriangulator(Triangulator)}) to
+     * draw triangles between the measurement points. By default this is the
+     * {@link SweepHullTriangulator}; the incremental implementation by Johannes Diemke
+     * (https://github.com/jdiemke/delaunay-triangulator) is only used as the
+     * {@link ReferenceTriangulator} it is tested against. Afterwards the pixel values are
+     * determined by using barycentric interpolation for each triangle. Depending on the
+     * {@link TriangleLookupStrategy} either each triangle is rasterized once or the triangle of
+     * each pixel is searched.
+     *
+     * @throws NotEnoughPointsException If not enough measurements were made
+     */
+    public void generateHeatmap() throws NotEnoughPointsException {
+        generateHeatmap(CancellationToken.NONE);
+    }
+
+    /**
+     * Generates the heatmap like {@link #generateHeatmap()}, but stops as soon as the given token
+     * is cancelled. The token is checked after the triangulation and by every interpolation task.
+     *
+     * @param cancellationToken The token to stop the generation with
+     * @throws NotEnoughPointsException If not enough measurements were made
+     * @throws CancellationException    If the token has been cancelled (the heatmap is incomplete)
+     */
+    public void generateHeatmap(CancellationToken cancellationToken) throws NotEnoughPointsException {
+        this.cancellationToken = cancellationToken;
+        if (interpolator != null) {
+            prepareInterpolator();
+        } else {
+            // Keep the triangulation, so measurements can be added later
+            this.triangles = new ArrayList<>(triangulate());
+        }
+        cancellationToken.throwIfCancelled();
+        this.heatmap = new HeatmapGrid(sizeX, sizeY);
+        if (area != null) {
+            heatmap.fill(Float.NaN);
+        }
+
+        // Interpolate
+        LOGGER.fine("Starting interpolation...");
+        if (interpolator != null) {
+            interpolateWithInterpolator(heatmap, 0, 0, 1, true);
+        } else if (triangleLookupStrategy == TriangleLookupStrategy.SCANLINE) {
+            rasterizeHeatmapValues(triangles, heatmap, 1, null);
+        } else {
+            interpolateHeatmapValues(triangles);
+        }
+    }
+
+    /**
+     * Generates the heatmap progressively from coarse to fine, so a coarse version can be shown
+     * long before the heatmap is complete. Every level samples every step-th pixel of the heatmap
+     * in both directions. The first level uses the given step, which is halved for every further
+     * level until the full heatmap is generated. The pixels of a level are interpolated by
+     * rasterizing the triangles scaled down by the step, so every pixel has exactly the value the
+     * heatmap has at that position. A level reuses the values of the previous one for the pixels
+     * both share (every other pixel of every other row), so all coarse levels together add about
+     * a third to the pixels interpolated. The {@link TriangleLookupStrategy} is ignored; the
+     * triangles are always rasterized.
+     *
+     * @param coarsestStep      The step of the first level (a power of two)
+     * @param consumer          The {@link HeatmapLevelConsumer} that receives every level before
+     *                          the next one is generated; the last level is the heatmap returned
+     *                          by {@link #getHeatmap()}
+     * @param cancellationToken The token to stop the generation with
+     * @throws NotEnoughPointsException If not enough measurements were made
+     * @throws CancellationException    If the token has been cancelled
+     */
+    public void generateHeatmapProgressively(int coarsestStep, HeatmapLevelConsumer consumer, CancellationToken cancellationToken) throws NotEnoughPointsException {
+        if (coarsestStep < 1 || Integer.bitCount(coarsestStep) != 1) {
+            throw new IllegalArgumentException("The coarsest step has to be a power of two!");
+        }
+        this.cancellationToken = cancellationToken;
+        if (interpolator != null) {
+            prepareInterpolator();
+        } else {
+            this.triangles = new ArrayList<>(triangulate());
+        }
+        cancellationToken.throwIfCancelled();
+        LOGGER.fine("Starting progressive interpolation...");
+        HeatmapGrid previousLevel = null;
+        for (int step = coarsestStep; step >= 1; step /= 2) {
+            HeatmapGrid level = new HeatmapGrid((sizeX + step - 1) / step, (sizeY + step - 1) / step);
+            if (area != null) {
+                level.fill(Float.NaN);
+            }
+            if (step == 1) {
+                this.heatmap = level;
+            }
+            if (interpolator != null) {
+                // Interpolators are cheap per pixel, so the values of the previous level aren't reused
+                interpolateWithInterpolator(level, 0, 0, step, step == 1);
+            } else {
+                rasterizeHeatmapValues(triangles, level, step, previousLevel);
+            }
+            consumer.onLevel(step, level);
+            previousLevel = level;
+        }
+    }
+
+    /**
+     * This method generates the heatmap tile by tile instead of allocating the whole heatmap. The
+     * triangulation is performed once like in {@link #generateHeatmap()}. Afterwards the tiles are
+     * interpolated one row of tiles at a time (the tiles of a row in parallel) and handed to the
+     * consumer in row-major order. Only the tiles of one row are held in memory at once, so the
+     * memory required doesn't grow with the height of the heatmap. The heatmap returned by
+     * {@link #getHeatmap()} stays {@code null}.
+     *
+     * @param tileSize The maximum width and height of a tile in pixels
+     * @param consumer The {@link HeatmapTileConsumer} that receives the tiles
+     * @throws NotEnoughPointsException If not enough measurements were made
+     * @throws IOException              If the consumer fails to process a tile
+     */
+    public void generateHeatmapTiles(int tileSize, HeatmapTileConsumer consumer) throws NotEnoughPointsException, IOException {
+        generateHeatmapTiles(tileSize, consumer, CancellationToken.NONE);
+    }
+
+    /**
+     * Generates the heatmap tile by tile like {@link #generateHeatmapTiles(int, HeatmapTileConsumer)},
+     * but stops as soon as the given token is cancelled. The token is checked before every row of
+     * tiles and by every tile.
+     *
+     * @param tileSize          The maximum width and height of a tile in pixels
+     * @param consumer          The {@link HeatmapTileConsumer} that receives the tiles
+     * @param cancellationToken The token to stop the generation with
+     * @throws NotEnoughPointsException If not enough measurements were made
+     * @throws IOException              If the consumer fails to process a tile
+     * @throws CancellationException    If the token has been cancelled
+     */
+    public void generateHeatmapTiles(int tileSize, HeatmapTileConsumer consumer, CancellationToken cancellationToken) throws NotEnoughPointsException, IOException {
+        if (tileSize <= 0) {
+            throw new IllegalArgumentException("Tile size has to be positive!");
+        }
+        this.cancellationToken = cancellationToken;
+        if (interpolator != null) {
+            generateInterpolatedTiles(tileSize, consumer);
+            return;
+        }
+        List<Triangle2D> triangles = triangulate();
+        // Keep the triangulation for point queries
+        this.triangles = new ArrayList<>(triangles);
+        int tilesX = (sizeX + tileSize - 1) / tileSize;
+        int tilesY = (sizeY + tileSize - 1) / tileSize;
+
+        // Sort triangles into the tiles their bounding boxes overlap
+        List<List<Triangle2D>> trianglesOfTiles = new ArrayList<>(tilesX * tilesY);
+        for (int i = 0; i < tilesX * tilesY; i++) {
+            trianglesOfTiles.add(new ArrayList<>());
+        }
+        for (Triangle2D triangle : triangles) {
+            int firstTileX = clampTile(Math.min(triangle.a.x, Math.min(triangle.b.x, triangle.c.x)), tileSize, tilesX);
+            int lastTileX = clampTile(Math.max(triangle.a.x, Math.max(triangle.b.x, triangle.c.x)), tileSize, tilesX);
+            int firstTileY = clampTile(Math.min(triangle.a.y, Math.min(triangle.b.y, triangle.c.y)), tileSize, tilesY);
+            int lastTileY = clampTile(Math.max(triangle.a.y, Math.max(triangle.b.y, triangle.c.y)), tileSize, tilesY);
+            for (int tileY = firstTileY; tileY <= lastTileY; tileY++) {
+                for (int tileX = firstTileX; tileX <= lastTileX; tileX++) {
+                    trianglesOfTiles.get(tileY * tilesX + tileX).add(triangle);
+                }
+            }
+        }
+
+        LOGGER.fine("Starting interpolation of " + tilesX + "x" + tilesY + " tiles...");
+        ForkJoinPool pool = ComputePool.getInstance();
+        for (int tileY = 0; tileY < tilesY; tileY++) {
+            cancellationToken.throwIfCancelled();
+            List<TileTask> tasks = new ArrayList<>(tilesX);
+            for (int tileX = 0; tileX < tilesX; tileX++) {
+                int originX = tileX * tileSize;
+                int originY = tileY * tileSize;
+                HeatmapGrid tile = new HeatmapGrid(Math.min(tileSize, sizeX - originX), Math.min(tileSize, sizeY - originY));
+                if (area != null) {
+                    tile.fill(Float.NaN);
+                }
+                tasks.add(new TileTask(trianglesOfTiles.get(tileY * tilesX + tileX), tile, originX, originY));
+            }
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+            for (TileTask task : tasks) {
+                consumer.onTile(task.originX, task.originY, task.tile);
+            }
+        }
+        LOGGER.fine("Interpolation of heatmap tiles completed.");
+    }
+
+    /**
+     * Generates the tiles of the heatmap with the {@link Interpolator}. Every tile is interpolated
+     * in parallel rows before it is handed to the consumer.
+     */
+    private void generateInterpolatedTiles(int tileSize, HeatmapTileConsumer consumer) throws NotEnoughPointsException, IOException {
+        prepareInterpolator();
+        LOGGER.fine("Starting interpolation of heatmap tiles...");
+        for (int originY = 0; originY < sizeY; originY += tileSize) {
+            for (int originX = 0; originX < sizeX; originX += tileSize) {
+                cancellationToken.throwIfCancelled();
+                HeatmapGrid tile = new HeatmapGrid(Math.min(tileSize, sizeX - originX), Math.min(tileSize, sizeY - originY));
+                if (area != null) {
+                    tile.fill(Float.NaN);
+                }
+                interpolateWithInterpolator(tile, originX, originY, 1, true);
+                consumer.onTile(originX, originY, tile);
+            }
+        }
+        LOGGER.fine("Interpolation of heatmap tiles completed.");
+    }
+
+    /**
+     * Adds a measurement to the heatmap generated by {@link #generateHeatmap()} without
+     * generating it again. The measurement is inserted into the Delaunay triangulation like the
+     * incremental algorithm does: all triangles whose circumcircle contains the measurement form a
+     * cavity that is replaced by triangles connecting the measurement to the boundary of the
+     * cavity. All other triangles stay valid, so only the pixels of the new triangles are
+     * interpolated again (and the pixels of the triangles at edge points that take the value of
+     * the new measurement now). If an {@link Interpolator} is set, it is prepared again. If its
+     * values only depend on the nearest measurements, only the region in which the new measurement
+     * is one of them is interpolated again, otherwise the whole heatmap is (see
+     * {@link #hasLocalUpdates()}). This must not be called while the heatmap is generated.
+     *
+     * @param wifiMeasurement The measurement in the coordinate system of the measurements given to
+     *                        the constructor; like those it is moved to the coordinate system of
+     *                        the heatmap
+     * @return The region of the heatmap that changed or {@code null} if the measurement can't be
+     * inserted because it lies outside of the heatmap or at the position of another measurement;
+     * the heatmap has to be generated again in that case
+     */
+    public HeatmapRegion addMeasurement(WifiMeasurement wifiMeasurement) {
+        if (heatmap == null || (triangles == null && interpolator == null)) {
+            throw new IllegalStateException("The heatmap has to be generated before measurements can be added!");
+        }
+        if (interpolator != null) {
+            wifiMeasurement.x += offset.x;
+            wifiMeasurement.y += offset.y;
+            int neighbors = interpolator.getNeighborCount();
+            // The region has to be determined with the measurements the heatmap was interpolated from
+            boolean inside = wifiMeasurement.x >= 0 && wifiMeasurement.y >= 0 && wifiMeasurement.x < sizeX && wifiMeasurement.y < sizeY;
+            HeatmapRegion region = neighbors > 0 && inside ? findNeighborhoodRegion(wifiMeasurement.x, wifiMeasurement.y, neighbors) : new HeatmapRegion(0, 0, sizeX, sizeY);
+            measurements.add(wifiMeasurement);
+            interpolator.prepare(measurements, powerScale);
+            queryEvaluator = null;
+            this.cancellationToken = CancellationToken.NONE;
+            interpolateRegionWithInterpolator(region);
+            return region;
+        }
+        double x = wifiMeasurement.x + offset.x;
+        double y = wifiMeasurement.y + offset.y;
+        // The edge points span the triangulation, so only points strictly inside can be inserted
+        if (!(x > -1 && y > -1 && x < sizeX && y < sizeY)) {
+            return null;
+        }
+        List<Triangle2D> cavity = new ArrayList<>();
+        for (Triangle2D triangle : triangles) {
+            if (isAt(triangle.a, x, y) || isAt(triangle.b, x, y) || isAt(triangle.c, x, y)) {
+                return null;
+            }
+            if (isInCircumcircle(triangle, x, y)) {
+                cavity.add(triangle);
+            }
+        }
+        List<Vector2D[]> boundary = findBoundary(cavity);
+        for (Vector2D[] edge : boundary) {
+            // The cavity has to be star-shaped as seen from the new point; rounding errors may break this
+            if (Math.signum(orientation(edge[0], edge[1], x, y)) != Math.signum(orientation(edge[0], edge[1], edge[2].x, edge[2].y))) {
+                LOGGER.warning("Unable to insert measurement at (" + x + "|" + y + ") into the triangulation.");
+                return null;
+            }
+        }
+        if (boundary.isEmpty()) {
+            return null;
+        }
+
+        // Update the triangulation
+        wifiMeasurement.x = x;
+        wifiMeasurement.y = y;
+        measurements.add(wifiMeasurement);
+        measurementOfVertexMap.put(wifiMeasurement, wifiMeasurement);
+        triangles.removeAll(cavity);
+        Set<Triangle2D> changedTriangles = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Triangle2D triangle : cavity) {
+            planeOfTriangleMap.remove(triangle);
+        }
+        for (Vector2D[] edge : boundary) {
+            Triangle2D triangle = new Triangle2D(edge[0], edge[1], wifiMeasurement);
+            triangles.add(triangle);
+            changedTriangles.add(triangle);
+        }
+        if (externalPointStrategy == ExternalPointStrategy.ASSUME_NEAREST) {
+            for (int i = 0; i < edgePoints.size(); i++) {
+                WifiMeasurement edgePoint = edgePoints.get(i);
+                double distance = (edgePoint.x - x) * (edgePoint.x - x) + (edgePoint.y - y) * (edgePoint.y - y);
+                if (distance < edgePointSourceDistances[i]) {
+                    edgePointSourceDistances[i] = distance;
+                    edgePoint.setPower(wifiMeasurement.getPower());
+                    for (Triangle2D triangle : triangles) {
+                        if (hasVertex(triangle, edgePoint)) {
+                            planeOfTriangleMap.remove(triangle);
+                            changedTriangles.add(triangle);
+                        }
+                    }
+                }
+            }
+        }
+
+        triangulation = createTriangulation(triangles);
+        queryLocator = null;
+
+        // Interpolate the changed triangles again
+        double minX = Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        for (Triangle2D triangle : changedTriangles) {
+            rasterizeTriangle(triangle, heatmap, 0, 0);
+            minX = Math.min(minX, Math.min(triangle.a.x, Math.min(triangle.b.x, triangle.c.x)));
+            minY = Math.min(minY, Math.min(triangle.a.y, Math.min(triangle.b.y, triangle.c.y)));
+            maxX = Math.max(maxX, Math.max(triangle.a.x, Math.max(triangle.b.x, triangle.c.x)));
+            maxY = Math.max(maxY, Math.max(triangle.a.y, Math.max(triangle.b.y, triangle.c.y)));
+        }
+        return new HeatmapRegion(Math.max(0, (int) Math.ceil(minX)), Math.max(0, (int) Math.ceil(minY)),
+                Math.min(sizeX, (int) Math.floor(maxX) + 1), Math.min(sizeY, (int) Math.floor(maxY) + 1));
+    }
+
+    /**
+     * Finds a region that contains all pixels a new measurement at the given point would be one
+     * of the k nearest measurements of. This region is star-shaped as seen from the point: the
+     * measurements closer to a pixel between the point and a pixel of the region than the point
+     * are also closer to that pixel. So the region is contained in a rectangle around the point if
+     * no pixel at the border of the rectangle is part of it. The rectangle is grown until that is
+     * the case; the pixels at its border are tested with a tolerance of a pixel, as the region may
+     * cross the border between two of them.
+     *
+     * @param x         The x-coordinate of the new measurement in the coordinate system of the
+     *                  heatmap
+     * @param y         The y-coordinate of the new measurement in the coordinate system of the
+     *                  heatmap
+     * @param neighbors The number of nearest measurements a value depends on
+     * @return The region
+     */
+    private HeatmapRegion findNeighborhoodRegion(double x, double y, int neighbors) {
+        MeasurementIndex index = new MeasurementIndex(measurements);
+        int[] indices = new int[neighbors];
+        double[] squaredDistances = new double[neighbors];
+        int centerX = (int) x;
+        int centerY = (int) y;
+        // Distances of the sides of the rectangle to the center, they are doubled while the region reaches them
+        int[] extents = {1, 1, 1, 1};
+        boolean grown = true;
+        while (grown) {
+            grown = false;
+            int left = Math.max(0, centerX - extents[0]);
+            int top = Math.max(0, centerY - extents[1]);
+            int right = Math.min(sizeX - 1, centerX + extents[2]);
+            int bottom = Math.min(sizeY - 1, centerY + extents[3]);
+            if (left > 0 && isInNeighborhood(index, x, y, left, top, left, bottom, indices, squaredDistances)) {
+                extents[0] *= 2;
+                grown = true;
+            }
+            if (top > 0 && isInNeighborhood(index, x, y, left, top, right, top, indices, squaredDistances)) {
+                extents[1] *= 2;
+                grown = true;
+            }
+            if (right < sizeX - 1 && isInNeighborhood(index, x, y, right, top, right, bottom, indices, squaredDistances)) {
+                extents[2] *= 2;
+                grown = true;
+            }
+            if (bottom < sizeY - 1 && isInNeighborhood(index, x, y, left, bottom, right, bottom, indices, squaredDistances)) {
+                extents[3] *= 2;
+                grown = true;
+            }
+        }
+        return new HeatmapRegion(Math.max(0, centerX - extents[0]), Math.max(0, centerY - extents[1]),
+                Math.min(sizeX, centerX + extents[2] + 1), Math.min(sizeY, centerY + extents[3] + 1));
+    }
+
+    /**
+     * Checks whether a new measurement at the given point would (almost) be one of the nearest
+     * measurements of any pixel of the given row or column.
+     *
+     * @return Whether any pixel in the rectangle [startX, endX] x [startY, endY] is closer to the
+     * point than a pixel plus the distance to its farthest nearest measurement
+     */
+    private static boolean isInNeighborhood(MeasurementIndex index, double x, double y, int startX, int startY, int endX, int endY, int[] indices, double[] squaredDistances) {
+        int neighbors = indices.length;
+        for (int pixelY = startY; pixelY <= endY; pixelY++) {
+            for (int pixelX = startX; pixelX <= endX; pixelX++) {
+                int count = index.findNearest(pixelX, pixelY, neighbors, indices, squaredDistances);
+                if (count < neighbors || Math.hypot(pixelX - x, pixelY - y) < Math.sqrt(squaredDistances[count - 1]) + 1) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Interpolates a region of the heatmap again with the interpolator. Pixels outside of the
+     * area keep their values.
+     *
+     * @param region The region
+     */
+    private void interpolateRegionWithInterpolator(HeatmapRegion region) {
+        if (region.isEmpty()) {
+            return;
+        }
+        HeatmapGrid regionGrid = new HeatmapGrid(region.getWidth(), region.getHeight());
+        for (int y = 0; y < region.getHeight(); y++) {
+            System.arraycopy(heatmap.getValues(), heatmap.indexOf(region.getLeft(), region.getTop() + y), regionGrid.getValues(), regionGrid.indexOf(0, y), region.getWidth());
+        }
+        interpolateWithInterpolator(regionGrid, region.getLeft(), region.getTop(), 1, false);
+        for (int y = 0; y < region.getHeight(); y++) {
+            System.arraycopy(regionGrid.getValues(), regionGrid.indexOf(0, y), heatmap.getValues(), heatmap.indexOf(region.getLeft(), region.getTop() + y), region.getWidth());
+        }
+    }
+
+    /**
+     * Finds the edges of the given triangles that are not shared by two of them.
+     *
+     * @param triangles The triangles
+     * @return The edges as arrays of the two vertices of the edge followed by the third vertex of
+     * the triangle the edge belongs to
+     */
+    private static List<Vector2D[]> findBoundary(List<Triangle2D> triangles) {
+        List<Vector2D[]> boundary = new ArrayList<>();
+        for (Triangle2D triangle : triangles) {
+            Vector2D[][] edges = {{triangle.a, triangle.b, triangle.c}, {triangle.b, triangle.c, triangle.a}, {triangle.c, triangle.a, triangle.b}};
+            for (Vector2D[] edge : edges) {
+                boolean shared = false;
+                for (Triangle2D other : triangles) {
+                    if (other != triangle && hasVertex(other, edge[0]) && hasVertex(other, edge[1])) {
+                        shared = true;
+                        break;
+                    }
+                }
+                if (!shared) {
+                    boundary.add(edge);
+                }
+            }
+        }
+        return boundary;
+    }
+
+    private static boolean hasVertex(Triangle2D triangle, Vector2D vertex) {
+        return triangle.a == vertex || triangle.b == vertex || triangle.c == vertex;
+    }
+
+    private static boolean isAt(Vector2D vertex, double x, double y) {
+        return vertex.x == x && vertex.y == y;
+    }
+
+    /**
+     * @return Twice the signed area of the triangle (a, b, (x|y))
+     */
+    private static double orientation(Vector2D a, Vector2D b, double x, double y) {
+        return (b.x - a.x) * (y - a.y) - (b.y - a.y) * (x - a.x);
+    }
+
+    /**
+     * Checks whether the point lies strictly inside the circumcircle of the triangle by evaluating
+     * the sign of the incircle determinant relative to the orientation of the triangle.
+     */
+    private static boolean isInCircumcircle(Triangle2D triangle, double x, double y) {
+        double ax = triangle.a.x - x;
+        double ay = triangle.a.y - y;
+        double bx = triangle.b.x - x;
+        double by = triangle.b.y - y;
+        double cx = triangle.c.x - x;
+        double cy = triangle.c.y - y;
+        double determinant = (ax * ax + ay * ay) * (bx * cy - cx * by)
+                - (bx * bx + by * by) * (ax * cy - cx * ay)
+                + (cx * cx + cy * cy) * (ax * by - bx * ay);
+        double orientation = orientation(triangle.a, triangle.b, triangle.c.x, triangle.c.y);
+        return orientation > 0 ? determinant > 0 : orientation < 0 && determinant < 0;
+    }
+
+    /**
+     * Creates the {@link Triangulation} of the given triangles, so the triangles can be found by
+     * a {@link TriangleLocator}. Triangle t of the triangulation is the triangle at index t of
+     * the list.
+     */
+    private Triangulation createTriangulation(List<Triangle2D> triangles) {
+        Map<Vector2D, Integer> indexOfVertex = new IdentityHashMap<>();
+        double[] coordinates = new double[measurements.size() * 2];
+        for (int i = 0; i < measurements.size(); i++) {
+            WifiMeasurement wifiMeasurement = measurements.get(i);
+            indexOfVertex.put(wifiMeasurement, i);
+            coordinates[2 * i] = wifiMeasurement.x;
+            coordinates[2 * i + 1] = wifiMeasurement.y;
+        }
+        int[] vertices = new int[triangles.size() * 3];
+        for (int t = 0; t < triangles.size(); t++) {
+            Triangle2D triangle = triangles.get(t);
+            vertices[3 * t] = indexOfVertex.get(triangle.a);
+            vertices[3 * t + 1] = indexOfVertex.get(triangle.b);
+            vertices[3 * t + 2] = indexOfVertex.get(triangle.c);
+        }
+        return Triangulation.withComputedNeighbors(coordinates, vertices);
+    }
+
+    private static int clampTile(double coordinate, int tileSize, int tiles) {
+        return Math.max(0, Math.min(tiles - 1, (int) Math.floor(coordinate / tileSize)));
+    }
+
+    /**
+     * Prepares the {@link Interpolator} for the measurements. The measurements are moved to the
+     * coordinate system of the heatmap; unlike the triangulation no edge points are needed.
+     *
+     * @throws NotEnoughPointsException If no measurements were made
+     */
+    private void prepareInterpolator() throws NotEnoughPointsException {
+        if (measurements.isEmpty()) {
+            throw new NotEnoughPointsException("No measurements to interpolate.");
+        }
+        for (WifiMeasurement wifiMeasurement : measurements) {
+            wifiMeasurement.x += offset.x;
+            wifiMeasurement.y += offset.y;
+        }
+        LOGGER.fine("Preparing interpolator...");
+        interpolator.prepare(measurements, powerScale);
+        queryEvaluator = null;
+        interpolatorPrepared = true;
+    }
+
+    /**
+     * Prepares the triangulation of the measurements. The measurements are moved to the
+     * coordinate system of the heatmap and the edge points are added before performing a Delauney
+     * triangulation with the {@link Triangulator}.
+     *
+     * @return The triangles of the triangulation
+     * @throws NotEnoughPointsException If not enough measurements were made
+     */
+    private List<Triangle2D> triangulate() throws NotEnoughPointsException {
+        // Offset measurement locations
+        for (WifiMeasurement wifiMeasurement : measurements) {
+            wifiMeasurement.x += offset.x;
+            wifiMeasurement.y += offset.y;
+        }
+
+        // Generate measurements at edges of heatmap to allow extrapolation
+        measurementIndex = new MeasurementIndex(measurements);
+        measurements.addAll(generateEdgePoints());
+
+        // Collect the coordinates of the measurement points; the measurements are the vertices
+        double[] coordinates = new double[measurements.size() * 2];
+        measurementOfVertexMap = new IdentityHashMap<>();
+        for (int i = 0; i < measurements.size(); i++) {
+            WifiMeasurement wifiMeasurement = measurements.get(i);
+            coordinates[2 * i] = wifiMeasurement.x;
+            coordinates[2 * i + 1] = wifiMeasurement.y;
+            measurementOfVertexMap.put(wifiMeasurement, wifiMeasurement);
+        }
+
+        // Triangulate
+        LOGGER.fine("Starting triangulation...");
+        triangulation = triangulator.triangulate(coordinates);
+        queryLocator = null;
+        List<Triangle2D> result = new ArrayList<>(triangulation.getTriangleCount());
+        for (int t = 0; t < triangulation.getTriangleCount(); t++) {
+            result.add(new Triangle2D(measurements.get(triangulation.getVertex(t, 0)), measurements.get(triangulation.getVertex(t, 1)), measurements.get(triangulation.getVertex(t, 2))));
+        }
+        LOGGER.fine("Triangulation finished!");
+        return result;
+    }
+
+    /**
+     * Generates the heatmap on the {@link JobExecutor}. If the token is cancelled the generation
+     * stops and the callback isn't notified anymore.
+     *
+     * @param cancellationToken The token to stop the generation with
+     * @param callback          The callback to notify of the progress and the result
+     */
+    public void generateHeatmapAsync(CancellationToken cancellationToken, HeatmapGeneratorCallback callback) {
+        this.callback = callback;
+        JobExecutor.getInstance().execute(() -> {
+            try {
+                cancellationToken.throwIfCancelled();
+                generateHeatmap(cancellationToken);
+                if (HeatmapGenerator.this.callback != null) {
+                    HeatmapGenerator.this.callback.onHeatmapGenerationFinished();
+                }
+            } catch (CancellationException e) {
+                LOGGER.fine("Heatmap generation cancelled.");
+            } catch (Exception e) {
+                if (HeatmapGenerator.this.callback != null) {
+                    HeatmapGenerator.this.callback.onHeatmapGenerationError(e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Generates the heatmap progressively (see
+     * {@link #generateHeatmapProgressively(int, HeatmapLevelConsumer, CancellationToken)}) on the
+     * {@link JobExecutor}. The callback receives every level except the last one by
+     * {@link HeatmapGeneratorCallback#onHeatmapLevelFinished(int, HeatmapGrid)}, the last one is
+     * announced by {@link HeatmapGeneratorCallback#onHeatmapGenerationFinished()} as usual. If the
+     * token is cancelled the generation stops and the callback isn't notified anymore.
+     *
+     * @param coarsestStep      The step of the first level (a power of two)
+     * @param cancellationToken The token to stop the generation with
+     * @param callback          The callback to notify of the levels, the progress and the result
+     */
+    public void generateHeatmapProgressivelyAsync(int coarsestStep, CancellationToken cancellationToken, HeatmapGeneratorCallback callback) {
+        this.callback = callback;
+        JobExecutor.getInstance().execute(() -> {
+            try {
+                cancellationToken.throwIfCancelled();
+                generateHeatmapProgressively(coarsestStep, (step, level) -> {
+                    if (step > 1 && HeatmapGenerator.this.callback != null) {
+                        cancellationToken.throwIfCancelled();
+                        HeatmapGenerator.this.callback.onHeatmapLevelFinished(step, level);
+                    }
+                }, cancellationToken);
+                if (HeatmapGenerator.this.callback != null) {
+                    HeatmapGenerator.this.callback.onHeatmapGenerationFinished();
+                }
+            } catch (CancellationException e) {
+                LOGGER.fine("Heatmap generation cancelled.");
+            } catch (Exception e) {
+                if (HeatmapGenerator.this.callback != null) {
+                    HeatmapGenerator.this.callback.onHeatmapGenerationError(e);
+                }
+            }
+        });
+    }
+
+    public HeatmapGrid getHeatmap() {
+        return heatmap;
+    }
+
+    /**
+     * @return Whether {@link #addMeasurement(WifiMeasurement)} only interpolates the region around
+     * the new measurement again, which is the case for the triangulation and for
+     * {@link Interpolator}s whose values only depend on the nearest measurements
+     */
+    public boolean hasLocalUpdates() {
+        return interpolator == null || interpolator.getNeighborCount() > 0;
+    }
+
+    /**
+     * @return Whether the measurements have been triangulated or prepared for the
+     * {@link Interpolator}, which is required by {@link #getValueAt(double, double)}
+     */
+    public boolean isPrepared() {
+        return interpolator != null ? interpolatorPrepared : triangulation != null;
+    }
+
+    /**
+     * Interpolates the value at an arbitrary point of the heatmap. Unlike the values of
+     * {@link #getHeatmap()} this is not limited to pixel positions and also works for heatmaps
+     * generated in tiles. The triangle of the point is found by walking through the triangulation
+     * from the triangle of the previous query.
+     *
+     * @param x The x-coordinate in the coordinate system of the heatmap
+     * @param y The y-coordinate in the coordinate system of the heatmap
+     * @return The interpolated value in the {@link PowerScale} of the heatmap or {@link Double#NaN}
+     * if the point is outside of the heatmap or its area
+     */
+    public synchronized double getValueAt(double x, double y) {
+        if (!isPrepared()) {
+            throw new IllegalStateException("The measurements have to be prepared before values can be queried!");
+        }
+        if (!(x >= 0 && y >= 0 && x < sizeX && y < sizeY) || (area != null && !area.contains((int) x, (int) y))) {
+            return Double.NaN;
+        }
+        if (interpolator != null) {
+            if (queryEvaluator == null) {
+                queryEvaluator = interpolator.createEvaluator();
+            }
+            return queryEvaluator.valueAt(x, y);
+        }
+        if (queryLocator == null) {
+            queryLocator = new TriangleLocator(triangulation);
+        }
+        return interpolateValueAt(new Vector2D(x, y), triangles, queryLocator);
+    }
+
+    public Vector2D getOffset() {
+        return offset;
+    }
+
+    public int getWidth() {
+        return sizeX;
+    }
+
+    public int getHeight() {
+        return sizeY;
+    }
+
+    /**
+     * Interpolates the values of a level of the heatmap by rasterizing the triangles in parallel.
+     *
+     * @param triangles     The triangles
+     * @param level         The grid to write the values to
+     * @param step          The distance of the pixels of the level in pixels of the heatmap (1
+     *                      for the heatmap itself)
+     * @param previousLevel The level with twice the step whose values are reused or {@code null}
+     */
+    private void rasterizeHeatmapValues(List<Triangle2D> triangles, HeatmapGrid level, int step, HeatmapGrid previousLevel) {
+        ForkJoinPool pool = ComputePool.getInstance();
+        // Prefix sums of the triangle areas allow estimating the pixels of any range of triangles
+        double[] areaPrefixSums = new double[triangles.size() + 1];
+        for (int i = 0; i < triangles.size(); i++) {
+            Triangle2D triangle = triangles.get(i);
+            double doubleArea = (triangle.b.x - triangle.a.x) * (triangle.c.y - triangle.a.y) - (triangle.b.y - triangle.a.y) * (triangle.c.x - triangle.a.x);
+            areaPrefixSums[i + 1] = areaPrefixSums[i] + Math.abs(doubleArea) / 2;
+        }
+        // The areas are measured in pixels of the heatmap, a level has 1 / step^2 of them
+        double pixelsPerTask = Math.max((double) MIN_PIXELS_PER_TASK * step * step, areaPrefixSums[triangles.size()] / (pool.getParallelism() * TASKS_PER_WORKER));
+        pool.invoke(new RasterizationTask(triangles, areaPrefixSums, 0, triangles.size(), pixelsPerTask, level, step, previousLevel));
+        LOGGER.fine("Rasterization of heatmap values completed.");
+    }
+
+    private void interpolateHeatmapValues(List<Triangle2D> triangles) {
+        ForkJoinPool pool = ComputePool.getInstance();
+        long pixelsPerTask = Math.max(MIN_PIXELS_PER_TASK, pixels / (pool.getParallelism() * TASKS_PER_WORKER));
+        if (triangleLookupStrategy == TriangleLookupStrategy.LINEAR_SEARCH) {
+            // Every pixel tests up to all triangles, so dense triangulations need smaller tasks
+            pixelsPerTask = Math.min(pixelsPerTask, Math.max(MIN_PIXELS_PER_TASK, TRIANGLE_TESTS_PER_TASK / Math.max(1, triangles.size())));
+        }
+        pool.invoke(new InterpolationTask(triangles, 0, sizeX, 0, sizeY, pixelsPerTask));
+        LOGGER.fine("Interpolation of heatmap values completed.");
+    }
+
+    /**
+     * Interpolates the pixels of a grid with the {@link Interpolator}, in parallel for ranges of
+     * rows. Pixel (x|y) of the grid is at (originX + x * step|originY + y * step) in the heatmap.
+     */
+    private void interpolateWithInterpolator(HeatmapGrid target, int originX, int originY, int step, boolean reportProgress) {
+        ForkJoinPool pool = ComputePool.getInstance();
+        long pixelsPerTask = Math.max(MIN_PIXELS_PER_TASK, (long) target.getWidth() * target.getHeight() / (pool.getParallelism() * TASKS_PER_WORKER));
+        int rowsPerTask = (int) Math.max(1, pixelsPerTask / Math.max(1, target.getWidth()));
+        pool.invoke(new InterpolatorTask(target, originX, originY, step, 0, target.getHeight(), rowsPerTask, reportProgress));
+    }
+
+    private void sendProgressUpdateToCallbackIfAvailable(long pixelsDone) {
+        synchronized (this) {
+            this.pixelsDone += pixelsDone;
+        }
+        if (this.callback != null && this.pixels > 0) {
+            double percentageDone = (double) this.pixelsDone / this.pixels;
+            this.callback.onHeatmapProgress(percentageDone * 100);
+        }
+    }
+
+    /**
+     * Determines the value at a point if the list of triangles contains a triangle that contains the point.
+     * The value is determined by evaluating the {@link TrianglePlane} of the triangle returned by
+     * {@link HeatmapGenerator#getPlaneOfTriangle(Triangle2D)}. If a {@link TriangleLocator} is
+     * given, the triangle is found by walking from the triangle found last; only if that fails
+     * all triangles are searched. If no triangle contains the Point
+     * {@link Constants#INVALID_RSSI} (in the {@link PowerScale} of the heatmap) is returned.
+     *
+     * @param point     The point whose value should be determined
+     * @param triangles The list of triangles
+     * @param locator   The locator for the triangulation of the list or {@code null} to search
+     *                  all triangles
+     * @return The interpolated value at the point
+     */
+    private double interpolateValueAt(Vector2D point, List<Triangle2D> triangles, TriangleLocator locator) {
+        Triangle2D triangle = null;
+        if (locator != null) {
+            int index = locator.locate(point.x, point.y);
+            if (index != TriangleLocator.NOT_FOUND) {
+                triangle = triangles.get(index);
+            }
+        }
+        if (triangle == null) {
+            triangle = findTriangleContainingPoint(triangles, point);
+        }
+        if (triangle == null) {
+            LOGGER.severe("Unable to find triangle containing point!");
+            return powerScale.fromWatts(INVALID_RSSI);
+        }
+        return getPlaneOfTriangle(triangle).valueAt(point.x, point.y);
+    }
+
+    /**
+     * Determines the {@link TrianglePlane} used for barycentric interpolation inside a triangle.
+     * The measurements at the vertices are found by using
+     * {@link HeatmapGenerator#getMeasurementOfVertex(Vector2D)} for all vertices of the triangle.
+     * The resulting planes are cached so this only happens once per triangle.
+     *
+     * @param triangle The triangle whose plane should be determined
+     * @return The plane through the measurements at the vertices of the triangle
+     */
+    private TrianglePlane getPlaneOfTriangle(Triangle2D triangle) {
+        TrianglePlane plane = planeOfTriangleMap.get(triangle);
+        // To avoid creating the plane multiple times for the same triangle use double-checked locking
+        if (plane == null) {
+            synchronized (triangle) {
+                plane = planeOfTriangleMap.get(triangle);
+                if (plane == null) {
+                    plane = new TrianglePlane(getMeasurementOfVertex(triangle.a), getMeasurementOfVertex(triangle.b), getMeasurementOfVertex(triangle.c), powerScale);
+                    planeOfTriangleMap.put(triangle, plane);
+                }
+            }
+        }
+        return plane;
+    }
+
+    /**
+     * Calculates the area of a triangle by using Heron's formula (public for testing)
+     *
+     * @param triangle The triangle of which the area should be determined
+     * @return The area of the triangle
+     */
+    public double getArea(Triangle2D triangle) {
+        double sideA = triangle.b.sub(triangle.c).mag();
+        double sideB = triangle.c.sub(triangle.a).mag();
+        double sideC = triangle.a.sub(triangle.b).mag();
+        double s = (sideA + sideB + sideC) / 2;
+        double result = Math.sqrt(s * (s - sideA) * (s - sideB) * (s - sideC));
+        // If the triangle is small enough Double inaccuracy can cause NaN as a result. Assume no
+        // area in that case.
+        if (!Double.isNaN(result)) {
+            return result;
+        } else {
+            LOGGER.warning("Area for triangle '" + triangle.toString() + "' is NaN, 0 will be assumed instead.");
+            return 0.0;
+        }
+    }
+
+    /**
+     * Finds the measurement a vertex of a triangle belongs to. The triangulator uses the
+     * measurement instances themselves as vertices, so this is an identity lookup. Only if the
+     * vertex is unknown the closest measurement is searched.
+     *
+     * @param vertex The vertex of a triangle
+     * @return The measurement at the vertex
+     */
+    private WifiMeasurement getMeasurementOfVertex(Vector2D vertex) {
+        WifiMeasurement measurement = measurementOfVertexMap.get(vertex);
+        if (measurement == null) {
+            LOGGER.warning("Vertex '" + vertex.toString() + "' is no measurement, searching closest measurement.");
+            measurement = findClosestMeasurement(vertex);
+        }
+        return measurement;
+    }
+
+    /**
+     * Finds the measurement from the measurement list that is closest to the given point by
+     * querying the {@link MeasurementIndex}. Measurements added after the index was built (the
+     * edge points) are not considered.
+     *
+     * @param position The Point of which the closest measurement should be found
+     * @return The closest measurement
+     */
+    private WifiMeasurement findClosestMeasurement(Vector2D position) {
+        return measurementIndex.findNearest(position.x, position.y);
+    }
+
+    /**
+     * Generates Measurements at the edges slightly outside the target size to allow all values
+     * inside the target size to be interpolated.
+     *
+     * @return A {@link List} with {@link WifiMeasurement}s slightly outside the target range
+     */
+    private List<WifiMeasurement> generateEdgePoints() {
+        Vector2D[] corners = {new Vector2D(-1, -1), new Vector2D(-1, sizeY), new Vector2D(sizeX, -1), new Vector2D(sizeX, sizeY)};
+        List<WifiMeasurement> result = new ArrayList<>();
+        // Remember how far the measurement of each edge point is away, so a closer measurement can replace it later
+        edgePointSourceDistances = new double[corners.length];
+        for (int i = 0; i < corners.length; i++) {
+            WifiMeasurement closestMeasurement = findClosestMeasurement(corners[i]);
+            WifiMeasurement edgePoint = new WifiMeasurement(closestMeasurement);
+            edgePoint.moveTo(corners[i]);
+            if (externalPointStrategy == ExternalPointStrategy.ASSUME_LOW) {
+                edgePoint.setPower(MIN_POWER);
+            } else if (externalPointStrategy == ExternalPointStrategy.ASSUME_HIGH) {
+                edgePoint.setPower(MAX_POWER);
+            }
+            double deltaX = closestMeasurement.x - corners[i].x;
+            double deltaY = closestMeasurement.y - corners[i].y;
+            edgePointSourceDistances[i] = deltaX * deltaX + deltaY * deltaY;
+            result.add(edgePoint);
+        }
+        edgePoints = result;
+        return result;
+    }
+
+    /**
+     * Finds a triangle from the given List that contains the point. This method uses
+     * {@link #fuzzyIsPointInTriangle(Vector2D, Triangle2D, double)} to determine if the point is
+     * contained in the triangle it is currently checking.
+     *
+     * @param triangles The List of triangles
+     * @param point     The point that should be in the returned triangle
+     * @return The triangle that contains the point; if none is found {@code null} is returned
+     */
+    private Triangle2D findTriangleContainingPoint(List<Triangle2D> triangles, Vector2D point) {
+        for (Triangle2D triangle : triangles) {
+            if (fuzzyIsPointInTriangle(point, triangle, FUZZY_WIDTH)) {
+                return triangle;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * This method checks whether a point is in a triangle. Due to rounding errors with doubles
+     * perfect mathematical solutions won't work for this. The method first makes a rough bounding
+     * box check to see if the point could even be in the triangle. Afterwards the contains(Vector2D)
+     * method of Triangle2D is used to filter points that are certainly inside the triangle. If that
+     * method returns false eight more points are checked, first in a +, then in an X-shape with
+     * the coordinates increased or decreased by fuzzyWidth. If a point of the plus or a point of
+     * the X are in the triangle the point to check is considered to be inside the triangle as well,
+     * otherwise not.
+     *
+     * @param point      The Point to check
+     * @param triangle   The Triangle to check
+     * @param fuzzyWidth The amount of inaccuracy allowed (the point can be this far outside the triangle to still be considered inside)
+     * @return true if the point is in the triangle, false otherwise
+     */
+    private boolean fuzzyIsPointInTriangle(Vector2D point, Triangle2D triangle, double fuzzyWidth) {
+        double minX = Math.min(triangle.a.x, Math.min(triangle.b.x, triangle.c.x)) - fuzzyWidth;
+        double minY = Math.min(triangle.a.y, Math.min(triangle.b.y, triangle.c.y)) - fuzzyWidth;
+        double maxX = Math.max(triangle.a.x, Math.max(triangle.b.x, triangle.c.x)) + fuzzyWidth;
+        double maxY = Math.max(triangle.a.y, Math.max(triangle.b.y, triangle.c.y)) + fuzzyWidth;
+        if (point.x < minX || point.y < minY || point.x > maxX || point.y > maxY) {
+            return false;
+        }
+        if (triangle.contains(point)) {
+            return true;
+        }
+        int hits = 0;
+        // +-Shape
+        Vector2D[] pointsToTest = new Vector2D[4];
+        pointsToTest[0] = new Vector2D(point.x, point.y + fuzzyWidth);
+        pointsToTest[1] = new Vector2D(point.x + fuzzyWidth, point.y);
+        pointsToTest[2] = new Vector2D(point.x, point.y - fuzzyWidth);
+        pointsToTest[3] = new Vector2D(point.x - fuzzyWidth, point.y);
+        for (Vector2D pointToTest : pointsToTest) {
+            if (triangle.contains(pointToTest)) {
+                hits++;
+            }
+        }
+        if (hits > 0) {
+            return true;
+        }
+        // X-Shape
+        pointsToTest = new Vector2D[4];
+        pointsToTest[0] = new Vector2D(point.x + fuzzyWidth, point.y + fuzzyWidth);
+        pointsToTest[1] = new Vector2D(point.x + fuzzyWidth, point.y - fuzzyWidth);
+        pointsToTest[2] = new Vector2D(point.x - fuzzyWidth, point.y + fuzzyWidth);
+        pointsToTest[3] = new Vector2D(point.x - fuzzyWidth, point.y - fuzzyWidth);
+        for (Vector2D pointToTest : pointsToTest) {
+            if (triangle.contains(pointToTest)) {
+                hits++;
+            }
+        }
+        return hits > 0;
+    }
+
+    /**
+     * Rasterizes a range of triangles and interpolates the value of every pixel covered by them.
+     * Ranges covering more pixels than the threshold are split in two halves. As the
+     * {@link TriangleRasterizer} assigns each pixel to exactly one triangle multiple tasks never
+     * write the same pixel.
+     */
+    private class RasterizationTask extends RecursiveAction {
+        private final List<Triangle2D> triangles;
+        private final double[] areaPrefixSums;
+        private final int start;
+        private final int end;
+        private final double pixelsPerTask;
+        private final HeatmapGrid level;
+        private final int step;
+        private final HeatmapGrid previousLevel;
+
+        RasterizationTask(List<Triangle2D> triangles, double[] areaPrefixSums, int start, int end, double pixelsPerTask, HeatmapGrid level, int step, HeatmapGrid previousLevel) {
+            this.triangles = triangles;
+            this.areaPrefixSums = areaPrefixSums;
+            this.start = start;
+            this.end = end;
+            this.pixelsPerTask = pixelsPerTask;
+            this.level = level;
+            this.step = step;
+            this.previousLevel = previousLevel;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > 1 && areaPrefixSums[end] - areaPrefixSums[start] > pixelsPerTask) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new RasterizationTask(triangles, areaPrefixSums, start, middle, pixelsPerTask, level, step, previousLevel),
+                        new RasterizationTask(triangles, areaPrefixSums, middle, end, pixelsPerTask, level, step, previousLevel));
+                return;
+            }
+            cancellationToken.throwIfCancelled();
+            long pixelsOfTask = 0;
+            for (int i = start; i < end; i++) {
+                if (step == 1 && previousLevel == null) {
+                    pixelsOfTask += rasterizeTriangle(triangles.get(i), level, 0, 0);
+                } else {
+                    pixelsOfTask += rasterizeLevelTriangle(triangles.get(i), level, step, previousLevel);
+                }
+            }
+            // The progress refers to the heatmap itself, the coarser levels are extra work
+            if (step == 1) {
+                sendProgressUpdateToCallbackIfAvailable(pixelsOfTask);
+            }
+        }
+    }
+
+    /**
+     * Interpolates the values of all pixels of a single tile by rasterizing the triangles
+     * overlapping it.
+     */
+    private class TileTask extends RecursiveAction {
+        private final List<Triangle2D> triangles;
+        private final HeatmapGrid tile;
+        private final int originX;
+        private final int originY;
+
+        TileTask(List<Triangle2D> triangles, HeatmapGrid tile, int originX, int originY) {
+            this.triangles = triangles;
+            this.tile = tile;
+            this.originX = originX;
+            this.originY = originY;
+        }
+
+        @Override
+        protected void compute() {
+            cancellationToken.throwIfCancelled();
+            for (Triangle2D triangle : triangles) {
+                rasterizeTriangle(triangle, tile, originX, originY);
+            }
+        }
+    }
+
+    /**
+     * Rasterizes a triangle and writes the interpolated value of every covered pixel inside the
+     * target grid (and inside the area, if set) to it.
+     *
+     * @param triangle The triangle to rasterize
+     * @param target   The grid to write the values to
+     * @param originX  The x-coordinate of the heatmap that corresponds to x = 0 of the target
+     * @param originY  The y-coordinate of the heatmap that corresponds to y = 0 of the target
+     * @return The number of pixels written
+     */
+    private long rasterizeTriangle(Triangle2D triangle, HeatmapGrid target, int originX, int originY) {
+        TrianglePlane plane = getPlaneOfTriangle(triangle);
+        long[] pixelsOfTriangle = new long[1];
+        TriangleRasterizer.rasterize(triangle.a, triangle.b, triangle.c, originX, originY, originX + target.getWidth(), originY + target.getHeight(), (y, startX, endX) -> {
+            if (area == null) {
+                pixelsOfTriangle[0] += fillSpan(plane, target, originX, originY, y, startX, endX);
+                return;
+            }
+            for (int span = 0; span < area.getSpanCount(y) && area.getSpanStart(y, span) < endX; span++) {
+                int start = Math.max(startX, area.getSpanStart(y, span));
+                int end = Math.min(endX, area.getSpanEnd(y, span));
+                if (start < end) {
+                    pixelsOfTriangle[0] += fillSpan(plane, target, originX, originY, y, start, end);
+                }
+            }
+        });
+        return pixelsOfTriangle[0];
+    }
+
+    /**
+     * Rasterizes a triangle scaled down to a level of the heatmap and writes the interpolated
+     * value of every covered pixel of the level (inside the area, if set) to it.
+     *
+     * @param triangle      The triangle to rasterize
+     * @param level         The grid to write the values to
+     * @param step          The distance of the pixels of the level in pixels of the heatmap
+     * @param previousLevel The level with twice the step whose values are reused or {@code null}
+     * @return The number of pixels written
+     */
+    private long rasterizeLevelTriangle(Triangle2D triangle, HeatmapGrid level, int step, HeatmapGrid previousLevel) {
+        TrianglePlane plane = getPlaneOfTriangle(triangle);
+        long[] pixelsOfTriangle = new long[1];
+        // Steps are powers of two, so scaling is exact and keeps the fill rule of the rasterizer
+        Vector2D a = new Vector2D(triangle.a.x / step, triangle.a.y / step);
+        Vector2D b = new Vector2D(triangle.b.x / step, triangle.b.y / step);
+        Vector2D c = new Vector2D(triangle.c.x / step, triangle.c.y / step);
+        TriangleRasterizer.rasterize(a, b, c, level.getWidth(), level.getHeight(), (y, startX, endX) -> {
+            if (area == null) {
+                pixelsOfTriangle[0] += fillLevelSpan(plane, level, step, previousLevel, y, startX, endX);
+                return;
+            }
+            // A pixel of the level is inside the area if the pixel of the heatmap it samples is
+            int row = y * step;
+            for (int span = 0; span < area.getSpanCount(row) && area.getSpanStart(row, span) < endX * step; span++) {
+                int start = Math.max(startX, (area.getSpanStart(row, span) + step - 1) / step);
+                int end = Math.min(endX, (area.getSpanEnd(row, span) + step - 1) / step);
+                if (start < end) {
+                    pixelsOfTriangle[0] += fillLevelSpan(plane, level, step, previousLevel, y, start, end);
+                }
+            }
+        });
+        return pixelsOfTriangle[0];
+    }
+
+    /**
+     * Writes the values of the plane for the pixels {@code [startX, endX[} of row y of a level.
+     * In even rows the values of the even pixels are taken from the previous level, if given.
+     *
+     * @return The number of pixels written
+     */
+    private static int fillLevelSpan(TrianglePlane plane, HeatmapGrid level, int step, HeatmapGrid previousLevel, int y, int startX, int endX) {
+        float[] values = level.getValues();
+        int rowStart = level.indexOf(0, y);
+        if (previousLevel != null && y % 2 == 0) {
+            float[] previousValues = previousLevel.getValues();
+            int previousRowStart = previousLevel.indexOf(0, y / 2);
+            for (int x = startX; x < endX; x++) {
+                values[rowStart + x] = x % 2 == 0 ? previousValues[previousRowStart + x / 2] : (float) plane.valueAt(x * step, y * step);
+            }
+        } else {
+            double stepX = plane.getStepX() * step;
+            double value = plane.valueAt(startX * step, y * step);
+            for (int x = startX; x < endX; x++) {
+                values[rowStart + x] = (float) value;
+                value += stepX;
+            }
+        }
+        return endX - startX;
+    }
+
+    /**
+     * Writes the values of the plane for the pixels {@code [startX, endX[} of row y to the target.
+     *
+     * @return The number of pixels written
+     */
+    private static int fillSpan(TrianglePlane plane, HeatmapGrid target, int originX, int originY, int y, int startX, int endX) {
+        // The plane is linear, so the value only changes by a constant along the row
+        double stepX = plane.getStepX();
+        double value = plane.valueAt(startX, y);
+        float[] values = target.getValues();
+        int end = target.indexOf(endX - originX, y - originY);
+        for (int i = target.indexOf(startX - originX, y - originY); i < end; i++) {
+            values[i] = (float) value;
+            value += stepX;
+        }
+        return endX - startX;
+    }
+
+    /**
+     * Interpolates the values of a rectangle of the heatmap by searching the triangle of each
+     * pixel. Rectangles with more pixels than the threshold are split in two halves along their
+     * longer side.
+     */
+    private class InterpolationTask extends RecursiveAction {
+        private final List<Triangle2D> triangles;
+        private final int startX;
+        private final int endX;
+        private final int startY;
+        private final int endY;
+        private final long pixelsPerTask;
+
+        InterpolationTask(List<Triangle2D> triangles, int startX, int endX, int startY, int endY, long pixelsPerTask) {
+            this.triangles = triangles;
+            this.startX = startX;
+            this.endX = endX;
+            this.startY = startY;
+            this.endY = endY;
+            this.pixelsPerTask = pixelsPerTask;
+        }
+
+        @Override
+        protected void compute() {
+            int deltaX = endX - startX;
+            int deltaY = endY - startY;
+            if ((long) deltaX * deltaY > pixelsPerTask && (deltaX > 1 || deltaY > 1)) {
+                if (deltaX >= deltaY) {
+                    int divideX = startX + deltaX / 2;
+                    invokeAll(new InterpolationTask(triangles, startX, divideX, startY, endY, pixelsPerTask),
+                            new InterpolationTask(triangles, divideX, endX, startY, endY, pixelsPerTask));
+                } else {
+                    int divideY = startY + deltaY / 2;
+                    invokeAll(new InterpolationTask(triangles, startX, endX, startY, divideY, pixelsPerTask),
+                            new InterpolationTask(triangles, startX, endX, divideY, endY, pixelsPerTask));
+                }
+                return;
+            }
+            cancellationToken.throwIfCancelled();
+            // Every leaf walks from the triangle of its previous pixel
+            TriangleLocator locator = triangleLookupStrategy == TriangleLookupStrategy.ADJACENCY_WALK ? new TriangleLocator(triangulation) : null;
+            long pixelsOfTask = 0;
+            for (int y = startY; y < endY; y++) {
+                if (area == null) {
+                    pixelsOfTask += interpolateRow(y, startX, endX, locator);
+                    continue;
+                }
+                for (int span = 0; span < area.getSpanCount(y) && area.getSpanStart(y, span) < endX; span++) {
+                    int start = Math.max(startX, area.getSpanStart(y, span));
+                    int end = Math.min(endX, area.getSpanEnd(y, span));
+                    if (start < end) {
+                        pixelsOfTask += interpolateRow(y, start, end, locator);
+                    }
+                }
+            }
+            sendProgressUpdateToCallbackIfAvailable(pixelsOfTask);
+        }
+
+        private int interpolateRow(int y, int startX, int endX, TriangleLocator locator) {
+            for (int x = startX; x < endX; x++) {
+                heatmap.set(x, y, (float) interpolateValueAt(new Vector2D(x, y), triangles, locator));
+            }
+            return endX - startX;
+        }
+    }
+
+    /**
+     * Interpolates a range of rows of a grid with the {@link Interpolator}. Ranges with more rows
+     * than the threshold are split in two halves. Every task uses its own
+     * {@link Interpolator.Evaluator}.
+     */
+    private class InterpolatorTask extends RecursiveAction {
+        private final HeatmapGrid target;
+        private final int originX;
+        private final int originY;
+        private final int step;
+        private final int startRow;
+        private final int endRow;
+        private final int rowsPerTask;
+        private final boolean reportProgress;
+
+        InterpolatorTask(HeatmapGrid target, int originX, int originY, int step, int startRow, int endRow, int rowsPerTask, boolean reportProgress) {
+            this.target = target;
+            this.originX = originX;
+            this.originY = originY;
+            this.step = step;
+            this.startRow = startRow;
+            this.endRow = endRow;
+            this.rowsPerTask = rowsPerTask;
+            this.reportProgress = reportProgress;
+        }
+
+        @Override
+        protected void compute() {
+            if (endRow - startRow > rowsPerTask) {
+                int divideRow = startRow + (endRow - startRow) / 2;
+                invokeAll(new InterpolatorTask(target, originX, originY, step, startRow, divideRow, rowsPerTask, reportProgress),
+                        new InterpolatorTask(target, originX, originY, step, divideRow, endRow, rowsPerTask, reportProgress));
+                return;
+            }
+            cancellationToken.throwIfCancelled();
+            Interpolator.Evaluator evaluator = interpolator.createEvaluator();
+            long pixelsOfTask = 0;
+            for (int row = startRow; row < endRow; row++) {
+                int y = originY + row * step;
+                for (int column = 0; column < target.getWidth(); column++) {
+                    int x = originX + column * step;
+                    if (area == null || area.contains(x, y)) {
+                        target.set(column, row, (float) evaluator.valueAt(x, y));
+                        pixelsOfTask++;
+                    }
+                }
+            }
+            if (reportProgress) {
+                sendProgressUpdateToCallbackIfAvailable(pixelsOfTask);
+            }
+        }
+    }
+
+    /**
+     * This Enum defines three different strategies for generating external (outside the bounds
+     * of the target heatmap) Points. The Points either assume the lowest value possible, the value
+     * of the nearest measurement or the highest value possible.
+     */
+    public enum ExternalPointStrategy {
+        ASSUME_LOW, ASSUME_NEAREST, ASSUME_HIGH
+    }
+
+    /**
+     * This Enum defines three different strategies for finding the triangle that determines the
+     * value of a pixel. {@link #LINEAR_SEARCH} checks all triangles for every pixel,
+     * {@link #ADJACENCY_WALK} walks from the triangle of the previous pixel to its neighbors
+     * using a {@link TriangleLocator} and {@link #SCANLINE} rasterizes every triangle once and
+     * fills exactly the pixels it covers.
+     */
+    public enum TriangleLookupStrategy {
+        LINEAR_SEARCH, ADJACENCY_WALK, SCANLINE
+    }
+
+    public interface HeatmapTileConsumer {
+        /**
+         * Called for every tile of the heatmap in row-major order.
+         *
+         * @param originX The x-coordinate of the top left pixel of the tile in the heatmap
+         * @param originY The y-coordinate of the top left pixel of the tile in the heatmap
+         * @param tile    The values of the tile
+         * @throws IOException If the tile can't be processed
+         */
+        void onTile(int originX, int originY, HeatmapGrid tile) throws IOException;
+    }
+
+    public interface HeatmapLevelConsumer {
+        /**
+         * Called for every level of a heatmap that is generated progressively.
+         *
+         * @param step  The distance of the pixels of the level in pixels of the heatmap
+         * @param level The values of the level
+         */
+        void onLevel(int step, HeatmapGrid level);
+    }
+
+    public interface HeatmapGeneratorCallback {
+        void onHeatmapProgress(double percentage);
+
+        void onHeatmapLevelFinished(int step, HeatmapGrid level);
+
+        void onHeatmapGenerationFinished();
+
+        void onHeatmapGenerationError(Exception exception);
+    }
+}
@@ -0,0 +1,94 @@
+package de.eschoenawa.wifiar.heatmap;
+
+import java.util.Arrays;
+
+/**
+ * This class stores the values of a heatmap in one contiguous row-major float-array. The value of
+ * the pixel (x|y) is located at index {@code y * stride + x}. Compared to a two-dimensional
+ * double-array this halves the memory required per pixel and avoids one array object per column.
+ *
+ * @author Emil Schoenawa
+ */
+public class HeatmapGrid {
+    private final int width;
+    private final int height;
+    private final int stride;
+    private final float[] values;
+
+    /**
+     * Creates a new HeatmapGrid in which every row is exactly {@code width} values long.
+     *
+     * @param width  The number of pixels in x-direction
+     * @param height The number of pixels in y-direction
+     */
+    public HeatmapGrid(int width, int height) {
+        this(width, height, width);
+    }
+
+    /**
+     * Creates a new HeatmapGrid.
+     *
+     * @param width  The number of pixels in x-direction
+     * @param height The number of pixels in y-direction
+     * @param stride The distance between the first values of two consecutive rows (at least width)
+     */
+    public HeatmapGrid(int width, int height, int stride) {
+        if (width < 0 || height < 0 || stride < width) {
+            throw new IllegalArgumentException("Invalid grid dimensions " + width + "x" + height + " with stride " + stride + "!");
+        }
+        if ((long) stride * height > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Grid of " + width + "x" + height + " pixels is too large!");
+        }
+        this.width = width;
+        this.height = height;
+        this.stride = stride;
+        this.values = new float[stride * height];
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getStride() {
+        return stride;
+    }
+
+    /**
+     * Provides direct access to the values for bulk operations. Use {@link #indexOf(int, int)} to
+     * find the position of a pixel.
+     *
+     * @return The backing array of this grid
+     */
+    public float[] getValues() {
+        return values;
+    }
+
+    public int indexOf(int x, int y) {
+        return y * stride + x;
+    }
+
+    public float get(int x, int y) {
+        return values[y * stride + x];
+    }
+
+    public void set(int x, int y, float value) {
+        values[y * stride + x] = value;
+    }
+
+    /**
+     * Sets every value of this grid to the given value.
+     *
+     * @param value The value to set
+     */
+    public void fill(float value) {
+        Arrays.fill(values, value);
+    }
+
+    public boolean contains(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+}
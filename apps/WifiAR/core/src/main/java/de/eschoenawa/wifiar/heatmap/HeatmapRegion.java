@@ -0,0 +1,59 @@
+package de.eschoenawa.wifiar.heatmap;
+
+/**
+ * This class represents a rectangular region of a heatmap, e.g. the pixels that changed after a
+ * measurement has been added. The left and top edges are inclusive, the right and bottom edges
+ * are exclusive.
+ *
+ * @author Emil Schoenawa
+ */
+public class HeatmapRegion {
+    private final int left;
+    private final int top;
+    private final int right;
+    private final int bottom;
+
+    public HeatmapRegion(int left, int top, int right, int bottom) {
+        this.left = left;
+        this.top = top;
+        this.right = Math.max(left, right);
+        this.bottom = Math.max(top, bottom);
+    }
+
+    public int getLeft() {
+        return left;
+    }
+
+    public int getTop() {
+        return top;
+    }
+
+    public int getRight() {
+        return right;
+    }
+
+    public int getBottom() {
+        return bottom;
+    }
+
+    public int getWidth() {
+        return right - left;
+    }
+
+    public int getHeight() {
+        return bottom - top;
+    }
+
+    public boolean isEmpty() {
+        return left == right || top == bottom;
+    }
+
+    public boolean contains(int x, int y) {
+        return x >= left && x < right && y >= top && y < bottom;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + left + ", " + top + ", " + right + ", " + bottom + "[";
+    }
+}
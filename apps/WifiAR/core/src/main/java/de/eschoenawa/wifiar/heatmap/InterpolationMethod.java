@@ -0,0 +1,60 @@
+package de.eschoenawa.wifiar.heatmap;
+
+import static de.eschoenawa.wifiar.common.Constants.IDW_NEIGHBORS;
+import static de.eschoenawa.wifiar.common.Constants.IDW_POWER;
+import static de.eschoenawa.wifiar.common.Constants.KRIGING_NEIGHBORS;
+import static de.eschoenawa.wifiar.common.Constants.PATH_LOSS_MIN_DISTANCE;
+
+/**
+ * This Enum defines the methods available to interpolate the values between the measurements.
+ * {@link #TRIANGULATION} interpolates linearly inside the triangles of a Delaunay triangulation,
+ * {@link #INVERSE_DISTANCE} and {@link #KRIGING} use the respective {@link Interpolator} and
+ * {@link #PATH_LOSS} predicts the values with a {@link PathLossModel} fitted to the measurements.
+ *
+ * @author Emil Schoenawa
+ */
+public enum InterpolationMethod {
+    TRIANGULATION, INVERSE_DISTANCE, KRIGING, PATH_LOSS;
+
+    /**
+     * @return A new {@link Interpolator} for this method (for measurements in meters) or
+     * {@code null} for {@link #TRIANGULATION}, which is built into the {@link HeatmapGenerator}
+     */
+    public Interpolator createInterpolator() {
+        return createInterpolator(1);
+    }
+
+    /**
+     * @param pixelsPerMeter The resolution of the heatmap, which {@link #PATH_LOSS} needs to fit
+     *                       its model in meters
+     * @return A new {@link Interpolator} for this method or {@code null} for
+     * {@link #TRIANGULATION}, which is built into the {@link HeatmapGenerator}
+     */
+    public Interpolator createInterpolator(double pixelsPerMeter) {
+        switch (this) {
+            case INVERSE_DISTANCE:
+                return new InverseDistanceInterpolator(IDW_NEIGHBORS, IDW_POWER);
+            case KRIGING:
+                return new KrigingInterpolator(KRIGING_NEIGHBORS);
+            case PATH_LOSS:
+                return new PathLossInterpolator(PATH_LOSS_MIN_DISTANCE, pixelsPerMeter);
+            case TRIANGULATION:
+            default:
+                return null;
+        }
+    }
+
+    public static InterpolationMethod getMethod(String methodString) {
+        switch (methodString) {
+            case "TRIANGULATION":
+            default:
+                return TRIANGULATION;
+            case "INVERSE_DISTANCE":
+                return INVERSE_DISTANCE;
+            case "KRIGING":
+                return KRIGING;
+            case "PATH_LOSS":
+                return PATH_LOSS;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package de.eschoenawa.wifiar.heatmap;
+
+import java.util.List;
+
+import de.eschoenawa.wifiar.models.WifiMeasurement;
+
+/**
+ * This interface represents a method interpolating the power of the measurements at arbitrary
+ * points, which the {@link HeatmapGenerator} uses instead of the Delaunay triangulation if it is
+ * set. Unlike the triangulation an Interpolator doesn't need edge points, the values outside of
+ * the measurements are extrapolated by the interpolator itself.
+ *
+ * @author Emil Schoenawa
+ */
+public interface Interpolator {
+    /**
+     * Prepares the interpolation of the given measurements. This is called once before values
+     * are interpolated and again whenever the measurements change.
+     *
+     * @param measurements The measurements in the coordinate system of the heatmap (at least one)
+     * @param powerScale   The scale the power of the measurements is interpolated in
+     */
+    void prepare(List<WifiMeasurement> measurements, PowerScale powerScale);
+
+    /**
+     * Creates an {@link Evaluator} for the measurements given to {@link #prepare(List, PowerScale)}. An
+     * evaluator keeps buffers (and state of the previous point) between evaluations, so every
+     * worker thread needs its own one.
+     *
+     * @return The Evaluator
+     */
+    Evaluator createEvaluator();
+
+    /**
+     * @return The number of nearest measurements a value depends on or 0 if a value may depend on
+     * all measurements (e.g. because parameters are fitted to all of them). In the former case
+     * adding a measurement only changes the values it is one of the nearest measurements of.
+     */
+    int getNeighborCount();
+
+    interface Evaluator {
+        /**
+         * Interpolates the value at a point.
+         *
+         * @param x The x-coordinate in the coordinate system of the heatmap
+         * @param y The y-coordinate in the coordinate system of the heatmap
+         * @return The interpolated power in the scale given to {@link #prepare(List, PowerScale)}
+         */
+        double valueAt(double x, double y);
+    }
+}
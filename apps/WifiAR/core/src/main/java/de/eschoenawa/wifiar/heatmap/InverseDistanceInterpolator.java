@@ -0,0 +1,77 @@
+package de.eschoenawa.wifiar.heatmap;
+
+import java.util.List;
+
+import de.eschoenawa.wifiar.models.WifiMeasurement;
+
+/**
+ * This class interpolates with inverse distance weighting (Shepard's method): the value at a
+ * point is the average of the values of the nearest measurements weighted by the inverse of
+ * their distance to the power of p. Only the k nearest measurements (found with a
+ * {@link MeasurementIndex}) are considered, so every value takes logarithmic time regardless of
+ * the number of measurements. The values never exceed the range of the measurements and there
+ * are no triangle artefacts, but every measurement is surrounded by a plateau.
+ *
+ * @author Emil Schoenawa
+ */
+public class InverseDistanceInterpolator implements Interpolator {
+    private final int neighbors;
+    private final double power;
+    private MeasurementIndex index;
+    private double[] values;
+
+    /**
+     * Creates a new InverseDistanceInterpolator.
+     *
+     * @param neighbors The number of nearest measurements considered for every value
+     * @param power     The power of the distance the weights are the inverse of
+     */
+    public InverseDistanceInterpolator(int neighbors, double power) {
+        if (neighbors <= 0) {
+            throw new IllegalArgumentException("At least one neighbor has to be considered!");
+        }
+        this.neighbors = neighbors;
+        this.power = power;
+    }
+
+    @Override
+    public void prepare(List<WifiMeasurement> measurements, PowerScale powerScale) {
+        index = new MeasurementIndex(measurements);
+        values = new double[measurements.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = powerScale.fromWatts(measurements.get(i).getPower());
+        }
+    }
+
+    @Override
+    public Evaluator createEvaluator() {
+        if (index == null) {
+            throw new IllegalStateException("The interpolator has to be prepared first!");
+        }
+        MeasurementIndex index = this.index;
+        double[] values = this.values;
+        int[] indices = new int[neighbors];
+        double[] squaredDistances = new double[neighbors];
+        // The weights are computed from squared distances, which saves a square root
+        double halfPower = power / 2;
+        return (x, y) -> {
+            int count = index.findNearest(x, y, neighbors, indices, squaredDistances);
+            if (squaredDistances[0] == 0) {
+                return values[indices[0]];
+            }
+            double weightedSum = 0;
+            double weightSum = 0;
+            for (int i = 0; i < count; i++) {
+                double weight = halfPower == 1 ? 1 / squaredDistances[i] : 1 / Math.pow(squaredDistances[i], halfPower);
+                weightedSum += weight * values[indices[i]];
+                weightSum += weight;
+            }
+            return weightedSum / weightSum;
+        };
+    }
+
+    @Override
+    public int getNeighborCount() {
+        return neighbors;
+    }
+}
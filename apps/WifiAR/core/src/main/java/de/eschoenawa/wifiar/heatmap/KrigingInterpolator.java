@@ -0,0 +1,353 @@
+package de.eschoenawa.wifiar.heatmap;
+
+import java.util.List;
+
+import de.eschoenawa.wifiar.models.WifiMeasurement;
+
+/**
+ * This class interpolates with ordinary kriging. The spatial correlation of the measurements is
+ * described by an exponential variogram, which is fitted once to the empirical semivariances of
+ * the measurement pairs when the interpolator is prepared. The value at a point is the weighted
+ * sum of its k nearest measurements; the weights minimise the expected error according to the
+ * variogram and sum up to one. They are determined by solving the kriging system of the
+ * neighborhood, whose matrix only depends on the neighbors, so it is factorized only when the
+ * neighbors change (which neighboring pixels rarely do).
+ *
+ * @author Emil Schoenawa
+ */
+public class KrigingInterpolator implements Interpolator {
+    private static final int VARIOGRAM_BINS = 15;
+    private static final int MAX_VARIOGRAM_POINTS = 2000;
+    private static final int RANGE_CANDIDATES = 30;
+
+    private final int neighbors;
+    private MeasurementIndex index;
+    private double[] xs;
+    private double[] ys;
+    private double[] values;
+    private double minValue;
+    private double maxValue;
+    // Parameters of the variogram (fitted to values normalized by their variance)
+    private double nugget;
+    private double partialSill;
+    private double range;
+
+    /**
+     * Creates a new KrigingInterpolator.
+     *
+     * @param neighbors The number of nearest measurements considered for every value
+     */
+    public KrigingInterpolator(int neighbors) {
+        if (neighbors <= 0) {
+            throw new IllegalArgumentException("At least one neighbor has to be considered!");
+        }
+        this.neighbors = neighbors;
+    }
+
+    @Override
+    public void prepare(List<WifiMeasurement> measurements, PowerScale powerScale) {
+        int size = measurements.size();
+        index = new MeasurementIndex(measurements);
+        xs = new double[size];
+        ys = new double[size];
+        values = new double[size];
+        minValue = Double.MAX_VALUE;
+        maxValue = -Double.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            WifiMeasurement measurement = measurements.get(i);
+            xs[i] = measurement.x;
+            ys[i] = measurement.y;
+            values[i] = powerScale.fromWatts(measurement.getPower());
+            minValue = Math.min(minValue, values[i]);
+            maxValue = Math.max(maxValue, values[i]);
+        }
+        fitVariogram();
+    }
+
+    /**
+     * Fits the variogram to the empirical semivariances of the measurement pairs grouped by
+     * their distance. For every candidate range the nugget and the partial sill follow from a
+     * weighted linear least squares fit; the range with the smallest error is used. Surveys with
+     * many measurements are sampled, so the fit takes constant time.
+     */
+    private void fitVariogram() {
+        int size = values.length;
+        double mean = 0;
+        for (double value : values) {
+            mean += value;
+        }
+        mean /= size;
+        double variance = 0;
+        for (double value : values) {
+            variance += (value - mean) * (value - mean);
+        }
+        variance /= size;
+        double normalization = variance > 0 ? variance : 1;
+
+        int stride = (size + MAX_VARIOGRAM_POINTS - 1) / MAX_VARIOGRAM_POINTS;
+        double minX = Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < size; i += stride) {
+            minX = Math.min(minX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxX = Math.max(maxX, xs[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+        double maxLag = Math.hypot(maxX - minX, maxY - minY) / 2;
+        if (!(maxLag > 0)) {
+            maxLag = 1;
+        }
+        double[] lags = new double[VARIOGRAM_BINS];
+        double[] semivariances = new double[VARIOGRAM_BINS];
+        long[] counts = new long[VARIOGRAM_BINS];
+        for (int i = 0; i < size; i += stride) {
+            for (int j = i + stride; j < size; j += stride) {
+                double distance = Math.hypot(xs[i] - xs[j], ys[i] - ys[j]);
+                int bin = (int) (distance / maxLag * VARIOGRAM_BINS);
+                if (bin < VARIOGRAM_BINS) {
+                    double difference = values[i] - values[j];
+                    lags[bin] += distance;
+                    semivariances[bin] += difference * difference / 2 / normalization;
+                    counts[bin]++;
+                }
+            }
+        }
+        for (int bin = 0; bin < VARIOGRAM_BINS; bin++) {
+            if (counts[bin] > 0) {
+                lags[bin] /= counts[bin];
+                semivariances[bin] /= counts[bin];
+            }
+        }
+
+        // Without spatial structure assume a smooth variogram, which makes kriging behave like
+        // a spline through the measurements
+        nugget = 0;
+        partialSill = 1;
+        range = maxLag;
+        double bestError = Double.MAX_VALUE;
+        for (int candidate = 0; candidate < RANGE_CANDIDATES; candidate++) {
+            // Geometric series from a 30th of the maximum lag to twice the maximum lag
+            double candidateRange = maxLag / RANGE_CANDIDATES * Math.pow(2.0 * RANGE_CANDIDATES, (double) candidate / (RANGE_CANDIDATES - 1));
+            double sumW = 0;
+            double sumWF = 0;
+            double sumWFF = 0;
+            double sumWG = 0;
+            double sumWFG = 0;
+            for (int bin = 0; bin < VARIOGRAM_BINS; bin++) {
+                double w = counts[bin];
+                double f = 1 - Math.exp(-3 * lags[bin] / candidateRange);
+                double g = semivariances[bin];
+                sumW += w;
+                sumWF += w * f;
+                sumWFF += w * f * f;
+                sumWG += w * g;
+                sumWFG += w * f * g;
+            }
+            if (sumW == 0) {
+                break;
+            }
+            double determinant = sumW * sumWFF - sumWF * sumWF;
+            double candidateNugget = determinant != 0 ? (sumWFF * sumWG - sumWF * sumWFG) / determinant : 0;
+            double candidateSill = determinant != 0 ? (sumW * sumWFG - sumWF * sumWG) / determinant : 0;
+            // Both parameters must not be negative
+            if (candidateNugget < 0) {
+                candidateNugget = 0;
+                candidateSill = sumWFF > 0 ? sumWFG / sumWFF : 0;
+            }
+            if (candidateSill <= 0) {
+                continue;
+            }
+            double error = 0;
+            for (int bin = 0; bin < VARIOGRAM_BINS; bin++) {
+                double residual = candidateNugget + candidateSill * (1 - Math.exp(-3 * lags[bin] / candidateRange)) - semivariances[bin];
+                error += counts[bin] * residual * residual;
+            }
+            if (error < bestError) {
+                bestError = error;
+                nugget = candidateNugget;
+                partialSill = candidateSill;
+                range = candidateRange;
+            }
+        }
+    }
+
+    /**
+     * @return The fitted semivariance at the given distance
+     */
+    private double variogram(double distance) {
+        if (distance == 0) {
+            return 0;
+        }
+        return nugget + partialSill * (1 - Math.exp(-3 * distance / range));
+    }
+
+    @Override
+    public Evaluator createEvaluator() {
+        if (index == null) {
+            throw new IllegalStateException("The interpolator has to be prepared first!");
+        }
+        return new KrigingEvaluator();
+    }
+
+    @Override
+    public int getNeighborCount() {
+        // The variogram and the limits of the values depend on all measurements
+        return 0;
+    }
+
+    /**
+     * Solves the kriging system of the neighborhood of every point. The LU decomposition of the
+     * matrix of the last neighborhood is kept and reused as long as the neighbors stay the same.
+     */
+    private class KrigingEvaluator implements Evaluator {
+        private final int[] indices = new int[neighbors];
+        private final double[] squaredDistances = new double[neighbors];
+        private final int[] sortedIndices = new int[neighbors];
+        private final int[] cachedIndices = new int[neighbors];
+        private int cachedCount = -1;
+        private boolean cachedSingular;
+        private final double[] matrix = new double[(neighbors + 1) * (neighbors + 1)];
+        private final int[] pivots = new int[neighbors + 1];
+        private final double[] weights = new double[neighbors + 1];
+
+        @Override
+        public double valueAt(double x, double y) {
+            int count = index.findNearest(x, y, neighbors, indices, squaredDistances);
+            if (squaredDistances[0] == 0 || count == 1) {
+                return values[indices[0]];
+            }
+            // The set of neighbors identifies the matrix, so compare them in a fixed order
+            System.arraycopy(indices, 0, sortedIndices, 0, count);
+            sort(sortedIndices, count);
+            if (!isCached(count)) {
+                System.arraycopy(sortedIndices, 0, cachedIndices, 0, count);
+                cachedCount = count;
+                cachedSingular = !factorize(count);
+            }
+            if (cachedSingular) {
+                // Measurements at the same position make the system singular
+                return inverseDistanceValue(count);
+            }
+            int size = count + 1;
+            for (int i = 0; i < count; i++) {
+                int neighbor = sortedIndices[i];
+                weights[i] = variogram(Math.hypot(xs[neighbor] - x, ys[neighbor] - y));
+            }
+            weights[count] = 1;
+            solve(size);
+            double value = 0;
+            for (int i = 0; i < count; i++) {
+                value += weights[i] * values[sortedIndices[i]];
+            }
+            // Negative weights may overshoot, which would lead to invalid powers
+            return Math.max(minValue, Math.min(maxValue, value));
+        }
+
+        private boolean isCached(int count) {
+            if (count != cachedCount) {
+                return false;
+            }
+            for (int i = 0; i < count; i++) {
+                if (sortedIndices[i] != cachedIndices[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Builds the kriging matrix of the neighbors and decomposes it (LU with partial pivoting).
+         *
+         * @return Whether the matrix is regular
+         */
+        private boolean factorize(int count) {
+            int size = count + 1;
+            for (int i = 0; i < count; i++) {
+                int a = sortedIndices[i];
+                for (int j = 0; j < count; j++) {
+                    int b = sortedIndices[j];
+                    matrix[i * size + j] = variogram(Math.hypot(xs[a] - xs[b], ys[a] - ys[b]));
+                }
+                matrix[i * size + count] = 1;
+                matrix[count * size + i] = 1;
+            }
+            matrix[count * size + count] = 0;
+            for (int column = 0; column < size; column++) {
+                int pivot = column;
+                for (int row = column + 1; row < size; row++) {
+                    if (Math.abs(matrix[row * size + column]) > Math.abs(matrix[pivot * size + column])) {
+                        pivot = row;
+                    }
+                }
+                if (Math.abs(matrix[pivot * size + column]) < 1e-12) {
+                    return false;
+                }
+                pivots[column] = pivot;
+                if (pivot != column) {
+                    for (int k = 0; k < size; k++) {
+                        double swap = matrix[column * size + k];
+                        matrix[column * size + k] = matrix[pivot * size + k];
+                        matrix[pivot * size + k] = swap;
+                    }
+                }
+                double diagonal = matrix[column * size + column];
+                for (int row = column + 1; row < size; row++) {
+                    double factor = matrix[row * size + column] / diagonal;
+                    matrix[row * size + column] = factor;
+                    for (int k = column + 1; k < size; k++) {
+                        matrix[row * size + k] -= factor * matrix[column * size + k];
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Solves the factorized system for the right-hand side in the weights (in place).
+         */
+        private void solve(int size) {
+            for (int i = 0; i < size; i++) {
+                int pivot = pivots[i];
+                if (pivot != i) {
+                    double swap = weights[i];
+                    weights[i] = weights[pivot];
+                    weights[pivot] = swap;
+                }
+                for (int k = 0; k < i; k++) {
+                    weights[i] -= matrix[i * size + k] * weights[k];
+                }
+            }
+            for (int i = size - 1; i >= 0; i--) {
+                for (int k = i + 1; k < size; k++) {
+                    weights[i] -= matrix[i * size + k] * weights[k];
+                }
+                weights[i] /= matrix[i * size + i];
+            }
+        }
+
+        private double inverseDistanceValue(int count) {
+            double weightedSum = 0;
+            double weightSum = 0;
+            for (int i = 0; i < count; i++) {
+                double weight = 1 / squaredDistances[i];
+                weightedSum += weight * values[indices[i]];
+                weightSum += weight;
+            }
+            return weightedSum / weightSum;
+        }
+    }
+
+    private static void sort(int[] array, int length) {
+        for (int i = 1; i < length; i++) {
+            int value = array[i];
+            int j = i - 1;
+            while (j >= 0 && array[j] > value) {
+                array[j + 1] = array[j];
+                j--;
+            }
+            array[j + 1] = value;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package de.eschoenawa.wifiar.heatmap;
+
+import java.util.List;
+
+import de.eschoenawa.wifiar.models.WifiMeasurement;
+
+/**
+ * This class is a static two-dimensional k-d tree over a set of measurements that allows finding
+ * the nearest measurement to a point in logarithmic time. The tree is stored implicitly in arrays:
+ * the median of every range {@code [start, end[} is located at its center and splits the range
+ * alternating by x- and y-coordinate.
+ *
+ * @author Emil Schoenawa
+ */
+public class MeasurementIndex {
+    private final WifiMeasurement[] measurements;
+    private final double[] xs;
+    private final double[] ys;
+    // Position of each measurement in the original list (used to resolve ties deterministically)
+    private final int[] order;
+
+    /**
+     * Creates a new MeasurementIndex. The positions of the measurements must not change
+     * afterwards.
+     *
+     * @param wifiMeasurements The measurements to index
+     */
+    public MeasurementIndex(List<WifiMeasurement> wifiMeasurements) {
+        int size = wifiMeasurements.size();
+        this.measurements = new WifiMeasurement[size];
+        this.xs = new double[size];
+        this.ys = new double[size];
+        this.order = new int[size];
+        for (int i = 0; i < size; i++) {
+            WifiMeasurement wifiMeasurement = wifiMeasurements.get(i);
+            measurements[i] = wifiMeasurement;
+            xs[i] = wifiMeasurement.x;
+            ys[i] = wifiMeasurement.y;
+            order[i] = i;
+        }
+        build(0, size, true);
+    }
+
+    public int size() {
+        return measurements.length;
+    }
+
+    /**
+     * Finds the measurement closest to the given point. If multiple measurements have the same
+     * distance the one that came first in the indexed list is returned.
+     *
+     * @param x The x-coordinate of the point
+     * @param y The y-coordinate of the point
+     * @return The closest measurement
+     */
+    public WifiMeasurement findNearest(double x, double y) {
+        if (measurements.length == 0) {
+            throw new IllegalStateException("No measurements available, cannot find nearest one!");
+        }
+        Nearest nearest = new Nearest();
+        findNearest(0, measurements.length, true, x, y, nearest);
+        return measurements[nearest.index];
+    }
+
+    /**
+     * Finds the k measurements closest to the given point. The results are written to the given
+     * arrays (which have to hold at least k elements), so repeated queries don't allocate memory.
+     *
+     * @param x                The x-coordinate of the point
+     * @param y                The y-coordinate of the point
+     * @param k                The number of measurements to find
+     * @param indices          Receives the positions of the measurements in the indexed list,
+     *                         sorted by distance
+     * @param squaredDistances Receives the squared distances of the measurements
+     * @return The number of measurements found (k unless less measurements are indexed)
+     */
+    public int findNearest(double x, double y, int k, int[] indices, double[] squaredDistances) {
+        return findNearest(0, measurements.length, true, x, y, Math.min(k, measurements.length), indices, squaredDistances, 0);
+    }
+
+    /**
+     * @return The number of measurements in the result after searching the range
+     */
+    private int findNearest(int start, int end, boolean splitByX, double x, double y, int k, int[] indices, double[] squaredDistances, int count) {
+        if (start >= end || k <= 0) {
+            return count;
+        }
+        int median = (start + end) >>> 1;
+        double deltaX = xs[median] - x;
+        double deltaY = ys[median] - y;
+        double distance = deltaX * deltaX + deltaY * deltaY;
+        if (count < k || distance < squaredDistances[k - 1]) {
+            // Insert into the sorted result, dropping the farthest one if the result is full
+            int position = Math.min(count, k - 1);
+            while (position > 0 && squaredDistances[position - 1] > distance) {
+                squaredDistances[position] = squaredDistances[position - 1];
+                indices[position] = indices[position - 1];
+                position--;
+            }
+            squaredDistances[position] = distance;
+            indices[position] = order[median];
+            count = Math.min(count + 1, k);
+        }
+        double delta = splitByX ? x - xs[median] : y - ys[median];
+        // Search the half containing the point first to prune as much as possible
+        if (delta < 0) {
+            count = findNearest(start, median, !splitByX, x, y, k, indices, squaredDistances, count);
+            if (count < k || delta * delta <= squaredDistances[k - 1]) {
+                count = findNearest(median + 1, end, !splitByX, x, y, k, indices, squaredDistances, count);
+            }
+        } else {
+            count = findNearest(median + 1, end, !splitByX, x, y, k, indices, squaredDistances, count);
+            if (count < k || delta * delta <= squaredDistances[k - 1]) {
+                count = findNearest(start, median, !splitByX, x, y, k, indices, squaredDistances, count);
+            }
+        }
+        return count;
+    }
+
+    private void findNearest(int start, int end, boolean splitByX, double x, double y, Nearest nearest) {
+        if (start >= end) {
+            return;
+        }
+        int median = (start + end) >>> 1;
+        double deltaX = xs[median] - x;
+        double deltaY = ys[median] - y;
+        double distance = deltaX * deltaX + deltaY * deltaY;
+        if (distance < nearest.distance || (distance == nearest.distance && order[median] < order[nearest.index])) {
+            nearest.distance = distance;
+            nearest.index = median;
+        }
+        double delta = splitByX ? x - xs[median] : y - ys[median];
+        // Search the half containing the point first to prune as much as possible
+        if (delta < 0) {
+            findNearest(start, median, !splitByX, x, y, nearest);
+            if (delta * delta <= nearest.distance) {
+                findNearest(median + 1, end, !splitByX, x, y, nearest);
+            }
+        } else {
+            findNearest(median + 1, end, !splitByX, x, y, nearest);
+            if (delta * delta <= nearest.distance) {
+                findNearest(start, median, !splitByX, x, y, nearest);
+            }
+        }
+    }
+
+    private void build(int start, int end, boolean splitByX) {
+        if (end - start <= 1) {
+            return;
+        }
+        int median = (start + end) >>> 1;
+        select(start, end - 1, median, splitByX ? xs : ys);
+        build(start, median, !splitByX);
+        build(median + 1, end, !splitByX);
+    }
+
+    /**
+     * Partially sorts the range {@code [left, right]} (quickselect) so that the element at position
+     * k is in its sorted place, all smaller elements are before and all larger elements are after it.
+     */
+    private void select(int left, int right, int k, double[] keys) {
+        while (left < right) {
+            double pivot = keys[(left + right) >>> 1];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (keys[i] < pivot) {
+                    i++;
+                }
+                while (keys[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int i, int j) {
+        WifiMeasurement measurement = measurements[i];
+        measurements[i] = measurements[j];
+        measurements[j] = measurement;
+        double x = xs[i];
+        xs[i] = xs[j];
+        xs[j] = x;
+        double y = ys[i];
+        ys[i] = ys[j];
+        ys[j] = y;
+        int position = order[i];
+        order[i] = order[j];
+        order[j] = position;
+    }
+
+    private static class Nearest {
+        private int index = 0;
+        private double distance = Double.POSITIVE_INFINITY;
+    }
+}
@@ -0,0 +1,367 @@
+package de.eschoenawa.wifiar.heatmap;
+
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+import de.eschoenawa.wifiar.models.WifiMeasurement;
+import de.eschoenawa.wifiar.utils.UnitConverter;
+import de.eschoenawa.wifiar.utils.concurrent.ComputePool;
+
+import static de.eschoenawa.wifiar.common.Constants.PATH_LOSS_MEASUREMENTS_PER_TASK;
+
+/**
+ * This class fits a {@link PathLossModel} to the measurements of a single access point. The
+ * position of the access point, the reference power and the path loss exponent are determined by
+ * a non-linear least squares fit (Levenberg-Marquardt) of the power in dBm, in which every
+ * measurement is weighted by its number of samples. Every iteration needs sums over all
+ * measurements; for large surveys they are calculated in parallel on the {@link ComputePool}.
+ * The fit only finds a local minimum, so it is started from the strongest measurements and from
+ * their weighted center and the best result is used. During the fit the access point is kept
+ * near the measurements and the exponent in a physically plausible range.
+ *
+ * @author Emil Schoenawa
+ */
+public class PathLossFitter {
+    private static final double MIN_EXPONENT = 1.5;
+    private static final double MAX_EXPONENT = 6;
+    private static final double DEFAULT_EXPONENT = 2;
+    private static final int STRONGEST_STARTS = 3;
+    private static final int MAX_ITERATIONS = 100;
+    private static final double INITIAL_DAMPING = 1e-3;
+    private static final double MIN_DAMPING = 1e-12;
+    private static final double MAX_DAMPING = 1e12;
+    private static final double CONVERGENCE = 1e-12;
+    private static final double LN_10 = Math.log(10);
+
+    // The parameters are the position of the access point, the reference power and the exponent
+    private static final int PARAMETERS = 4;
+    // Layout of the sums: J^T W J (row-major, upper triangle), J^T W r, sum of weighted squared residuals
+    private static final int GRADIENT = PARAMETERS * PARAMETERS;
+    private static final int COST = GRADIENT + PARAMETERS;
+    private static final int SUMS = COST + 1;
+
+    private final double minDistance;
+
+    /**
+     * Creates a new PathLossFitter.
+     *
+     * @param minDistance The distance to the access point the fitted models assume at least, in
+     *                    units of the coordinates of the measurements
+     */
+    public PathLossFitter(double minDistance) {
+        if (!(minDistance > 0)) {
+            throw new IllegalArgumentException("The minimum distance has to be positive!");
+        }
+        this.minDistance = minDistance;
+    }
+
+    /**
+     * Fits a {@link PathLossModel} to the given measurements.
+     *
+     * @param measurements The measurements of the access point
+     * @return The model that fits the measurements best
+     */
+    public PathLossModel fit(List<WifiMeasurement> measurements) {
+        if (measurements.isEmpty()) {
+            throw new IllegalArgumentException("No measurements given!");
+        }
+        Problem problem = new Problem(measurements, minDistance);
+        double[] best = null;
+        for (double[] start : problem.findStartPositions()) {
+            double[] result = problem.levenbergMarquardt(start[0], start[1]);
+            if (best == null || result[PARAMETERS] < best[PARAMETERS]) {
+                best = result;
+            }
+        }
+        double rmsError = Math.sqrt(best[PARAMETERS] / problem.weightSum);
+        return new PathLossModel(best[0], best[1], best[2], best[3], minDistance, rmsError);
+    }
+
+    /**
+     * Solves the linear equation system in place by Gaussian elimination with partial pivoting.
+     *
+     * @param matrix The matrix of the system (row-major), destroyed by the elimination
+     * @param vector The right-hand side, replaced by the solution
+     * @return false if the matrix is singular
+     */
+    private static boolean solve(double[] matrix, double[] vector) {
+        int size = vector.length;
+        for (int column = 0; column < size; column++) {
+            int pivot = column;
+            for (int row = column + 1; row < size; row++) {
+                if (Math.abs(matrix[row * size + column]) > Math.abs(matrix[pivot * size + column])) {
+                    pivot = row;
+                }
+            }
+            double pivotValue = matrix[pivot * size + column];
+            if (!(Math.abs(pivotValue) > 1e-300)) {
+                return false;
+            }
+            if (pivot != column) {
+                for (int k = 0; k < size; k++) {
+                    double swap = matrix[column * size + k];
+                    matrix[column * size + k] = matrix[pivot * size + k];
+                    matrix[pivot * size + k] = swap;
+                }
+                double swap = vector[column];
+                vector[column] = vector[pivot];
+                vector[pivot] = swap;
+            }
+            for (int row = column + 1; row < size; row++) {
+                double factor = matrix[row * size + column] / pivotValue;
+                for (int k = column; k < size; k++) {
+                    matrix[row * size + k] -= factor * matrix[column * size + k];
+                }
+                vector[row] -= factor * vector[column];
+            }
+        }
+        for (int row = size - 1; row >= 0; row--) {
+            double sum = vector[row];
+            for (int k = row + 1; k < size; k++) {
+                sum -= matrix[row * size + k] * vector[k];
+            }
+            vector[row] = sum / matrix[row * size + row];
+        }
+        return true;
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    /**
+     * The measurements of a fit as flat arrays.
+     */
+    private static class Problem {
+        private final double[] xs;
+        private final double[] ys;
+        private final double[] powers;
+        private final double[] weights;
+        private final double weightSum;
+        private final double minDistanceSquared;
+        private final double minX;
+        private final double minY;
+        private final double maxX;
+        private final double maxY;
+        private final double margin;
+
+        Problem(List<WifiMeasurement> measurements, double minDistance) {
+            int size = measurements.size();
+            xs = new double[size];
+            ys = new double[size];
+            powers = new double[size];
+            weights = new double[size];
+            double weightSum = 0;
+            double minX = Double.MAX_VALUE;
+            double minY = Double.MAX_VALUE;
+            double maxX = -Double.MAX_VALUE;
+            double maxY = -Double.MAX_VALUE;
+            for (int i = 0; i < size; i++) {
+                WifiMeasurement measurement = measurements.get(i);
+                xs[i] = measurement.x;
+                ys[i] = measurement.y;
+                powers[i] = UnitConverter.wattsToDbm(measurement.getPower());
+                weights[i] = Math.max(1, measurement.getNumberOfSamples());
+                weightSum += weights[i];
+                minX = Math.min(minX, xs[i]);
+                minY = Math.min(minY, ys[i]);
+                maxX = Math.max(maxX, xs[i]);
+                maxY = Math.max(maxY, ys[i]);
+            }
+            this.weightSum = weightSum;
+            this.minDistanceSquared = minDistance * minDistance;
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            // The access point may be outside of the surveyed area, but not arbitrarily far away
+            this.margin = Math.max(minDistance, Math.max(maxX - minX, maxY - minY));
+        }
+
+        /**
+         * @return The positions of the strongest measurements and the center of the measurements
+         * weighted by their power in watts
+         */
+        double[][] findStartPositions() {
+            int starts = Math.min(STRONGEST_STARTS, powers.length);
+            double[][] result = new double[starts + 1][];
+            boolean[] used = new boolean[powers.length];
+            for (int start = 0; start < starts; start++) {
+                int strongest = -1;
+                for (int i = 0; i < powers.length; i++) {
+                    if (!used[i] && (strongest == -1 || powers[i] > powers[strongest])) {
+                        strongest = i;
+                    }
+                }
+                used[strongest] = true;
+                result[start] = new double[]{xs[strongest], ys[strongest]};
+            }
+            double centerX = 0;
+            double centerY = 0;
+            double powerSum = 0;
+            for (int i = 0; i < powers.length; i++) {
+                double power = UnitConverter.dbmToWatts(powers[i]) * weights[i];
+                centerX += power * xs[i];
+                centerY += power * ys[i];
+                powerSum += power;
+            }
+            result[starts] = powerSum > 0 ? new double[]{centerX / powerSum, centerY / powerSum} : result[0];
+            return result;
+        }
+
+        /**
+         * Fits the model starting at the given position of the access point.
+         *
+         * @return The parameters followed by the sum of the weighted squared residuals
+         */
+        double[] levenbergMarquardt(double startX, double startY) {
+            double[] parameters = {startX, startY, 0, 0};
+            fitPowerAndExponent(parameters);
+            double[] sums = sums(parameters, true);
+            double[] matrix = new double[PARAMETERS * PARAMETERS];
+            double[] step = new double[PARAMETERS];
+            double[] candidate = new double[PARAMETERS];
+            double damping = INITIAL_DAMPING;
+            for (int iteration = 0; iteration < MAX_ITERATIONS && damping < MAX_DAMPING; iteration++) {
+                // Solve (J^T W J + damping * diag(J^T W J)) * step = -J^T W r
+                for (int a = 0; a < PARAMETERS; a++) {
+                    for (int b = 0; b < PARAMETERS; b++) {
+                        matrix[a * PARAMETERS + b] = sums[Math.min(a, b) * PARAMETERS + Math.max(a, b)];
+                    }
+                    matrix[a * PARAMETERS + a] *= 1 + damping;
+                    step[a] = -sums[GRADIENT + a];
+                }
+                if (!solve(matrix, step)) {
+                    damping *= 10;
+                    continue;
+                }
+                for (int k = 0; k < PARAMETERS; k++) {
+                    candidate[k] = parameters[k] + step[k];
+                }
+                project(candidate);
+                double[] candidateSums = sums(candidate, true);
+                if (candidateSums[COST] < sums[COST]) {
+                    boolean converged = sums[COST] - candidateSums[COST] <= CONVERGENCE * sums[COST];
+                    System.arraycopy(candidate, 0, parameters, 0, PARAMETERS);
+                    sums = candidateSums;
+                    damping = Math.max(MIN_DAMPING, damping / 10);
+                    if (converged) {
+                        break;
+                    }
+                } else {
+                    damping *= 10;
+                }
+            }
+            return new double[]{parameters[0], parameters[1], parameters[2], parameters[3], sums[COST]};
+        }
+
+        /**
+         * For a fixed position of the access point the model is linear in the reference power
+         * and the exponent, so both follow from a weighted linear regression.
+         */
+        private void fitPowerAndExponent(double[] parameters) {
+            double sumLoss = 0;
+            double sumPower = 0;
+            double sumLossSquared = 0;
+            double sumLossPower = 0;
+            for (int i = 0; i < powers.length; i++) {
+                double deltaX = xs[i] - parameters[0];
+                double deltaY = ys[i] - parameters[1];
+                double loss = 5 * Math.log10(deltaX * deltaX + deltaY * deltaY + minDistanceSquared);
+                sumLoss += weights[i] * loss;
+                sumPower += weights[i] * powers[i];
+                sumLossSquared += weights[i] * loss * loss;
+                sumLossPower += weights[i] * loss * powers[i];
+            }
+            double meanLoss = sumLoss / weightSum;
+            double meanPower = sumPower / weightSum;
+            double variance = sumLossSquared / weightSum - meanLoss * meanLoss;
+            double covariance = sumLossPower / weightSum - meanLoss * meanPower;
+            double exponent = variance > 1e-12 ? -covariance / variance : DEFAULT_EXPONENT;
+            parameters[3] = clamp(exponent, MIN_EXPONENT, MAX_EXPONENT);
+            parameters[2] = meanPower + parameters[3] * meanLoss;
+        }
+
+        private void project(double[] parameters) {
+            parameters[0] = clamp(parameters[0], minX - margin, maxX + margin);
+            parameters[1] = clamp(parameters[1], minY - margin, maxY + margin);
+            parameters[3] = clamp(parameters[3], MIN_EXPONENT, MAX_EXPONENT);
+        }
+
+        private double[] sums(double[] parameters, boolean jacobian) {
+            if (powers.length <= PATH_LOSS_MEASUREMENTS_PER_TASK) {
+                double[] result = new double[SUMS];
+                accumulate(parameters, jacobian, 0, powers.length, result);
+                return result;
+            }
+            return ComputePool.getInstance().invoke(new SumTask(parameters, jacobian, 0, powers.length));
+        }
+
+        private void accumulate(double[] parameters, boolean jacobian, int from, int to, double[] result) {
+            double accessPointX = parameters[0];
+            double accessPointY = parameters[1];
+            double referencePower = parameters[2];
+            double exponent = parameters[3];
+            double[] derivatives = new double[PARAMETERS];
+            for (int i = from; i < to; i++) {
+                double deltaX = xs[i] - accessPointX;
+                double deltaY = ys[i] - accessPointY;
+                double distanceSquared = deltaX * deltaX + deltaY * deltaY + minDistanceSquared;
+                double logDistanceSquared = Math.log10(distanceSquared);
+                double residual = referencePower - 5 * exponent * logDistanceSquared - powers[i];
+                double weight = weights[i];
+                result[COST] += weight * residual * residual;
+                if (jacobian) {
+                    double factor = 10 * exponent / (LN_10 * distanceSquared);
+                    derivatives[0] = factor * deltaX;
+                    derivatives[1] = factor * deltaY;
+                    derivatives[2] = 1;
+                    derivatives[3] = -5 * logDistanceSquared;
+                    for (int a = 0; a < PARAMETERS; a++) {
+                        double weighted = weight * derivatives[a];
+                        result[GRADIENT + a] += weighted * residual;
+                        for (int b = a; b < PARAMETERS; b++) {
+                            result[a * PARAMETERS + b] += weighted * derivatives[b];
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Calculates the sums over a range of measurements by splitting it in halves. The halves
+         * are always added in the same order, so the result doesn't depend on the scheduling.
+         */
+        private class SumTask extends RecursiveTask<double[]> {
+            private final double[] parameters;
+            private final boolean jacobian;
+            private final int from;
+            private final int to;
+
+            SumTask(double[] parameters, boolean jacobian, int from, int to) {
+                this.parameters = parameters;
+                this.jacobian = jacobian;
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected double[] compute() {
+                if (to - from <= PATH_LOSS_MEASUREMENTS_PER_TASK) {
+                    double[] result = new double[SUMS];
+                    accumulate(parameters, jacobian, from, to, result);
+                    return result;
+                }
+                int middle = (from + to) >>> 1;
+                SumTask left = new SumTask(parameters, jacobian, from, middle);
+                left.fork();
+                double[] result = new SumTask(parameters, jacobian, middle, to).compute();
+                double[] leftResult = left.join();
+                for (int k = 0; k < SUMS; k++) {
+                    result[k] += leftResult[k];
+                }
+                return result;
+            }
+        }
+    }
+}
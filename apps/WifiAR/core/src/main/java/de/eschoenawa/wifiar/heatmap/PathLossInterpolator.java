@@ -0,0 +1,98 @@
+package de.eschoenawa.wifiar.heatmap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.eschoenawa.wifiar.models.WifiMeasurement;
+import de.eschoenawa.wifiar.utils.UnitConverter;
+
+import static de.eschoenawa.wifiar.common.Constants.MIN_POWER_DBM;
+
+/**
+ * This class doesn't interpolate between the measurements but predicts the power everywhere
+ * with a {@link PathLossModel} fitted to all measurements by a {@link PathLossFitter}. The model
+ * assumes a single access point without walls in between, so the heatmap is smooth and plausible
+ * far away from the measurements, but it doesn't reproduce local deviations. Close to the
+ * estimated access point the predicted power grows far beyond anything measured; it is limited
+ * to the strongest measurement so it doesn't dominate the colors of the heatmap.
+ * <p>
+ * The model is fitted in meters, so its reference power is the power at a distance of one meter
+ * regardless of the resolution of the heatmap.
+ *
+ * @author Emil Schoenawa
+ */
+public class PathLossInterpolator implements Interpolator {
+    private final PathLossFitter fitter;
+    private final double unitsPerMeter;
+    private PathLossModel model;
+    private PowerScale powerScale;
+    private double maxDbm;
+
+    /**
+     * Creates a new PathLossInterpolator for measurements whose coordinates are in meters.
+     *
+     * @param minDistance The distance to the access point the model assumes at least, in meters
+     */
+    public PathLossInterpolator(double minDistance) {
+        this(minDistance, 1);
+    }
+
+    /**
+     * Creates a new PathLossInterpolator.
+     *
+     * @param minDistance   The distance to the access point the model assumes at least, in meters
+     * @param unitsPerMeter The number of units of the coordinates of the heatmap (e.g. pixels)
+     *                      per meter
+     */
+    public PathLossInterpolator(double minDistance, double unitsPerMeter) {
+        if (!(unitsPerMeter > 0)) {
+            throw new IllegalArgumentException("The units per meter have to be positive!");
+        }
+        this.fitter = new PathLossFitter(minDistance);
+        this.unitsPerMeter = unitsPerMeter;
+    }
+
+    @Override
+    public void prepare(List<WifiMeasurement> measurements, PowerScale powerScale) {
+        List<WifiMeasurement> measurementsInMeters = new ArrayList<>(measurements.size());
+        for (WifiMeasurement measurement : measurements) {
+            WifiMeasurement measurementInMeters = new WifiMeasurement(measurement);
+            measurementInMeters.x /= unitsPerMeter;
+            measurementInMeters.y /= unitsPerMeter;
+            measurementsInMeters.add(measurementInMeters);
+        }
+        model = fitter.fit(measurementsInMeters);
+        this.powerScale = powerScale;
+        maxDbm = MIN_POWER_DBM;
+        for (WifiMeasurement measurement : measurements) {
+            maxDbm = Math.max(maxDbm, UnitConverter.wattsToDbm(measurement.getPower()));
+        }
+    }
+
+    @Override
+    public Evaluator createEvaluator() {
+        if (model == null) {
+            throw new IllegalStateException("The interpolator has to be prepared first!");
+        }
+        PathLossModel model = this.model;
+        PowerScale powerScale = this.powerScale;
+        double maxDbm = this.maxDbm;
+        double metersPerUnit = 1 / unitsPerMeter;
+        return (x, y) -> powerScale.fromDbm(Math.max(MIN_POWER_DBM, Math.min(maxDbm, model.predictDbm(x * metersPerUnit, y * metersPerUnit))));
+    }
+
+    @Override
+    public int getNeighborCount() {
+        // The model is fitted to all measurements
+        return 0;
+    }
+
+    /**
+     * @return The model fitted to the measurements given to {@link #prepare(List, PowerScale)}
+     * or {@code null} if the interpolator hasn't been prepared yet; its coordinates are the
+     * coordinates of the heatmap divided by the units per meter
+     */
+    public PathLossModel getModel() {
+        return model;
+    }
+}
@@ -0,0 +1,86 @@
+package de.eschoenawa.wifiar.heatmap;
+
+import java.util.Locale;
+
+/**
+ * This class represents a log-distance path loss model of a single access point. The power
+ * received at a distance d from the access point is
+ * {@code P(d) = P0 - 10 * n * log10(d)}, where P0 is the power at a distance of one unit of the
+ * coordinates and n is the path loss exponent (2 in free space, higher indoors). To keep the
+ * model finite at the access point the distance never falls below a minimum distance; it is
+ * calculated as {@code d = sqrt(dx^2 + dy^2 + minDistance^2)}.
+ *
+ * @author Emil Schoenawa
+ */
+public class PathLossModel {
+    private final double accessPointX;
+    private final double accessPointY;
+    private final double referencePower;
+    private final double exponent;
+    private final double minDistance;
+    private final double rmsError;
+
+    /**
+     * Creates a new PathLossModel.
+     *
+     * @param accessPointX   The x-coordinate of the access point
+     * @param accessPointY   The y-coordinate of the access point
+     * @param referencePower The power in dBm at a distance of one unit from the access point
+     * @param exponent       The path loss exponent
+     * @param minDistance    The distance to the access point the model assumes at least
+     * @param rmsError       The root mean square deviation (in dB) of the measurements the model
+     *                       was fitted to
+     */
+    public PathLossModel(double accessPointX, double accessPointY, double referencePower, double exponent, double minDistance, double rmsError) {
+        this.accessPointX = accessPointX;
+        this.accessPointY = accessPointY;
+        this.referencePower = referencePower;
+        this.exponent = exponent;
+        this.minDistance = minDistance;
+        this.rmsError = rmsError;
+    }
+
+    /**
+     * Predicts the power received at a point.
+     *
+     * @param x The x-coordinate of the point
+     * @param y The y-coordinate of the point
+     * @return The power in dBm
+     */
+    public double predictDbm(double x, double y) {
+        double deltaX = x - accessPointX;
+        double deltaY = y - accessPointY;
+        // 10 * log10(d) = 5 * log10(d^2), which saves the square root
+        return referencePower - 5 * exponent * Math.log10(deltaX * deltaX + deltaY * deltaY + minDistance * minDistance);
+    }
+
+    public double getAccessPointX() {
+        return accessPointX;
+    }
+
+    public double getAccessPointY() {
+        return accessPointY;
+    }
+
+    public double getReferencePower() {
+        return referencePower;
+    }
+
+    public double getExponent() {
+        return exponent;
+    }
+
+    public double getMinDistance() {
+        return minDistance;
+    }
+
+    public double getRmsError() {
+        return rmsError;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "access point at (%.2f|%.2f), P0 = %.1f dBm, n = %.2f, rms error = %.1f dB",
+                accessPointX, accessPointY, referencePower, exponent, rmsError);
+    }
+}
@@ -0,0 +1,175 @@
+package de.eschoenawa.wifiar.heatmap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * This {@link TileSink} encodes the tiles of a heatmap as a PNG image (8 bit RGBA) while they are
+ * rendered. The tiles of one row of tiles are collected in a strip; as soon as the strip is
+ * complete its pixel rows are compressed and written as IDAT chunks. Therefore only one strip of
+ * the image is held in memory regardless of the image height.
+ *
+ * @author Emil Schoenawa
+ */
+public class PngStripWriter implements TileSink, Closeable {
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+    private static final int BYTES_PER_PIXEL = 4;
+    private static final int MAX_CHUNK_SIZE = 64 * 1024;
+    private static final byte FILTER_NONE = 0;
+
+    private final DataOutputStream out;
+    private int width;
+    private int height;
+    private int[] strip;
+    private int stripY;
+    private int stripHeight;
+    private int rowsWritten;
+    private byte[] rowBuffer;
+    private DeflaterOutputStream imageData;
+
+    /**
+     * Creates a new PngStripWriter. The stream is closed by {@link #close()}.
+     *
+     * @param out The stream to write the PNG image to
+     */
+    public PngStripWriter(OutputStream out) {
+        this.out = new DataOutputStream(out);
+    }
+
+    @Override
+    public void begin(int width, int height) throws IOException {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("A PNG image needs at least one pixel!");
+        }
+        this.width = width;
+        this.height = height;
+        this.rowsWritten = 0;
+        this.rowBuffer = new byte[1 + width * BYTES_PER_PIXEL];
+        out.write(SIGNATURE);
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream headerData = new DataOutputStream(header);
+        headerData.writeInt(width);
+        headerData.writeInt(height);
+        headerData.writeByte(8);    // bit depth
+        headerData.writeByte(6);    // color type RGBA
+        headerData.writeByte(0);    // compression method
+        headerData.writeByte(0);    // filter method
+        headerData.writeByte(0);    // no interlacing
+        writeChunk("IHDR", header.toByteArray(), header.size());
+        imageData = new DeflaterOutputStream(new ImageDataChunkStream(), new Deflater(Deflater.BEST_SPEED), MAX_CHUNK_SIZE);
+    }
+
+    @Override
+    public void writeTile(int originX, int originY, int width, int height, int[] pixels) throws IOException {
+        if (imageData == null) {
+            throw new IllegalStateException("begin() has to be called before writing tiles!");
+        }
+        if (originX == 0) {
+            if (originY != rowsWritten) {
+                throw new IllegalStateException("Tiles have to be written in row-major order!");
+            }
+            stripY = originY;
+            stripHeight = height;
+            if (strip == null || strip.length < this.width * height) {
+                strip = new int[this.width * height];
+            }
+        } else if (originY != stripY || height != stripHeight) {
+            throw new IllegalStateException("Tiles have to be written in row-major order!");
+        }
+        for (int row = 0; row < height; row++) {
+            System.arraycopy(pixels, row * width, strip, row * this.width + originX, width);
+        }
+        if (originX + width == this.width) {
+            writeStrip();
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (rowsWritten != height) {
+            throw new IllegalStateException("Only " + rowsWritten + " of " + height + " rows were written!");
+        }
+        imageData.finish();
+        imageData.flush();
+        writeChunk("IEND", new byte[0], 0);
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void writeStrip() throws IOException {
+        for (int row = 0; row < stripHeight; row++) {
+            rowBuffer[0] = FILTER_NONE;
+            int position = 1;
+            int offset = row * width;
+            for (int x = 0; x < width; x++) {
+                int color = strip[offset + x];
+                rowBuffer[position++] = (byte) (color >> 16);
+                rowBuffer[position++] = (byte) (color >> 8);
+                rowBuffer[position++] = (byte) color;
+                rowBuffer[position++] = (byte) (color >>> 24);
+            }
+            imageData.write(rowBuffer);
+        }
+        rowsWritten += stripHeight;
+    }
+
+    private void writeChunk(String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        out.writeInt(length);
+        out.write(typeBytes);
+        out.write(data, 0, length);
+        out.writeInt((int) crc.getValue());
+    }
+
+    /**
+     * Splits the compressed image data into IDAT chunks.
+     */
+    private class ImageDataChunkStream extends OutputStream {
+        private final byte[] buffer = new byte[MAX_CHUNK_SIZE];
+        private int size;
+
+        @Override
+        public void write(int b) throws IOException {
+            if (size == buffer.length) {
+                flush();
+            }
+            buffer[size++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (size == buffer.length) {
+                    flush();
+                }
+                int count = Math.min(length, buffer.length - size);
+                System.arraycopy(bytes, offset, buffer, size, count);
+                size += count;
+                offset += count;
+                length -= count;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (size > 0) {
+                writeChunk("IDAT", buffer, size);
+                size = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package de.eschoenawa.wifiar.heatmap;
+
+import de.eschoenawa.wifiar.utils.UnitConverter;
+
+/**
+ * This Enum defines the unit the power of the measurements is interpolated and stored in by the
+ * {@link HeatmapGenerator}. The measurements themselves always hold the power in watts, it is
+ * converted once per measurement when the interpolation is prepared.
+ * With {@link #WATTS} the power is interpolated linearly in watts. With {@link #DBM} it is
+ * interpolated in dBm, which is linear in the logarithm of the distance to the access point and
+ * thereby closer to the attenuation of radio signals. Values of such a heatmap are dBm already,
+ * so displaying them doesn't require a logarithm per pixel.
+ *
+ * @author Emil Schoenawa
+ */
+public enum PowerScale {
+    WATTS, DBM;
+
+    /**
+     * Converts a power in watts (like the power of a measurement) to this scale.
+     *
+     * @param watts The power in watts
+     * @return The power in this scale
+     */
+    public double fromWatts(double watts) {
+        return this == DBM ? UnitConverter.wattsToDbm(watts) : watts;
+    }
+
+    /**
+     * Converts a power in dBm (like the RSSI reported by Android) to this scale.
+     *
+     * @param dbm The power in dBm
+     * @return The power in this scale
+     */
+    public double fromDbm(double dbm) {
+        return this == DBM ? dbm : UnitConverter.dbmToWatts(dbm);
+    }
+
+    /**
+     * Converts a value of this scale (like a value of a heatmap) to dBm.
+     *
+     * @param value The power in this scale
+     * @return The power in dBm
+     */
+    public double toDbm(double value) {
+        return this == DBM ? value : UnitConverter.wattsToDbm(value);
+    }
+
+    public static PowerScale getScale(String scaleString) {
+        switch (scaleString) {
+            case "WATTS":
+            default:
+                return WATTS;
+            case "DBM":
+                return DBM;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package de.eschoenawa.wifiar.heatmap;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.github.jdiemke.triangulation.DelaunayTriangulator;
+import io.github.jdiemke.triangulation.NotEnoughPointsException;
+import io.github.jdiemke.triangulation.Triangle2D;
+import io.github.jdiemke.triangulation.Vector2D;
+
+/**
+ * This class triangulates points with the {@link DelaunayTriangulator} library. The library
+ * locates every new point by testing all triangles, so it is slow for many points; it is kept as
+ * the reference the faster {@link SweepHullTriangulator} is compared with.
+ *
+ * @author Emil Schoenawa
+ */
+public class ReferenceTriangulator implements Triangulator {
+
+    @Override
+    public Triangulation triangulate(double[] coordinates) throws NotEnoughPointsException {
+        int pointCount = coordinates.length / 2;
+        List<Vector2D> pointSet = new ArrayList<>(pointCount);
+        Map<Vector2D, Integer> indexOfVertex = new IdentityHashMap<>();
+        for (int i = 0; i < pointCount; i++) {
+            Vector2D vertex = new Vector2D(coordinates[2 * i], coordinates[2 * i + 1]);
+            pointSet.add(vertex);
+            indexOfVertex.put(vertex, i);
+        }
+        DelaunayTriangulator triangulator = new DelaunayTriangulator(pointSet);
+        triangulator.triangulate();
+        List<Triangle2D> result = triangulator.getTriangles();
+        int[] triangles = new int[result.size() * 3];
+        for (int t = 0; t < result.size(); t++) {
+            Triangle2D triangle = result.get(t);
+            triangles[3 * t] = indexOfVertex.get(triangle.a);
+            triangles[3 * t + 1] = indexOfVertex.get(triangle.b);
+            triangles[3 * t + 2] = indexOfVertex.get(triangle.c);
+        }
+        return Triangulation.withComputedNeighbors(coordinates, triangles);
+    }
+}
@@ -0,0 +1,108 @@
+package de.eschoenawa.wifiar.heatmap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.eschoenawa.wifiar.models.Polygon;
+import de.eschoenawa.wifiar.models.Survey;
+import de.eschoenawa.wifiar.models.WifiMeasurement;
+import de.eschoenawa.wifiar.utils.ScaleHelper;
+import io.github.jdiemke.triangulation.Vector2D;
+
+/**
+ * This class prepares the heatmap generation for a {@link Survey}. The heatmap covers the
+ * bounding box of the area and the measurements at the given resolution, just like the heatmap
+ * generated during the AR session.
+ *
+ * @author Emil Schoenawa
+ */
+public class SurveyHeatmapFactory {
+    private final Survey survey;
+    private final int pixelsPerMeter;
+    private double minX = Double.MAX_VALUE;
+    private double minY = Double.MAX_VALUE;
+    private double maxX = -Double.MAX_VALUE;
+    private double maxY = -Double.MAX_VALUE;
+
+    public SurveyHeatmapFactory(Survey survey, int pixelsPerMeter) {
+        if (pixelsPerMeter <= 0) {
+            throw new IllegalArgumentException("Pixels per meter have to be positive!");
+        }
+        this.survey = survey;
+        this.pixelsPerMeter = pixelsPerMeter;
+        List<Vector2D> points = new ArrayList<>(survey.getAreaPoints());
+        points.addAll(survey.getMeasurements());
+        if (points.isEmpty()) {
+            throw new IllegalArgumentException("The survey contains no points!");
+        }
+        for (Vector2D point : points) {
+            minX = Math.min(minX, point.x);
+            minY = Math.min(minY, point.y);
+            maxX = Math.max(maxX, point.x);
+            maxY = Math.max(maxY, point.y);
+        }
+    }
+
+    /**
+     * Creates a {@link HeatmapGenerator} for copies of the measurements of the survey.
+     *
+     * @param externalPointStrategy The {@link HeatmapGenerator.ExternalPointStrategy} to use
+     * @return The HeatmapGenerator
+     */
+    public HeatmapGenerator createHeatmapGenerator(HeatmapGenerator.ExternalPointStrategy externalPointStrategy) {
+        List<WifiMeasurement> measurements = new ArrayList<>(survey.getMeasurements().size());
+        for (WifiMeasurement measurement : survey.getMeasurements()) {
+            WifiMeasurement copy = new WifiMeasurement(measurement);
+            copy.moveTo(toPixels(measurement));
+            measurements.add(copy);
+        }
+        Vector2D zero = new Vector2D(metersToPixels(minX), metersToPixels(minY));
+        return new HeatmapGenerator(metersToPixels(maxX - minX), metersToPixels(maxY - minY), zero, externalPointStrategy, measurements);
+    }
+
+    /**
+     * Creates the area of the survey in the coordinate system of the heatmap.
+     *
+     * @param heatmapGenerator The {@link HeatmapGenerator} created by this factory
+     * @return The area
+     */
+    public Polygon createArea(HeatmapGenerator heatmapGenerator) {
+        Vector2D offset = heatmapGenerator.getOffset();
+        List<Vector2D> points = new ArrayList<>(survey.getAreaPoints().size());
+        for (Vector2D point : survey.getAreaPoints()) {
+            Vector2D pixels = toPixels(point);
+            points.add(new Vector2D(pixels.x + offset.x, pixels.y + offset.y));
+        }
+        return new Polygon(points);
+    }
+
+    /**
+     * @return The position of the top left corner of the heatmap in the coordinate system of the
+     * survey (in meters)
+     */
+    public Vector2D getOrigin() {
+        return new Vector2D(minX, minY);
+    }
+
+    /**
+     * @return The width of the heatmap in meters
+     */
+    public double getWidthInMeters() {
+        return maxX - minX;
+    }
+
+    /**
+     * @return The height of the heatmap in meters
+     */
+    public double getHeightInMeters() {
+        return maxY - minY;
+    }
+
+    private Vector2D toPixels(Vector2D meters) {
+        return new Vector2D(metersToPixels(meters.x), metersToPixels(meters.y));
+    }
+
+    private int metersToPixels(double meters) {
+        return ScaleHelper.metersToPixels(meters, pixelsPerMeter);
+    }
+}
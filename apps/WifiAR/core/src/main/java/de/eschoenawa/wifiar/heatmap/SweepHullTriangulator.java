@@ -0,0 +1,447 @@
+package de.eschoenawa.wifiar.heatmap;
+
+import java.util.Arrays;
+
+import io.github.jdiemke.triangulation.NotEnoughPointsException;
+
+/**
+ * This class computes a Delaunay triangulation with a sweep-hull algorithm (as used by the
+ * Delaunator library). Starting with the triangle around the center of the points, the points are
+ * added in order of their distance to that triangle. Every point lies outside the convex hull of
+ * the points added before, so it only has to be connected to the visible hull edges (found
+ * through a hash of the hull by angle) before the new triangles are legalized by flipping edges.
+ * This takes O(n log n) time instead of the O(n^2) of a triangulation with linear point location.
+ * <p>
+ * Points that coincide with a previously added point are not part of the triangulation.
+ *
+ * @author Emil Schoenawa
+ */
+public class SweepHullTriangulator implements Triangulator {
+    private static final double EPSILON = Math.ulp(1.0) * 2;
+    private static final int EDGE_STACK_SIZE = 512;
+
+    private double[] coordinates;
+    private int[] triangles;
+    private int[] halfEdges;
+    private int trianglesLength;
+    private int[] hullPrev;
+    private int[] hullNext;
+    private int[] hullTri;
+    private int[] hullHash;
+    private int hullStart;
+    private int hashSize;
+    private double centerX;
+    private double centerY;
+    private final int[] edgeStack = new int[EDGE_STACK_SIZE];
+
+    @Override
+    public synchronized Triangulation triangulate(double[] coordinates) throws NotEnoughPointsException {
+        int n = coordinates.length / 2;
+        if (n < 3) {
+            throw new NotEnoughPointsException("Less than three points in point set.");
+        }
+        this.coordinates = coordinates;
+        int maxTriangles = 2 * n - 5;
+        this.triangles = new int[maxTriangles * 3];
+        this.halfEdges = new int[maxTriangles * 3];
+        this.trianglesLength = 0;
+        this.hashSize = (int) Math.ceil(Math.sqrt(n));
+        this.hullPrev = new int[n];
+        this.hullNext = new int[n];
+        this.hullTri = new int[n];
+        this.hullHash = new int[hashSize];
+        try {
+            build(n);
+            int[] resultTriangles = Arrays.copyOf(triangles, trianglesLength);
+            int[] neighbors = new int[trianglesLength];
+            for (int edge = 0; edge < trianglesLength; edge++) {
+                int opposite = halfEdges[edge];
+                neighbors[edge] = opposite == -1 ? Triangulation.NO_NEIGHBOR : opposite / 3;
+            }
+            return new Triangulation(coordinates, resultTriangles, neighbors);
+        } finally {
+            // Don't keep the (possibly large) working arrays alive between triangulations
+            this.coordinates = null;
+            this.triangles = null;
+            this.halfEdges = null;
+            this.hullPrev = null;
+            this.hullNext = null;
+            this.hullTri = null;
+            this.hullHash = null;
+        }
+    }
+
+    private void build(int n) throws NotEnoughPointsException {
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        int[] ids = new int[n];
+        for (int i = 0; i < n; i++) {
+            double x = coordinates[2 * i];
+            double y = coordinates[2 * i + 1];
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+            ids[i] = i;
+        }
+        double boundsCenterX = (minX + maxX) / 2;
+        double boundsCenterY = (minY + maxY) / 2;
+
+        // Pick the seed point closest to the center, its nearest neighbor and the point forming
+        // the smallest circumcircle with them
+        int i0 = 0;
+        int i1 = -1;
+        int i2 = -1;
+        double minDistance = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            double distance = squaredDistance(boundsCenterX, boundsCenterY, x(i), y(i));
+            if (distance < minDistance) {
+                i0 = i;
+                minDistance = distance;
+            }
+        }
+        minDistance = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            if (i == i0) {
+                continue;
+            }
+            double distance = squaredDistance(x(i0), y(i0), x(i), y(i));
+            if (distance < minDistance && distance > 0) {
+                i1 = i;
+                minDistance = distance;
+            }
+        }
+        if (i1 == -1) {
+            throw new NotEnoughPointsException("All points are at the same position.");
+        }
+        double minRadius = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            if (i == i0 || i == i1) {
+                continue;
+            }
+            double radius = circumradius(x(i0), y(i0), x(i1), y(i1), x(i), y(i));
+            if (radius < minRadius) {
+                i2 = i;
+                minRadius = radius;
+            }
+        }
+        if (i2 == -1) {
+            throw new NotEnoughPointsException("All points are on a line.");
+        }
+        if (isCounterClockwise(x(i0), y(i0), x(i1), y(i1), x(i2), y(i2))) {
+            int swap = i1;
+            i1 = i2;
+            i2 = swap;
+        }
+        computeCircumcenter(x(i0), y(i0), x(i1), y(i1), x(i2), y(i2));
+
+        // Sort the points by their distance to the seed circumcenter
+        double[] distances = new double[n];
+        for (int i = 0; i < n; i++) {
+            distances[i] = squaredDistance(x(i), y(i), centerX, centerY);
+        }
+        sort(ids, distances, 0, n - 1);
+
+        // The seed triangle is the initial hull
+        hullStart = i0;
+        hullNext[i0] = hullPrev[i2] = i1;
+        hullNext[i1] = hullPrev[i0] = i2;
+        hullNext[i2] = hullPrev[i1] = i0;
+        hullTri[i0] = 0;
+        hullTri[i1] = 1;
+        hullTri[i2] = 2;
+        Arrays.fill(hullHash, -1);
+        hullHash[hashKey(x(i0), y(i0))] = i0;
+        hullHash[hashKey(x(i1), y(i1))] = i1;
+        hullHash[hashKey(x(i2), y(i2))] = i2;
+        addTriangle(i0, i1, i2, -1, -1, -1);
+
+        double previousX = 0;
+        double previousY = 0;
+        for (int k = 0; k < n; k++) {
+            int i = ids[k];
+            double x = x(i);
+            double y = y(i);
+            // Skip near-duplicate points
+            if (k > 0 && Math.abs(x - previousX) <= EPSILON && Math.abs(y - previousY) <= EPSILON) {
+                continue;
+            }
+            previousX = x;
+            previousY = y;
+            if (i == i0 || i == i1 || i == i2) {
+                continue;
+            }
+
+            // Find a visible edge on the hull using the hash
+            int start = 0;
+            int key = hashKey(x, y);
+            for (int j = 0; j < hashSize; j++) {
+                start = hullHash[(key + j) % hashSize];
+                if (start != -1 && start != hullNext[start]) {
+                    break;
+                }
+            }
+            start = hullPrev[start];
+            int e = start;
+            int q = hullNext[e];
+            while (!isCounterClockwise(x, y, x(e), y(e), x(q), y(q))) {
+                e = q;
+                if (e == start) {
+                    e = -1;
+                    break;
+                }
+                q = hullNext[e];
+            }
+            if (e == -1) {
+                // Likely a near-duplicate point
+                continue;
+            }
+
+            // Add the first triangle from the point and legalize it
+            int t = addTriangle(e, i, hullNext[e], -1, -1, hullTri[e]);
+            hullTri[i] = legalize(t + 2);
+            hullTri[e] = t;
+
+            // Walk forward through the hull adding more triangles
+            int next = hullNext[e];
+            q = hullNext[next];
+            while (isCounterClockwise(x, y, x(next), y(next), x(q), y(q))) {
+                t = addTriangle(next, i, q, hullTri[i], -1, hullTri[next]);
+                hullTri[i] = legalize(t + 2);
+                // Mark as removed from the hull
+                hullNext[next] = next;
+                next = q;
+                q = hullNext[next];
+            }
+
+            // Walk backward from the other side
+            if (e == start) {
+                q = hullPrev[e];
+                while (isCounterClockwise(x, y, x(q), y(q), x(e), y(e))) {
+                    t = addTriangle(q, i, e, -1, hullTri[e], hullTri[q]);
+                    legalize(t + 2);
+                    hullTri[q] = t;
+                    hullNext[e] = e;
+                    e = q;
+                    q = hullPrev[e];
+                }
+            }
+
+            // Update the hull
+            hullStart = hullPrev[i] = e;
+            hullNext[e] = hullPrev[next] = i;
+            hullNext[i] = next;
+            hullHash[hashKey(x, y)] = i;
+            hullHash[hashKey(x(e), y(e))] = e;
+        }
+    }
+
+    /**
+     * Flips the edge a and the edges behind it until all of them satisfy the Delaunay condition.
+     *
+     * @return The edge of the new point's triangle that is opposite to the point's next triangle
+     */
+    private int legalize(int a) {
+        int stackSize = 0;
+        int ar;
+        while (true) {
+            int b = halfEdges[a];
+            int a0 = a - a % 3;
+            ar = a0 + (a + 2) % 3;
+            if (b == -1) {
+                if (stackSize == 0) {
+                    break;
+                }
+                a = edgeStack[--stackSize];
+                continue;
+            }
+            int b0 = b - b % 3;
+            int al = a0 + (a + 1) % 3;
+            int bl = b0 + (b + 2) % 3;
+            int p0 = triangles[ar];
+            int pr = triangles[a];
+            int pl = triangles[al];
+            int p1 = triangles[bl];
+            if (isInCircumcircle(x(p0), y(p0), x(pr), y(pr), x(pl), y(pl), x(p1), y(p1))) {
+                triangles[a] = p1;
+                triangles[b] = p0;
+                int hbl = halfEdges[bl];
+                if (hbl == -1) {
+                    // The flipped edge is on the other side of the hull (rare), fix the reference
+                    int e = hullStart;
+                    do {
+                        if (hullTri[e] == bl) {
+                            hullTri[e] = a;
+                            break;
+                        }
+                        e = hullPrev[e];
+                    } while (e != hullStart);
+                }
+                link(a, hbl);
+                link(b, halfEdges[ar]);
+                link(ar, bl);
+                int br = b0 + (b + 1) % 3;
+                // The stack can only overflow for extremely degenerate input
+                if (stackSize < edgeStack.length) {
+                    edgeStack[stackSize++] = br;
+                }
+            } else {
+                if (stackSize == 0) {
+                    break;
+                }
+                a = edgeStack[--stackSize];
+            }
+        }
+        return ar;
+    }
+
+    private int addTriangle(int i0, int i1, int i2, int a, int b, int c) {
+        int t = trianglesLength;
+        triangles[t] = i0;
+        triangles[t + 1] = i1;
+        triangles[t + 2] = i2;
+        link(t, a);
+        link(t + 1, b);
+        link(t + 2, c);
+        trianglesLength += 3;
+        return t;
+    }
+
+    private void link(int a, int b) {
+        halfEdges[a] = b;
+        if (b != -1) {
+            halfEdges[b] = a;
+        }
+    }
+
+    /**
+     * Maps a point to a bucket of the hull hash by its (monotonic pseudo-)angle around the
+     * center.
+     */
+    private int hashKey(double x, double y) {
+        double dx = x - centerX;
+        double dy = y - centerY;
+        double p = dx / (Math.abs(dx) + Math.abs(dy));
+        double angle = (dy > 0 ? 3 - p : 1 + p) / 4;
+        return (int) Math.floor(angle * hashSize) % hashSize;
+    }
+
+    private double x(int point) {
+        return coordinates[2 * point];
+    }
+
+    private double y(int point) {
+        return coordinates[2 * point + 1];
+    }
+
+    private void computeCircumcenter(double ax, double ay, double bx, double by, double cx, double cy) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double ex = cx - ax;
+        double ey = cy - ay;
+        double bl = dx * dx + dy * dy;
+        double cl = ex * ex + ey * ey;
+        double d = 0.5 / (dx * ey - dy * ex);
+        centerX = ax + (ey * bl - dy * cl) * d;
+        centerY = ay + (dx * cl - ex * bl) * d;
+    }
+
+    private static double circumradius(double ax, double ay, double bx, double by, double cx, double cy) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double ex = cx - ax;
+        double ey = cy - ay;
+        double bl = dx * dx + dy * dy;
+        double cl = ex * ex + ey * ey;
+        double d = 0.5 / (dx * ey - dy * ex);
+        double x = (ey * bl - dy * cl) * d;
+        double y = (dx * cl - ex * bl) * d;
+        return x * x + y * y;
+    }
+
+    private static double squaredDistance(double ax, double ay, double bx, double by) {
+        double dx = ax - bx;
+        double dy = ay - by;
+        return dx * dx + dy * dy;
+    }
+
+    private static boolean isCounterClockwise(double px, double py, double qx, double qy, double rx, double ry) {
+        return (qy - py) * (rx - qx) - (qx - px) * (ry - qy) < 0;
+    }
+
+    private static boolean isInCircumcircle(double ax, double ay, double bx, double by, double cx, double cy, double px, double py) {
+        double dx = ax - px;
+        double dy = ay - py;
+        double ex = bx - px;
+        double ey = by - py;
+        double fx = cx - px;
+        double fy = cy - py;
+        double ap = dx * dx + dy * dy;
+        double bp = ex * ex + ey * ey;
+        double cp = fx * fx + fy * fy;
+        return dx * (ey * cp - bp * fy) - dy * (ex * cp - bp * fx) + ap * (ex * fy - ey * fx) < 0;
+    }
+
+    /**
+     * Sorts the ids by their distance with a quicksort that uses insertion sort for small ranges.
+     */
+    private static void sort(int[] ids, double[] distances, int left, int right) {
+        while (right - left > 20) {
+            int median = (left + right) >>> 1;
+            int i = left + 1;
+            int j = right;
+            swap(ids, median, i);
+            if (distances[ids[left]] > distances[ids[right]]) {
+                swap(ids, left, right);
+            }
+            if (distances[ids[i]] > distances[ids[right]]) {
+                swap(ids, i, right);
+            }
+            if (distances[ids[left]] > distances[ids[i]]) {
+                swap(ids, left, i);
+            }
+            int pivot = ids[i];
+            double pivotDistance = distances[pivot];
+            while (true) {
+                do {
+                    i++;
+                } while (distances[ids[i]] < pivotDistance);
+                do {
+                    j--;
+                } while (distances[ids[j]] > pivotDistance);
+                if (j < i) {
+                    break;
+                }
+                swap(ids, i, j);
+            }
+            ids[left + 1] = ids[j];
+            ids[j] = pivot;
+            // Recurse into the smaller part to bound the stack depth
+            if (right - i + 1 >= j - left) {
+                sort(ids, distances, i, right);
+                right = j - 1;
+            } else {
+                sort(ids, distances, left, j - 1);
+                left = i;
+            }
+        }
+        for (int i = left + 1; i <= right; i++) {
+            int id = ids[i];
+            double distance = distances[id];
+            int j = i - 1;
+            while (j >= left && distances[ids[j]] > distance) {
+                ids[j + 1] = ids[j];
+                j--;
+            }
+            ids[j + 1] = id;
+        }
+    }
+
+    private static void swap(int[] array, int i, int j) {
+        int tmp = array[i];
+        array[i] = array[j];
+        array[j] = tmp;
+    }
+}
@@ -0,0 +1,41 @@
+package de.eschoenawa.wifiar.heatmap;
+
+import java.io.IOException;
+
+/**
+ * A TileSink receives the colored tiles of a heatmap image that is rendered tile by tile (for
+ * example to encode or cache them). Tiles are delivered in row-major order: all tiles of a row of
+ * tiles from left to right before the first tile of the next row.
+ *
+ * @author Emil Schoenawa
+ */
+public interface TileSink {
+    /**
+     * Called once before the first tile is delivered.
+     *
+     * @param width  The width of the whole image
+     * @param height The height of the whole image
+     * @throws IOException If the sink can't be prepared
+     */
+    void begin(int width, int height) throws IOException;
+
+    /**
+     * Called for every tile of the image.
+     *
+     * @param originX The x-coordinate of the top left pixel of the tile in the image
+     * @param originY The y-coordinate of the top left pixel of the tile in the image
+     * @param width   The width of the tile
+     * @param height  The height of the tile
+     * @param pixels  The ARGB colors of the tile in row-major order (the array is reused after
+     *                this method returns)
+     * @throws IOException If the tile can't be processed
+     */
+    void writeTile(int originX, int originY, int width, int height, int[] pixels) throws IOException;
+
+    /**
+     * Called once after the last tile was delivered.
+     *
+     * @throws IOException If the sink can't be completed
+     */
+    void finish() throws IOException;
+}
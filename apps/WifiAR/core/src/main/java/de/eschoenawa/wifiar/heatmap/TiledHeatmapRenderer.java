@@ -0,0 +1,119 @@
+package de.eschoenawa.wifiar.heatmap;
+
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+
+import de.eschoenawa.wifiar.models.Polygon;
+import de.eschoenawa.wifiar.models.PolygonMask;
+import de.eschoenawa.wifiar.utils.concurrent.CancellationToken;
+import de.eschoenawa.wifiar.utils.concurrent.JobExecutor;
+import io.github.jdiemke.triangulation.NotEnoughPointsException;
+
+/**
+ * This class renders a heatmap image tile by tile for areas that are too large to be held in
+ * memory as a whole. The triangulation is shared by all tiles while interpolation, coloring and
+ * encoding (by the {@link TileSink}) happen per tile, so the memory required stays bounded by the
+ * tile size and the width of the heatmap.
+ *
+ * @author Emil Schoenawa
+ */
+public class TiledHeatmapRenderer {
+    private HeatmapGenerator heatmapGenerator;
+    private Polygon area;
+    private HeatmapColorizer colorizer;
+    private int tileSize;
+    private TiledHeatmapRendererCallback callback;
+
+    /**
+     * Creates a new TiledHeatmapRenderer.
+     *
+     * @param heatmapGenerator The {@link HeatmapGenerator} to interpolate the tiles with; it must
+     *                         not have generated a heatmap yet
+     * @param area             The area as a {@link Polygon} in which the image should have color
+     *                         (pixels outside this area will be transparent)
+     * @param colorSelector    The {@link ColorSelector} to use for value to color resolution
+     * @param tileSize         The maximum width and height of a tile in pixels
+     */
+    public TiledHeatmapRenderer(HeatmapGenerator heatmapGenerator, Polygon area, ColorSelector colorSelector, int tileSize) {
+        this.heatmapGenerator = heatmapGenerator;
+        this.area = area;
+        this.colorizer = new HeatmapColorizer(colorSelector);
+        this.tileSize = tileSize;
+    }
+
+    /**
+     * Renders the heatmap and delivers the colored tiles to the sink.
+     *
+     * @param sink The {@link TileSink} that receives the tiles
+     * @throws NotEnoughPointsException If not enough measurements were made
+     * @throws IOException              If the sink fails
+     */
+    public void render(TileSink sink) throws NotEnoughPointsException, IOException {
+        render(sink, CancellationToken.NONE);
+    }
+
+    /**
+     * Renders the heatmap like {@link #render(TileSink)}, but stops as soon as the given token is
+     * cancelled. The sink isn't finished in that case.
+     *
+     * @param sink              The {@link TileSink} that receives the tiles
+     * @param cancellationToken The token to stop the rendering with
+     * @throws NotEnoughPointsException If not enough measurements were made
+     * @throws IOException              If the sink fails
+     * @throws CancellationException    If the token has been cancelled
+     */
+    public void render(TileSink sink, CancellationToken cancellationToken) throws NotEnoughPointsException, IOException {
+        int width = heatmapGenerator.getWidth();
+        int height = heatmapGenerator.getHeight();
+        long tiles = (long) ((width + tileSize - 1) / tileSize) * ((height + tileSize - 1) / tileSize);
+        long[] tilesDone = new long[1];
+        int[] pixels = new int[tileSize * tileSize];
+        // Pixels outside the area are neither interpolated nor colored
+        heatmapGenerator.setArea(area);
+        PolygonMask areaMask = heatmapGenerator.getAreaMask();
+        sink.begin(width, height);
+        heatmapGenerator.generateHeatmapTiles(tileSize, (originX, originY, tile) -> {
+            colorizer.colorRows(tile, originX, originY, areaMask, 0, tile.getHeight(), pixels, 0);
+            sink.writeTile(originX, originY, tile.getWidth(), tile.getHeight(), pixels);
+            tilesDone[0]++;
+            if (callback != null) {
+                callback.onTileProgress((double) tilesDone[0] / tiles * 100);
+            }
+        }, cancellationToken);
+        sink.finish();
+    }
+
+    /**
+     * Renders the heatmap on the {@link JobExecutor}. If the token is cancelled the rendering stops
+     * and the callback receives a {@link CancellationException} as error, so the sink can be
+     * released.
+     *
+     * @param sink              The {@link TileSink} that receives the tiles
+     * @param cancellationToken The token to stop the rendering with
+     * @param callback          The callback to notify of the progress and the result
+     */
+    public void renderAsync(TileSink sink, CancellationToken cancellationToken, TiledHeatmapRendererCallback callback) {
+        this.callback = callback;
+        JobExecutor.getInstance().execute(() -> {
+            try {
+                cancellationToken.throwIfCancelled();
+                render(sink, cancellationToken);
+                if (callback != null) {
+                    callback.onTilesFinished();
+                }
+            } catch (Exception e) {
+                if (callback != null) {
+                    callback.onTilesError(e);
+                }
+            }
+        });
+    }
+
+    public interface TiledHeatmapRendererCallback {
+        void onTileProgress(double percentage);
+
+        void onTilesFinished();
+
+        void onTilesError(Exception exception);
+    }
+}
@@ -0,0 +1,111 @@
+package de.eschoenawa.wifiar.heatmap;
+
+/**
+ * This class finds the triangle of a {@link Triangulation} that contains a point by walking
+ * through the triangulation: starting at the triangle found last, it steps over every edge the
+ * point lies behind until it reaches a triangle that contains the point. Consecutive queries for
+ * nearby points (like the pixels of a row) only take a few steps this way, so the lookup takes
+ * constant time amortised instead of testing all triangles.
+ * <p>
+ * A locator remembers the last triangle found, so it must only be used by one thread at a time.
+ * Every worker should use its own locator.
+ *
+ * @author Emil Schoenawa
+ */
+public class TriangleLocator {
+    public static final int NOT_FOUND = -1;
+
+    private final Triangulation triangulation;
+    private int lastTriangle;
+
+    /**
+     * Creates a new TriangleLocator.
+     *
+     * @param triangulation The triangulation to find triangles in
+     */
+    public TriangleLocator(Triangulation triangulation) {
+        this.triangulation = triangulation;
+        this.lastTriangle = 0;
+    }
+
+    /**
+     * Finds the triangle containing the point. Points on an edge belong to either of the
+     * triangles sharing it.
+     *
+     * @param x The x-coordinate of the point
+     * @param y The y-coordinate of the point
+     * @return The index of the triangle or {@link #NOT_FOUND} if the point is outside of the
+     * triangulation
+     */
+    public int locate(double x, double y) {
+        int triangleCount = triangulation.getTriangleCount();
+        if (triangleCount == 0) {
+            return NOT_FOUND;
+        }
+        int triangle = lastTriangle;
+        // A walk in a Delaunay triangulation always terminates, the limit only protects against
+        // cycles caused by rounding errors or degenerate triangles
+        for (int steps = 0; steps <= triangleCount; steps++) {
+            double orientation = orientationOfTriangle(triangle);
+            if (orientation == 0 || Double.isNaN(orientation)) {
+                break;
+            }
+            int next = triangle;
+            // Start with a different edge every step, so the walk can't keep circling
+            for (int i = 0; i < 3; i++) {
+                int edge = (i + steps) % 3;
+                if (orientationOfEdge(triangle, edge, x, y) * orientation < 0) {
+                    next = triangulation.getNeighbor(triangle, edge);
+                    break;
+                }
+            }
+            if (next == triangle) {
+                lastTriangle = triangle;
+                return triangle;
+            }
+            if (next == Triangulation.NO_NEIGHBOR) {
+                // The triangulation is convex, so the point is outside of it
+                return NOT_FOUND;
+            }
+            triangle = next;
+        }
+        return scan(x, y);
+    }
+
+    /**
+     * Tests all triangles. Only used if the walk fails.
+     */
+    private int scan(double x, double y) {
+        for (int triangle = 0; triangle < triangulation.getTriangleCount(); triangle++) {
+            double orientation = orientationOfTriangle(triangle);
+            if (orientation == 0 || Double.isNaN(orientation)) {
+                continue;
+            }
+            boolean contains = true;
+            for (int edge = 0; edge < 3 && contains; edge++) {
+                contains = orientationOfEdge(triangle, edge, x, y) * orientation >= 0;
+            }
+            if (contains) {
+                lastTriangle = triangle;
+                return triangle;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    private double orientationOfTriangle(int triangle) {
+        int c = triangulation.getVertex(triangle, 2);
+        return orientationOfEdge(triangle, 0, triangulation.getX(c), triangulation.getY(c));
+    }
+
+    /**
+     * @return Twice the signed area of the triangle formed by the edge and the point
+     */
+    private double orientationOfEdge(int triangle, int edge, double x, double y) {
+        int from = triangulation.getVertex(triangle, edge);
+        int to = triangulation.getVertex(triangle, (edge + 1) % 3);
+        double fromX = triangulation.getX(from);
+        double fromY = triangulation.getY(from);
+        return (triangulation.getX(to) - fromX) * (y - fromY) - (triangulation.getY(to) - fromY) * (x - fromX);
+    }
+}
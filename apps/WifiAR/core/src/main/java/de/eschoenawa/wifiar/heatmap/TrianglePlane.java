@@ -0,0 +1,86 @@
+package de.eschoenawa.wifiar.heatmap;
+
+import de.eschoenawa.wifiar.models.WifiMeasurement;
+
+/**
+ * This class represents the plane through the three measurements of a triangle. Barycentric
+ * interpolation inside a triangle is linear in x and y, so the coefficients of the plane equation
+ * {@code value = a * x + b * y + c} are computed once from the signed area (determinant) of the
+ * triangle. Afterwards the value at any point is determined without allocations or square roots.
+ *
+ * @author Emil Schoenawa
+ */
+public class TrianglePlane {
+    private final double a;
+    private final double b;
+    private final double c;
+
+    /**
+     * Creates the plane through the powers (in watts) of the given measurements. If the
+     * measurements don't span a triangle (all on one line) the plane is flat and has the average
+     * power of the measurements everywhere.
+     *
+     * @param wifiMeasurementA One of the measurements
+     * @param wifiMeasurementB One of the measurements
+     * @param wifiMeasurementC One of the measurements
+     */
+    public TrianglePlane(WifiMeasurement wifiMeasurementA, WifiMeasurement wifiMeasurementB, WifiMeasurement wifiMeasurementC) {
+        this(wifiMeasurementA, wifiMeasurementB, wifiMeasurementC, PowerScale.WATTS);
+    }
+
+    /**
+     * Creates the plane through the powers of the given measurements converted to the given
+     * {@link PowerScale}. If the measurements don't span a triangle (all on one line) the plane
+     * is flat and has the average power of the measurements everywhere.
+     *
+     * @param wifiMeasurementA One of the measurements
+     * @param wifiMeasurementB One of the measurements
+     * @param wifiMeasurementC One of the measurements
+     * @param powerScale       The scale the plane interpolates the power in
+     */
+    public TrianglePlane(WifiMeasurement wifiMeasurementA, WifiMeasurement wifiMeasurementB, WifiMeasurement wifiMeasurementC, PowerScale powerScale) {
+        double x1 = wifiMeasurementB.x - wifiMeasurementA.x;
+        double y1 = wifiMeasurementB.y - wifiMeasurementA.y;
+        double x2 = wifiMeasurementC.x - wifiMeasurementA.x;
+        double y2 = wifiMeasurementC.y - wifiMeasurementA.y;
+        double p0 = powerScale.fromWatts(wifiMeasurementA.getPower());
+        double p1 = powerScale.fromWatts(wifiMeasurementB.getPower()) - p0;
+        double p2 = powerScale.fromWatts(wifiMeasurementC.getPower()) - p0;
+        // Twice the signed area of the triangle
+        double determinant = x1 * y2 - x2 * y1;
+        if (determinant == 0 || Double.isNaN(determinant)) {
+            this.a = 0;
+            this.b = 0;
+            this.c = (3 * p0 + p1 + p2) / 3;
+        } else {
+            this.a = (p1 * y2 - p2 * y1) / determinant;
+            this.b = (p2 * x1 - p1 * x2) / determinant;
+            this.c = p0 - a * wifiMeasurementA.x - b * wifiMeasurementA.y;
+        }
+    }
+
+    /**
+     * Determines the value of the plane at the given point.
+     *
+     * @param x The x-coordinate of the point
+     * @param y The y-coordinate of the point
+     * @return The interpolated value
+     */
+    public double valueAt(double x, double y) {
+        return a * x + b * y + c;
+    }
+
+    /**
+     * @return The change of the value per step in x-direction
+     */
+    public double getStepX() {
+        return a;
+    }
+
+    /**
+     * @return The change of the value per step in y-direction
+     */
+    public double getStepY() {
+        return b;
+    }
+}
@@ -0,0 +1,190 @@
+package de.eschoenawa.wifiar.heatmap;
+
+import io.github.jdiemke.triangulation.Vector2D;
+
+/**
+ * This class rasterizes triangles onto the integer pixel grid of a heatmap. Each triangle is
+ * walked row by row (scanline) and for every row the span of covered pixels is determined by
+ * evaluating the edge functions of the triangle. Pixels lying exactly on an edge are assigned by
+ * the top-left fill rule: an edge only owns the pixels on it if it is a "top" or "left" edge of
+ * its triangle. As neighbouring triangles traverse a shared edge in opposite directions, every
+ * pixel of a gap-free triangulation is covered by exactly one triangle.
+ *
+ * @author Emil Schoenawa
+ */
+public class TriangleRasterizer {
+
+    private TriangleRasterizer() {
+    }
+
+    /**
+     * Rasterizes the triangle spanned by the given vertices and reports every covered pixel row as
+     * a span to the consumer. Only pixels inside {@code [0, width[ x [0, height[} are reported.
+     *
+     * @param a        One of the vertices
+     * @param b        One of the vertices
+     * @param c        One of the vertices
+     * @param width    The width of the pixel grid
+     * @param height   The height of the pixel grid
+     * @param consumer The {@link SpanConsumer} that receives the covered spans
+     */
+    public static void rasterize(Vector2D a, Vector2D b, Vector2D c, int width, int height, SpanConsumer consumer) {
+        rasterize(a, b, c, 0, 0, width, height, consumer);
+    }
+
+    /**
+     * Rasterizes the triangle spanned by the given vertices and reports every covered pixel row as
+     * a span to the consumer. Only pixels inside {@code [minX, maxX[ x [minY, maxY[} are reported.
+     *
+     * @param a        One of the vertices
+     * @param b        One of the vertices
+     * @param c        One of the vertices
+     * @param minX     The smallest x-coordinate to report (inclusive)
+     * @param minY     The smallest y-coordinate to report (inclusive)
+     * @param maxX     The highest x-coordinate to report (exclusive)
+     * @param maxY     The highest y-coordinate to report (exclusive)
+     * @param consumer The {@link SpanConsumer} that receives the covered spans
+     */
+    public static void rasterize(Vector2D a, Vector2D b, Vector2D c, int minX, int minY, int maxX, int maxY, SpanConsumer consumer) {
+        double orientation = (b.x - a.x) * (c.y - a.y) - (b.y - a.y) * (c.x - a.x);
+        if (orientation == 0 || Double.isNaN(orientation)) {
+            // Degenerate triangles don't cover any area
+            return;
+        }
+        if (orientation < 0) {
+            Vector2D swap = b;
+            b = c;
+            c = swap;
+        }
+        Edge ab = new Edge(a, b);
+        Edge bc = new Edge(b, c);
+        Edge ca = new Edge(c, a);
+
+        int startY = Math.max(minY, (int) Math.ceil(Math.min(a.y, Math.min(b.y, c.y))));
+        int endY = Math.min(maxY - 1, (int) Math.floor(Math.max(a.y, Math.max(b.y, c.y))));
+        int boundsStartX = Math.max(minX, (int) Math.ceil(Math.min(a.x, Math.min(b.x, c.x))));
+        int boundsEndX = Math.min(maxX, (int) Math.floor(Math.max(a.x, Math.max(b.x, c.x))) + 1);
+        for (int y = startY; y <= endY; y++) {
+            int[] span = {boundsStartX, boundsEndX};
+            if (ab.clip(y, span) && bc.clip(y, span) && ca.clip(y, span) && span[0] < span[1]) {
+                consumer.onSpan(y, span[0], span[1]);
+            }
+        }
+    }
+
+    /**
+     * Checks whether the pixel at the given position is covered by the triangle according to the
+     * same rules used by {@link #rasterize(Vector2D, Vector2D, Vector2D, int, int, SpanConsumer)}.
+     *
+     * @param a One of the vertices
+     * @param b One of the vertices
+     * @param c One of the vertices
+     * @param x The x-coordinate of the pixel
+     * @param y The y-coordinate of the pixel
+     * @return true if the pixel belongs to the triangle, false otherwise
+     */
+    public static boolean covers(Vector2D a, Vector2D b, Vector2D c, int x, int y) {
+        double orientation = (b.x - a.x) * (c.y - a.y) - (b.y - a.y) * (c.x - a.x);
+        if (orientation == 0 || Double.isNaN(orientation)) {
+            return false;
+        }
+        if (orientation < 0) {
+            Vector2D swap = b;
+            b = c;
+            c = swap;
+        }
+        return new Edge(a, b).covers(x, y) && new Edge(b, c).covers(x, y) && new Edge(c, a).covers(x, y);
+    }
+
+    /**
+     * An edge of a positively oriented triangle. The edge function is always evaluated with the
+     * endpoints in a canonical order so that two triangles sharing this edge compute bit-identical
+     * values with opposite signs. This makes the assignment of pixels on the edge exact.
+     */
+    private static class Edge {
+        private final double originX;
+        private final double originY;
+        private final double deltaX;
+        private final double deltaY;
+        private final boolean flipped;
+        private final boolean inclusive;
+        // Slope of the edge function in x-direction (for the oriented edge)
+        private final double stepX;
+
+        Edge(Vector2D from, Vector2D to) {
+            this.flipped = from.x > to.x || (from.x == to.x && from.y > to.y);
+            Vector2D origin = flipped ? to : from;
+            Vector2D target = flipped ? from : to;
+            this.originX = origin.x;
+            this.originY = origin.y;
+            this.deltaX = target.x - origin.x;
+            this.deltaY = target.y - origin.y;
+            double orientedDeltaX = to.x - from.x;
+            double orientedDeltaY = to.y - from.y;
+            // Top-left rule: exactly one of the two directions of an edge is inclusive
+            this.inclusive = orientedDeltaY < 0 || (orientedDeltaY == 0 && orientedDeltaX > 0);
+            this.stepX = -orientedDeltaY;
+        }
+
+        double evaluate(double x, double y) {
+            double value = deltaX * (y - originY) - deltaY * (x - originX);
+            return flipped ? -value : value;
+        }
+
+        boolean covers(int x, int y) {
+            double value = evaluate(x, y);
+            return value > 0 || (value == 0 && inclusive);
+        }
+
+        /**
+         * Narrows the given span {@code [span[0], span[1][} to the pixels of row y covered by this
+         * edge. The crossing is estimated analytically and corrected by evaluating the edge function
+         * at the neighbouring pixels so rounding can never produce gaps or overlaps.
+         *
+         * @return false if no pixel in the row is covered, true otherwise
+         */
+        boolean clip(int y, int[] span) {
+            if (stepX == 0) {
+                return covers(span[0], y);
+            }
+            // Edge function is zero at this x in the current row
+            double crossing = (deltaX * (y - originY) + deltaY * originX) / deltaY;
+            if (stepX > 0) {
+                // Covered pixels are right of the crossing
+                int start = Math.max(span[0], (int) Math.ceil(crossing));
+                while (start > span[0] && covers(start - 1, y)) {
+                    start--;
+                }
+                while (start < span[1] && !covers(start, y)) {
+                    start++;
+                }
+                span[0] = start;
+            } else {
+                // Covered pixels are left of the crossing
+                int end = Math.min(span[1], (int) Math.floor(crossing) + 1);
+                while (end < span[1] && covers(end, y)) {
+                    end++;
+                }
+                while (end > span[0] && !covers(end - 1, y)) {
+                    end--;
+                }
+                span[1] = end;
+            }
+            return span[0] < span[1];
+        }
+    }
+
+    /**
+     * Receives the pixel spans covered by a rasterized triangle.
+     */
+    public interface SpanConsumer {
+        /**
+         * Called for every row of a triangle that covers at least one pixel.
+         *
+         * @param y      The row
+         * @param startX The first covered x-coordinate (inclusive)
+         * @param endX   The last covered x-coordinate (exclusive)
+         */
+        void onSpan(int y, int startX, int endX);
+    }
+}
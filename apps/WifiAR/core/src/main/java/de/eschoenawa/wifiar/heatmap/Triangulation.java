@@ -0,0 +1,109 @@
+package de.eschoenawa.wifiar.heatmap;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class is the result of a {@link Triangulator}. Triangles are stored as the indices of
+ * their vertices in a flat array, triangle t consists of the points at {@code 3 * t},
+ * {@code 3 * t + 1} and {@code 3 * t + 2}. Edge i of a triangle leads from its vertex i to vertex
+ * {@code (i + 1) % 3}; for every edge the triangle on the other side of it is known, which allows
+ * walking through the triangulation.
+ *
+ * @author Emil Schoenawa
+ */
+public class Triangulation {
+    public static final int NO_NEIGHBOR = -1;
+
+    private final double[] coordinates;
+    private final int[] triangles;
+    private final int[] neighbors;
+
+    /**
+     * Creates a new Triangulation.
+     *
+     * @param coordinates The coordinates of the points (x and y interleaved)
+     * @param triangles   The vertex indices of the triangles, three per triangle
+     * @param neighbors   The triangle across each edge of each triangle or {@link #NO_NEIGHBOR}
+     *                    if the edge is part of the convex hull
+     */
+    public Triangulation(double[] coordinates, int[] triangles, int[] neighbors) {
+        this.coordinates = coordinates;
+        this.triangles = triangles;
+        this.neighbors = neighbors;
+    }
+
+    /**
+     * Creates a Triangulation and determines the neighbors of the triangles by matching their
+     * edges.
+     *
+     * @param coordinates The coordinates of the points (x and y interleaved)
+     * @param triangles   The vertex indices of the triangles, three per triangle
+     * @return The triangulation including the neighbors
+     */
+    public static Triangulation withComputedNeighbors(double[] coordinates, int[] triangles) {
+        int pointCount = coordinates.length / 2;
+        int[] neighbors = new int[triangles.length];
+        Map<Long, Integer> edges = new HashMap<>();
+        for (int edge = 0; edge < triangles.length; edge++) {
+            neighbors[edge] = NO_NEIGHBOR;
+            int from = triangles[edge];
+            int to = triangles[edge - edge % 3 + (edge + 1) % 3];
+            // The key doesn't depend on the direction, the triangles may be oriented differently
+            long key = (long) Math.min(from, to) * pointCount + Math.max(from, to);
+            Integer opposite = edges.remove(key);
+            if (opposite != null) {
+                neighbors[edge] = opposite / 3;
+                neighbors[opposite] = edge / 3;
+            } else {
+                edges.put(key, edge);
+            }
+        }
+        return new Triangulation(coordinates, triangles, neighbors);
+    }
+
+    public int getTriangleCount() {
+        return triangles.length / 3;
+    }
+
+    public int getPointCount() {
+        return coordinates.length / 2;
+    }
+
+    /**
+     * @return The index of vertex i (0 to 2) of the given triangle
+     */
+    public int getVertex(int triangle, int i) {
+        return triangles[3 * triangle + i];
+    }
+
+    /**
+     * @return The triangle sharing edge i (from vertex i to vertex (i + 1) % 3) with the given
+     * triangle or {@link #NO_NEIGHBOR}
+     */
+    public int getNeighbor(int triangle, int i) {
+        return neighbors[3 * triangle + i];
+    }
+
+    public double getX(int point) {
+        return coordinates[2 * point];
+    }
+
+    public double getY(int point) {
+        return coordinates[2 * point + 1];
+    }
+
+    /**
+     * @return The vertex indices of all triangles (not a copy)
+     */
+    public int[] getTriangles() {
+        return triangles;
+    }
+
+    /**
+     * @return The neighbors of all triangles, indexed like {@link #getTriangles()} (not a copy)
+     */
+    public int[] getNeighbors() {
+        return neighbors;
+    }
+}
@@ -0,0 +1,21 @@
+package de.eschoenawa.wifiar.heatmap;
+
+import io.github.jdiemke.triangulation.NotEnoughPointsException;
+
+/**
+ * This interface represents an algorithm computing the Delaunay triangulation of a set of points.
+ *
+ * @author Emil Schoenawa
+ */
+public interface Triangulator {
+    /**
+     * Triangulates the given points.
+     *
+     * @param coordinates The coordinates of the points, the x-coordinate of point i is at index
+     *                    {@code 2 * i}, the y-coordinate at index {@code 2 * i + 1}
+     * @return The triangulation referencing the points by their index
+     * @throws NotEnoughPointsException If the points can't be triangulated (less than three
+     *                                  points or all points on a line)
+     */
+    Triangulation triangulate(double[] coordinates) throws NotEnoughPointsException;
+}
@@ -0,0 +1,123 @@
+package de.eschoenawa.wifiar.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import io.github.jdiemke.triangulation.Vector2D;
+
+public class Polygon {
+    private List<Vector2D> points;
+
+    public Polygon(List<Vector2D> points) {
+        this.points = points;
+    }
+
+    public boolean isPointInPolygon(Vector2D point) {
+        int i;
+        int j;
+        boolean result = false;
+        for (i = 0, j = points.size() - 1; i < points.size(); j = i++) {
+            Vector2D pointI = points.get(i);
+            Vector2D pointJ = points.get(j);
+            if ((pointI.y > point.y) != (pointJ.y > point.y) &&
+                    (point.x < (pointJ.x - pointI.x) * (point.y - pointI.y) / (pointJ.y - pointI.y) + pointI.x)) {
+                result = !result;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Rasterizes this polygon onto a pixel grid using a scanline fill with an active edge table.
+     * A pixel is inside the resulting {@link PolygonMask} exactly if
+     * {@link #isPointInPolygon(Vector2D)} returns true for its integer coordinates, but the
+     * polygon is only traversed once per row instead of once per pixel.
+     *
+     * @param width  The width of the grid
+     * @param height The height of the grid
+     * @return The {@link PolygonMask} containing the pixels inside this polygon
+     */
+    public PolygonMask createMask(int width, int height) {
+        // Edges are kept in the same order (i, j) as in isPointInPolygon so the crossings are
+        // computed with bit-identical arithmetic
+        List<MaskEdge> edges = new ArrayList<>();
+        for (int i = 0, j = points.size() - 1; i < points.size(); j = i++) {
+            Vector2D pointI = points.get(i);
+            Vector2D pointJ = points.get(j);
+            if (pointI.y != pointJ.y) {
+                edges.add(new MaskEdge(pointI, pointJ));
+            }
+        }
+        edges.sort(Comparator.comparingInt(edge -> edge.firstRow));
+
+        int[] rowOffsets = new int[height + 1];
+        int[] spans = new int[16];
+        int spanValues = 0;
+        List<MaskEdge> activeEdges = new ArrayList<>();
+        double[] crossings = new double[Math.max(1, edges.size())];
+        int nextEdge = 0;
+        for (int y = 0; y < height; y++) {
+            while (nextEdge < edges.size() && edges.get(nextEdge).firstRow <= y) {
+                activeEdges.add(edges.get(nextEdge++));
+            }
+            int crossingCount = 0;
+            for (int e = activeEdges.size() - 1; e >= 0; e--) {
+                MaskEdge edge = activeEdges.get(e);
+                if (edge.lastRow < y) {
+                    activeEdges.remove(e);
+                } else if (edge.firstRow <= y) {
+                    crossings[crossingCount++] = edge.crossingAt(y);
+                }
+            }
+            Arrays.sort(crossings, 0, crossingCount);
+            // Pixels between an even and the following odd crossing are inside; a pixel at x is
+            // left of a crossing c exactly if x < ceil(c)
+            for (int c = 0; c + 1 < crossingCount; c += 2) {
+                int start = Math.max(0, (int) Math.ceil(crossings[c]));
+                int end = Math.min(width, (int) Math.ceil(crossings[c + 1]));
+                if (start >= end) {
+                    continue;
+                }
+                if (spanValues > rowOffsets[y] && spans[spanValues - 1] == start) {
+                    // Merge touching spans
+                    spans[spanValues - 1] = end;
+                    continue;
+                }
+                if (spanValues + 2 > spans.length) {
+                    spans = Arrays.copyOf(spans, spans.length * 2);
+                }
+                spans[spanValues++] = start;
+                spans[spanValues++] = end;
+            }
+            rowOffsets[y + 1] = spanValues;
+        }
+        return new PolygonMask(width, height, rowOffsets, Arrays.copyOf(spans, spanValues));
+    }
+
+    /**
+     * A non-horizontal edge of the polygon that crosses the integer rows
+     * {@code [firstRow, lastRow]}.
+     */
+    private static class MaskEdge {
+        private final Vector2D pointI;
+        private final Vector2D pointJ;
+        private final int firstRow;
+        private final int lastRow;
+
+        MaskEdge(Vector2D pointI, Vector2D pointJ) {
+            this.pointI = pointI;
+            this.pointJ = pointJ;
+            // Row y is crossed if min <= y < max (same condition as in isPointInPolygon)
+            double min = Math.min(pointI.y, pointJ.y);
+            double max = Math.max(pointI.y, pointJ.y);
+            this.firstRow = (int) Math.max(Integer.MIN_VALUE, Math.ceil(min));
+            this.lastRow = (int) Math.min(Integer.MAX_VALUE, Math.ceil(max) - 1);
+        }
+
+        double crossingAt(int y) {
+            return (pointJ.x - pointI.x) * (y - pointI.y) / (pointJ.y - pointI.y) + pointI.x;
+        }
+    }
+}
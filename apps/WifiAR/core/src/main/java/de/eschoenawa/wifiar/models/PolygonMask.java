@@ -0,0 +1,103 @@
+package de.eschoenawa.wifiar.models;
+
+import java.util.Arrays;
+
+/**
+ * This class describes which pixels of a grid are inside a {@link Polygon}. For every row the
+ * pixels inside the polygon are stored as a sorted list of spans {@code [start, end[}, so
+ * consumers can iterate the inside pixels directly instead of testing every pixel.
+ *
+ * @author Emil Schoenawa
+ */
+public class PolygonMask {
+    private final int width;
+    private final int height;
+    // The spans of row y are stored as pairs in spans[rowOffsets[y] .. rowOffsets[y + 1][
+    private final int[] rowOffsets;
+    private final int[] spans;
+    private final long pixelCount;
+
+    PolygonMask(int width, int height, int[] rowOffsets, int[] spans) {
+        this.width = width;
+        this.height = height;
+        this.rowOffsets = rowOffsets;
+        this.spans = spans;
+        long count = 0;
+        for (int i = 0; i < rowOffsets[height]; i += 2) {
+            count += spans[i + 1] - spans[i];
+        }
+        this.pixelCount = count;
+    }
+
+    /**
+     * Creates a mask in which every pixel of the grid is inside.
+     *
+     * @param width  The width of the grid
+     * @param height The height of the grid
+     * @return The mask
+     */
+    public static PolygonMask full(int width, int height) {
+        int[] rowOffsets = new int[height + 1];
+        int[] spans = new int[width > 0 ? height * 2 : 0];
+        for (int y = 0; y < height; y++) {
+            rowOffsets[y + 1] = width > 0 ? (y + 1) * 2 : 0;
+            if (width > 0) {
+                spans[y * 2 + 1] = width;
+            }
+        }
+        return new PolygonMask(width, height, rowOffsets, spans);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return The number of pixels inside the polygon
+     */
+    public long getPixelCount() {
+        return pixelCount;
+    }
+
+    public int getSpanCount(int y) {
+        return (rowOffsets[y + 1] - rowOffsets[y]) / 2;
+    }
+
+    /**
+     * @param y     The row
+     * @param index The index of the span in the row
+     * @return The first x-coordinate inside the span (inclusive)
+     */
+    public int getSpanStart(int y, int index) {
+        return spans[rowOffsets[y] + index * 2];
+    }
+
+    /**
+     * @param y     The row
+     * @param index The index of the span in the row
+     * @return The last x-coordinate of the span (exclusive)
+     */
+    public int getSpanEnd(int y, int index) {
+        return spans[rowOffsets[y] + index * 2 + 1];
+    }
+
+    public boolean contains(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return false;
+        }
+        int from = rowOffsets[y];
+        int to = rowOffsets[y + 1];
+        // Find the last span starting at or before x
+        int index = Arrays.binarySearch(spans, from, to, x);
+        if (index >= 0) {
+            // x is a span boundary: it is inside if it's the start of a span
+            return (index - from) % 2 == 0;
+        }
+        int insertionPoint = -index - 1;
+        return (insertionPoint - from) % 2 == 1;
+    }
+}
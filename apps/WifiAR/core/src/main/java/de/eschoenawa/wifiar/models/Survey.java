@@ -0,0 +1,30 @@
+package de.eschoenawa.wifiar.models;
+
+import java.util.List;
+
+import io.github.jdiemke.triangulation.Vector2D;
+
+/**
+ * This class represents a recorded survey: the vertices of the surveyed area and the measurements
+ * made inside of it. All positions are in meters on the floor plane (relative to the first point
+ * of the area), so a survey can be rendered at any resolution.
+ *
+ * @author Emil Schoenawa
+ */
+public class Survey {
+    private final List<Vector2D> areaPoints;
+    private final List<WifiMeasurement> measurements;
+
+    public Survey(List<Vector2D> areaPoints, List<WifiMeasurement> measurements) {
+        this.areaPoints = areaPoints;
+        this.measurements = measurements;
+    }
+
+    public List<Vector2D> getAreaPoints() {
+        return areaPoints;
+    }
+
+    public List<WifiMeasurement> getMeasurements() {
+        return measurements;
+    }
+}
@@ -0,0 +1,66 @@
+package de.eschoenawa.wifiar.models;
+
+import io.github.jdiemke.triangulation.Vector2D;
+
+public class WifiMeasurement extends Vector2D {
+    private double power;
+    private double wavelength;
+    private long timestamp;
+    private int numberOfSamples;
+
+    public static final double RTT_DISTANCE_NONE = -1;
+    public static final long TIMESTAMP_NONE = 0;
+
+    public WifiMeasurement(WifiMeasurement wifiMeasurementToCopy) {
+        this(wifiMeasurementToCopy.power, wifiMeasurementToCopy.wavelength, wifiMeasurementToCopy.x, wifiMeasurementToCopy.y, wifiMeasurementToCopy.timestamp, wifiMeasurementToCopy.numberOfSamples);
+    }
+
+    public WifiMeasurement(double power, double wavelength, Vector2D position) {
+        this(power, wavelength, position.x, position.y);
+    }
+
+    public WifiMeasurement(double power, double wavelength, double x, double y) {
+        this(power, wavelength, x, y, TIMESTAMP_NONE, 1);
+    }
+
+    /**
+     * @param power           The power in watts
+     * @param wavelength      The frequency of the network
+     * @param x               The x coordinate of the measurement
+     * @param y               The y coordinate of the measurement
+     * @param timestamp       The time the measurement was completed in milliseconds since the epoch
+     * @param numberOfSamples The number of rssi values the measurement consists of
+     */
+    public WifiMeasurement(double power, double wavelength, double x, double y, long timestamp, int numberOfSamples) {
+        super(x, y);
+        this.power = power;
+        this.wavelength = wavelength;
+        this.timestamp = timestamp;
+        this.numberOfSamples = numberOfSamples;
+    }
+
+    public double getPower() {
+        return power;
+    }
+
+    public double getWavelength() {
+        return wavelength;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public int getNumberOfSamples() {
+        return numberOfSamples;
+    }
+
+    public void setPower(double power) {
+        this.power = power;
+    }
+
+    public void moveTo(Vector2D position) {
+        this.x = position.x;
+        this.y = position.y;
+    }
+}
@@ -0,0 +1,81 @@
+package de.eschoenawa.wifiar.persistence;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.eschoenawa.wifiar.models.Survey;
+import de.eschoenawa.wifiar.models.WifiMeasurement;
+import io.github.jdiemke.triangulation.Vector2D;
+
+/**
+ * This class provides access to a survey that has been mapped into memory by
+ * {@link SurveyBinaryFormat#map(java.io.File)}. The records are read from the mapped file when
+ * they are requested. Only absolute reads are used, so a MappedSurvey may be read by multiple
+ * threads at the same time.
+ *
+ * @author Emil Schoenawa
+ */
+public class MappedSurvey {
+    private final ByteBuffer buffer;
+    private final int version;
+    private final int areaPointCount;
+    private final int measurementCount;
+    private final int measurementSize;
+    private final int measurementsOffset;
+
+    MappedSurvey(ByteBuffer buffer, int version, int areaPointCount, int measurementCount, int measurementSize) {
+        this.buffer = buffer;
+        this.version = version;
+        this.areaPointCount = areaPointCount;
+        this.measurementCount = measurementCount;
+        this.measurementSize = measurementSize;
+        this.measurementsOffset = SurveyBinaryFormat.HEADER_SIZE + areaPointCount * SurveyBinaryFormat.AREA_POINT_SIZE;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public int getAreaPointCount() {
+        return areaPointCount;
+    }
+
+    public int getMeasurementCount() {
+        return measurementCount;
+    }
+
+    public Vector2D getAreaPoint(int index) {
+        int offset = SurveyBinaryFormat.HEADER_SIZE + checkIndex(index, areaPointCount) * SurveyBinaryFormat.AREA_POINT_SIZE;
+        return new Vector2D(buffer.getDouble(offset), buffer.getDouble(offset + 8));
+    }
+
+    public WifiMeasurement getMeasurement(int index) {
+        int offset = measurementsOffset + checkIndex(index, measurementCount) * measurementSize;
+        return new WifiMeasurement(buffer.getDouble(offset + 16), buffer.getDouble(offset + 24), buffer.getDouble(offset), buffer.getDouble(offset + 8), buffer.getLong(offset + 32), buffer.getInt(offset + 40));
+    }
+
+    /**
+     * Reads all records of this survey.
+     *
+     * @return The survey
+     */
+    public Survey toSurvey() {
+        List<Vector2D> areaPoints = new ArrayList<>(areaPointCount);
+        for (int i = 0; i < areaPointCount; i++) {
+            areaPoints.add(getAreaPoint(i));
+        }
+        List<WifiMeasurement> measurements = new ArrayList<>(measurementCount);
+        for (int i = 0; i < measurementCount; i++) {
+            measurements.add(getMeasurement(i));
+        }
+        return new Survey(areaPoints, measurements);
+    }
+
+    private static int checkIndex(int index, int count) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for " + count + " records!");
+        }
+        return index;
+    }
+}
@@ -0,0 +1,155 @@
+package de.eschoenawa.wifiar.persistence;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import de.eschoenawa.wifiar.models.Survey;
+import de.eschoenawa.wifiar.models.WifiMeasurement;
+import io.github.jdiemke.triangulation.Vector2D;
+
+/**
+ * This class writes surveys in a compact binary format and maps them back into memory. All
+ * values are stored big-endian in fixed-size records:
+ * <pre>
+ * Header (16 bytes):      magic, version (short), measurement record size (short),
+ *                         number of area points (int), number of measurements (int)
+ * Area point (16 bytes):  x, y (double, meters)
+ * Measurement (48 bytes): x, y (double, meters), power (double, watts), frequency (double),
+ *                         timestamp (long, ms since epoch), number of samples (int), padding
+ * </pre>
+ * Readers step through the measurements by the record size of the header, so later versions may
+ * append fields to the measurement records without breaking older readers.
+ * <p>
+ * Only {@link FileChannel}s of {@link RandomAccessFile} and the file streams are used, as
+ * {@code java.nio.file} is not available on all supported Android versions.
+ *
+ * @author Emil Schoenawa
+ */
+public class SurveyBinaryFormat {
+    public static final short VERSION = 1;
+    // "WARS" - WifiAR survey
+    static final int MAGIC = 0x57415253;
+    static final int HEADER_SIZE = 16;
+    static final int AREA_POINT_SIZE = 16;
+    static final int MEASUREMENT_SIZE = 48;
+    // Size of the fields of a version 1 measurement record without padding
+    static final int MIN_MEASUREMENT_SIZE = 44;
+
+    private SurveyBinaryFormat() {
+    }
+
+    /**
+     * Writes the survey to the given file. The survey is written to a temporary file first which
+     * then replaces the given file, so an existing survey is never left half-written.
+     *
+     * @param file   The file to write to
+     * @param survey The survey to write
+     * @throws IOException If the file can't be written
+     */
+    public static void write(File file, Survey survey) throws IOException {
+        File temporaryFile = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temporaryFile)) {
+            FileChannel channel = out.getChannel();
+            write(channel, survey);
+            channel.force(true);
+        }
+        if (!temporaryFile.renameTo(file)) {
+            throw new IOException("Unable to replace " + file + "!");
+        }
+    }
+
+    /**
+     * Writes the survey at the current position of the given channel.
+     *
+     * @param channel The channel to write to
+     * @param survey  The survey to write
+     * @throws IOException If the survey can't be written
+     */
+    public static void write(FileChannel channel, Survey survey) throws IOException {
+        int areaPointCount = survey.getAreaPoints().size();
+        int measurementCount = survey.getMeasurements().size();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + areaPointCount * AREA_POINT_SIZE + measurementCount * MEASUREMENT_SIZE);
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.putShort((short) MEASUREMENT_SIZE);
+        buffer.putInt(areaPointCount);
+        buffer.putInt(measurementCount);
+        for (Vector2D point : survey.getAreaPoints()) {
+            buffer.putDouble(point.x);
+            buffer.putDouble(point.y);
+        }
+        for (WifiMeasurement measurement : survey.getMeasurements()) {
+            buffer.putDouble(measurement.x);
+            buffer.putDouble(measurement.y);
+            buffer.putDouble(measurement.getPower());
+            buffer.putDouble(measurement.getWavelength());
+            buffer.putLong(measurement.getTimestamp());
+            buffer.putInt(measurement.getNumberOfSamples());
+            buffer.putInt(0);
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Maps the given survey file into memory. Only the header is read; the records are read when
+     * they are requested.
+     *
+     * @param file The survey file
+     * @return The mapped survey
+     * @throws IOException If the file can't be mapped or is no valid survey
+     */
+    public static MappedSurvey map(File file) throws IOException {
+        MappedByteBuffer buffer;
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+            FileChannel channel = randomAccessFile.getChannel();
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        return read(buffer, file.toString());
+    }
+
+    /**
+     * Checks whether the given file starts like a binary survey.
+     *
+     * @param file The file to check
+     * @return true if the file starts with the magic number of binary surveys, false otherwise
+     * @throws IOException If the file can't be read
+     */
+    public static boolean isBinarySurvey(File file) throws IOException {
+        try (FileInputStream in = new FileInputStream(file)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            FileChannel channel = in.getChannel();
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                // Read until the magic number is complete or the file ends
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        }
+    }
+
+    static MappedSurvey read(ByteBuffer buffer, String name) throws IOException {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException(name + " is no survey!");
+        }
+        int version = buffer.getShort(4);
+        if (version < 1 || version > VERSION) {
+            throw new IOException(name + " has unsupported version " + version + "!");
+        }
+        int measurementSize = buffer.getShort(6) & 0xFFFF;
+        int areaPointCount = buffer.getInt(8);
+        int measurementCount = buffer.getInt(12);
+        long expectedSize = HEADER_SIZE + (long) areaPointCount * AREA_POINT_SIZE + (long) measurementCount * measurementSize;
+        if (measurementSize < MIN_MEASUREMENT_SIZE || areaPointCount < 0 || measurementCount < 0 || buffer.capacity() < expectedSize) {
+            throw new IOException(name + " is corrupted!");
+        }
+        return new MappedSurvey(buffer, version, areaPointCount, measurementCount, measurementSize);
+    }
+}
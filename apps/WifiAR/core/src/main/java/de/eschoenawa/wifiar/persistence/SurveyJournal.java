@@ -0,0 +1,404 @@
+package de.eschoenawa.wifiar.persistence;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import de.eschoenawa.wifiar.models.Survey;
+import de.eschoenawa.wifiar.models.WifiMeasurement;
+import io.github.jdiemke.triangulation.Vector2D;
+
+/**
+ * This class records the progress of a survey in an append-only file, so the survey can be
+ * recovered after a crash. Every change is written as a fixed-size record (64 bytes, big-endian):
+ * <pre>
+ * type (short), padding (short), sequence number (int),
+ * x, y (double, meters), power (double, watts), frequency (double),
+ * timestamp (long), number of samples (int), padding (8 bytes), CRC32 of the bytes before (int)
+ * </pre>
+ * Records are only encoded by the caller; they are written and flushed to the disk in batches by
+ * a background thread. When a journal is opened the valid records are replayed into a
+ * {@link Recovery}. A torn or corrupted record ends the replay and is overwritten by the next
+ * record.
+ *
+ * @author Emil Schoenawa
+ */
+public class SurveyJournal implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(SurveyJournal.class.getName());
+    public static final short VERSION = 1;
+    // "WARJ" - WifiAR journal
+    static final int MAGIC = 0x5741524A;
+    static final int HEADER_SIZE = 8;
+    static final int RECORD_SIZE = 64;
+    private static final int CHECKSUM_OFFSET = RECORD_SIZE - 4;
+    // All journals share one writer, so a journal that is closed is completely written before its file is opened again
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "SurveyJournal");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final FileChannel channel;
+    private final Recovery recovery;
+    private final List<ByteBuffer> pendingRecords;
+    private int nextSequence;
+    private long appendedRecords;
+    private boolean flushScheduled;
+    private boolean clearRequested;
+    private boolean closed;
+
+    private SurveyJournal(File file) throws IOException {
+        this.channel = new RandomAccessFile(file, "rw").getChannel();
+        this.recovery = new Recovery();
+        this.pendingRecords = new ArrayList<>();
+        try {
+            nextSequence = replay();
+            long validSize = HEADER_SIZE + (long) nextSequence * RECORD_SIZE;
+            channel.truncate(validSize);
+            channel.position(validSize);
+            channel.force(true);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens the given journal and replays the records it already contains. New records are
+     * appended to the valid records.
+     *
+     * @param file The journal file; it is created if it doesn't exist
+     * @return The journal
+     * @throws IOException If the journal can't be opened
+     */
+    public static SurveyJournal open(File file) throws IOException {
+        try {
+            return WRITER.submit(() -> new SurveyJournal(file)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while opening " + file + "!");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Unable to open " + file + "!", e.getCause());
+        }
+    }
+
+    /**
+     * Opens the given journal on the writer thread, so the caller (e.g. the UI thread) doesn't
+     * wait for the file. The callback is called on the writer thread.
+     *
+     * @param file     The journal file; it is created if it doesn't exist
+     * @param callback The callback that receives the journal and its {@link Recovery}
+     */
+    public static void openAsync(File file, SurveyJournalCallback callback) {
+        WRITER.execute(() -> {
+            SurveyJournal journal;
+            try {
+                journal = new SurveyJournal(file);
+            } catch (IOException | RuntimeException e) {
+                callback.onJournalError(e);
+                return;
+            }
+            callback.onJournalOpened(journal, journal.getRecovery());
+        });
+    }
+
+    /**
+     * @return The survey as recorded by this journal when it was opened
+     */
+    public Recovery getRecovery() {
+        return recovery;
+    }
+
+    public void appendAreaPoint(Vector2D point) {
+        append(RecordType.AREA_POINT, point.x, point.y, 0, 0, WifiMeasurement.TIMESTAMP_NONE, 0);
+    }
+
+    public void appendMeasurement(WifiMeasurement measurement) {
+        append(RecordType.MEASUREMENT, measurement.x, measurement.y, measurement.getPower(), measurement.getWavelength(), measurement.getTimestamp(), measurement.getNumberOfSamples());
+    }
+
+    /**
+     * Appends a record that has no values.
+     *
+     * @param type One of {@link RecordType#REMOVE_AREA_POINT}, {@link RecordType#REMOVE_MEASUREMENT},
+     *             {@link RecordType#AREA_CLOSED} or {@link RecordType#AREA_OPENED}
+     */
+    public void append(RecordType type) {
+        if (type == RecordType.AREA_POINT || type == RecordType.MEASUREMENT) {
+            throw new IllegalArgumentException(type + " records require values!");
+        }
+        append(type, 0, 0, 0, 0, WifiMeasurement.TIMESTAMP_NONE, 0);
+    }
+
+    /**
+     * Removes all records, e.g. because the survey has been discarded.
+     */
+    public synchronized void clear() {
+        if (closed) {
+            return;
+        }
+        clearRecords();
+    }
+
+    /**
+     * @return The number of records appended to this journal so far, to be passed to
+     * {@link #clear(long)} once everything recorded until now has been saved elsewhere
+     */
+    public synchronized long mark() {
+        return appendedRecords;
+    }
+
+    /**
+     * Removes all records if no record has been appended since the given mark, e.g. because the
+     * survey has been saved. Otherwise the journal is kept, as the newer records (and the records
+     * they depend on) aren't covered by the save yet.
+     *
+     * @param mark The result of {@link #mark()} when the saved state was recorded
+     * @return Whether the records have been removed
+     */
+    public synchronized boolean clear(long mark) {
+        if (closed || appendedRecords != mark) {
+            return false;
+        }
+        clearRecords();
+        return true;
+    }
+
+    private void clearRecords() {
+        pendingRecords.clear();
+        nextSequence = 0;
+        clearRequested = true;
+        scheduleFlush();
+    }
+
+    /**
+     * Writes the pending records and closes the journal. Records appended afterwards are ignored.
+     *
+     * @throws IOException If the journal can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        Future<?> future;
+        synchronized (this) {
+            closed = true;
+            future = WRITER.submit(this::flush);
+        }
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while closing journal!");
+        } catch (ExecutionException e) {
+            throw new IOException("Unable to close journal!", e.getCause());
+        }
+    }
+
+    /**
+     * Like {@link #close()}, but doesn't wait for the pending records to be written. A journal of
+     * the same file that is opened afterwards still sees them, as the writer is shared.
+     */
+    public synchronized void closeAsync() {
+        closed = true;
+        WRITER.execute(this::flush);
+    }
+
+    private synchronized void append(RecordType type, double x, double y, double power, double frequency, long timestamp, int numberOfSamples) {
+        if (closed) {
+            LOGGER.warning("Journal closed, " + type + " record dropped!");
+            return;
+        }
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        record.putShort(0, (short) (type.ordinal() + 1));
+        record.putInt(4, nextSequence++);
+        record.putDouble(8, x);
+        record.putDouble(16, y);
+        record.putDouble(24, power);
+        record.putDouble(32, frequency);
+        record.putLong(40, timestamp);
+        record.putInt(48, numberOfSamples);
+        record.putInt(CHECKSUM_OFFSET, checksum(record.array(), 0));
+        pendingRecords.add(record);
+        appendedRecords++;
+        scheduleFlush();
+    }
+
+    private void scheduleFlush() {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            WRITER.execute(this::flush);
+        }
+    }
+
+    private void flush() {
+        List<ByteBuffer> records;
+        boolean clear;
+        boolean close;
+        synchronized (this) {
+            records = new ArrayList<>(pendingRecords);
+            pendingRecords.clear();
+            clear = clearRequested;
+            clearRequested = false;
+            close = closed;
+            flushScheduled = false;
+        }
+        if (!channel.isOpen()) {
+            return;
+        }
+        try {
+            if (clear) {
+                channel.truncate(HEADER_SIZE);
+                channel.position(HEADER_SIZE);
+            }
+            if (!records.isEmpty()) {
+                ByteBuffer batch = ByteBuffer.allocate(records.size() * RECORD_SIZE);
+                for (ByteBuffer record : records) {
+                    batch.put(record);
+                }
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    channel.write(batch);
+                }
+            }
+            if (clear || !records.isEmpty()) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Unable to write journal!", e);
+        } finally {
+            if (close) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Unable to close journal!", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Replays the valid records of the file or writes a new header if the file is no journal.
+     *
+     * @return The number of valid records
+     */
+    private int replay() throws IOException {
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        channel.read(header, 0);
+        if (size < HEADER_SIZE || header.getInt(0) != MAGIC || header.getShort(4) != VERSION || header.getShort(6) != RECORD_SIZE) {
+            if (size > 0) {
+                LOGGER.warning("Unknown journal format, starting a new journal.");
+            }
+            header.clear();
+            header.putInt(MAGIC).putShort(VERSION).putShort((short) RECORD_SIZE).flip();
+            channel.truncate(0);
+            channel.write(header, 0);
+            return 0;
+        }
+        ByteBuffer records = ByteBuffer.allocate((int) Math.min(size - HEADER_SIZE, Integer.MAX_VALUE - RECORD_SIZE));
+        while (records.hasRemaining() && channel.read(records, HEADER_SIZE + records.position()) >= 0) {
+            // Read until the buffer is full or the file ends
+        }
+        int count = 0;
+        for (int offset = 0; offset + RECORD_SIZE <= records.position(); offset += RECORD_SIZE) {
+            int type = records.getShort(offset) - 1;
+            if (type < 0 || type >= RecordType.values().length || records.getInt(offset + 4) != count
+                    || records.getInt(offset + CHECKSUM_OFFSET) != checksum(records.array(), offset)) {
+                LOGGER.warning("Journal ends with an invalid record after " + count + " records.");
+                break;
+            }
+            recovery.apply(RecordType.values()[type], records, offset);
+            count++;
+        }
+        return count;
+    }
+
+    private static int checksum(byte[] bytes, int offset) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, CHECKSUM_OFFSET);
+        return (int) crc.getValue();
+    }
+
+    public interface SurveyJournalCallback {
+        void onJournalOpened(SurveyJournal journal, Recovery recovery);
+
+        void onJournalError(Exception exception);
+    }
+
+    public enum RecordType {
+        AREA_POINT, MEASUREMENT, REMOVE_AREA_POINT, REMOVE_MEASUREMENT, AREA_CLOSED, AREA_OPENED
+    }
+
+    /**
+     * The state of a survey as recorded by a journal. Positions are in meters relative to the
+     * first point of the area.
+     */
+    public static class Recovery {
+        private final List<Vector2D> areaPoints = new ArrayList<>();
+        private final List<WifiMeasurement> measurements = new ArrayList<>();
+        private boolean areaClosed;
+
+        private void apply(RecordType type, ByteBuffer records, int offset) {
+            switch (type) {
+                case AREA_POINT:
+                    areaPoints.add(new Vector2D(records.getDouble(offset + 8), records.getDouble(offset + 16)));
+                    break;
+                case MEASUREMENT:
+                    measurements.add(new WifiMeasurement(records.getDouble(offset + 24), records.getDouble(offset + 32), records.getDouble(offset + 8), records.getDouble(offset + 16), records.getLong(offset + 40), records.getInt(offset + 48)));
+                    break;
+                case REMOVE_AREA_POINT:
+                    if (!areaPoints.isEmpty()) {
+                        areaPoints.remove(areaPoints.size() - 1);
+                    }
+                    areaClosed = false;
+                    break;
+                case REMOVE_MEASUREMENT:
+                    if (!measurements.isEmpty()) {
+                        measurements.remove(measurements.size() - 1);
+                    }
+                    break;
+                case AREA_CLOSED:
+                    areaClosed = true;
+                    break;
+                case AREA_OPENED:
+                    areaClosed = false;
+                    break;
+            }
+        }
+
+        public List<Vector2D> getAreaPoints() {
+            return areaPoints;
+        }
+
+        public List<WifiMeasurement> getMeasurements() {
+            return measurements;
+        }
+
+        public boolean isAreaClosed() {
+            return areaClosed;
+        }
+
+        public boolean isEmpty() {
+            return areaPoints.isEmpty();
+        }
+
+        public Survey toSurvey() {
+            return new Survey(new ArrayList<>(areaPoints), new ArrayList<>(measurements));
+        }
+    }
+}
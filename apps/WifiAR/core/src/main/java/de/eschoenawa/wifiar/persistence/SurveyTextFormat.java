@@ -0,0 +1,74 @@
+package de.eschoenawa.wifiar.persistence;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.eschoenawa.wifiar.models.Survey;
+import de.eschoenawa.wifiar.models.WifiMeasurement;
+import io.github.jdiemke.triangulation.Vector2D;
+
+/**
+ * This class reads and writes surveys as plain text, one point per line:
+ * <pre>
+ * # Comment
+ * area &lt;x&gt; &lt;y&gt;
+ * measurement &lt;x&gt; &lt;y&gt; &lt;power in watts&gt; &lt;frequency&gt; [&lt;timestamp&gt; &lt;number of samples&gt;]
+ * </pre>
+ * Positions are in meters. The area vertices are connected in the order they appear. Values are
+ * written with full precision, so reading a written survey results in the same values.
+ *
+ * @author Emil Schoenawa
+ */
+public class SurveyTextFormat {
+    private static final String AREA = "area";
+    private static final String MEASUREMENT = "measurement";
+    private static final String COMMENT = "#";
+
+    private SurveyTextFormat() {
+    }
+
+    public static Survey read(Reader reader) throws IOException {
+        BufferedReader lines = new BufferedReader(reader);
+        List<Vector2D> areaPoints = new ArrayList<>();
+        List<WifiMeasurement> measurements = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith(COMMENT)) {
+                continue;
+            }
+            String[] fields = line.split("\\s+");
+            try {
+                if (AREA.equals(fields[0]) && fields.length == 3) {
+                    areaPoints.add(new Vector2D(Double.parseDouble(fields[1]), Double.parseDouble(fields[2])));
+                } else if (MEASUREMENT.equals(fields[0]) && fields.length == 5) {
+                    measurements.add(new WifiMeasurement(Double.parseDouble(fields[3]), Double.parseDouble(fields[4]), Double.parseDouble(fields[1]), Double.parseDouble(fields[2])));
+                } else if (MEASUREMENT.equals(fields[0]) && fields.length == 7) {
+                    measurements.add(new WifiMeasurement(Double.parseDouble(fields[3]), Double.parseDouble(fields[4]), Double.parseDouble(fields[1]), Double.parseDouble(fields[2]), Long.parseLong(fields[5]), Integer.parseInt(fields[6])));
+                } else {
+                    throw new IOException("Line " + lineNumber + ": Unknown entry '" + line + "'!");
+                }
+            } catch (NumberFormatException e) {
+                throw new IOException("Line " + lineNumber + ": Invalid number in '" + line + "'!", e);
+            }
+        }
+        return new Survey(areaPoints, measurements);
+    }
+
+    public static void write(Writer writer, Survey survey) throws IOException {
+        writer.write(COMMENT + " WifiAR survey\n");
+        for (Vector2D point : survey.getAreaPoints()) {
+            writer.write(AREA + " " + point.x + " " + point.y + "\n");
+        }
+        for (WifiMeasurement measurement : survey.getMeasurements()) {
+            writer.write(MEASUREMENT + " " + measurement.x + " " + measurement.y + " " + measurement.getPower() + " " + measurement.getWavelength() + " " + measurement.getTimestamp() + " " + measurement.getNumberOfSamples() + "\n");
+        }
+        writer.flush();
+    }
+}
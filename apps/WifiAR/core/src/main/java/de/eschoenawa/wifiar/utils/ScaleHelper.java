@@ -0,0 +1,17 @@
+package de.eschoenawa.wifiar.utils;
+
+/**
+ * This utility-class provides methods to convert between meter-based coordinates and pixel-based
+ * coordinates.
+ *
+ * @author Emil Schoenawa
+ */
+public class ScaleHelper {
+    public static double pixelsToMeters(int pixels, int pixelsPerMeter) {
+        return (double) pixels / pixelsPerMeter;
+    }
+
+    public static int metersToPixels(double meters, int pixelsPerMeter) {
+        return (int) Math.ceil(meters * pixelsPerMeter);
+    }
+}
@@ -0,0 +1,38 @@
+package de.eschoenawa.wifiar.utils.concurrent;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * A CancellationToken allows stopping a long running job (like the generation of a heatmap)
+ * cooperatively. The job checks the token regularly, e.g. once per task of its loops, and stops
+ * by throwing a {@link CancellationException} once the token has been cancelled.
+ *
+ * @author Emil Schoenawa
+ */
+public class CancellationToken {
+    /**
+     * A token for jobs that can't be cancelled. Cancelling it has no effect.
+     */
+    public static final CancellationToken NONE = new CancellationToken();
+
+    private volatile boolean cancelled;
+
+    public void cancel() {
+        if (this != NONE) {
+            cancelled = true;
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @throws CancellationException If the token has been cancelled
+     */
+    public void throwIfCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Job has been cancelled");
+        }
+    }
+}
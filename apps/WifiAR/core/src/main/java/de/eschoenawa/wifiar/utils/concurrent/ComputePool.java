@@ -0,0 +1,28 @@
+package de.eschoenawa.wifiar.utils.concurrent;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * This class provides the {@link ForkJoinPool} shared by all CPU-bound work of the app (like
+ * interpolating heatmaps). The pool is created once and sized to the number of available
+ * processors, so concurrent runs share the cores instead of oversubscribing them.
+ *
+ * @author Emil Schoenawa
+ */
+public class ComputePool {
+
+    /**
+     * Helper-class to make the pool a Bill Pugh Singleton.
+     */
+    private static class InstanceHolder {
+        private static final ForkJoinPool INSTANCE = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    public static ForkJoinPool getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    private ComputePool() {
+
+    }
+}
@@ -0,0 +1,68 @@
+package de.eschoenawa.wifiar.utils.concurrent;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static de.eschoenawa.wifiar.common.Constants.JOB_THREADS;
+import static de.eschoenawa.wifiar.common.Constants.JOB_THREAD_KEEP_ALIVE_SECONDS;
+
+/**
+ * This class provides the {@link ExecutorService} shared by all background jobs of the app (like
+ * generating heatmaps or saving surveys). The jobs mostly coordinate work that runs in the
+ * {@link ComputePool}, so a small bounded number of threads is enough. The threads are daemon
+ * threads and are stopped when no job has been submitted for a while, so the executors never
+ * have to be shut down.
+ * <p>
+ * The queue of the shared executor is unbounded and jobs are started in the order they were
+ * submitted, so a short job the user is waiting for (like adding a measurement to the displayed
+ * heatmap) could wait behind a generation or preview. Such jobs use the executor of
+ * {@link #getUpdateInstance()} with its own thread instead.
+ *
+ * @author Emil Schoenawa
+ */
+public class JobExecutor {
+
+    /**
+     * Helper-class to make the executor a Bill Pugh Singleton.
+     */
+    private static class InstanceHolder {
+        private static final ExecutorService INSTANCE = createExecutor(JOB_THREADS, "Job-");
+    }
+
+    /**
+     * Helper-class to make the update executor a Bill Pugh Singleton.
+     */
+    private static class UpdateInstanceHolder {
+        private static final ExecutorService INSTANCE = createExecutor(1, "Update-");
+    }
+
+    public static ExecutorService getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    /**
+     * @return The executor for short jobs the user is waiting for. It has a single thread, so its
+     * jobs run one after another in the order they were submitted.
+     */
+    public static ExecutorService getUpdateInstance() {
+        return UpdateInstanceHolder.INSTANCE;
+    }
+
+    private static ExecutorService createExecutor(int threads, String threadNamePrefix) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, JOB_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, threadNamePrefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private JobExecutor() {
+
+    }
+}
@@ -0,0 +1,34 @@
+package de.eschoenawa.wifiar.utils.concurrent;
+
+/**
+ * A JobSlot holds the {@link CancellationToken} of the latest job of one kind (e.g. generating
+ * the heatmap). Requesting a token for a new job cancels the token of the previous one, so a
+ * newer request supersedes a job that is still running or waiting for a thread instead of
+ * queueing behind it.
+ *
+ * @author Emil Schoenawa
+ */
+public class JobSlot {
+    private CancellationToken currentToken;
+
+    /**
+     * Cancels the current job and creates the token for the next one.
+     *
+     * @return The token of the next job
+     */
+    public synchronized CancellationToken next() {
+        cancel();
+        currentToken = new CancellationToken();
+        return currentToken;
+    }
+
+    /**
+     * Cancels the current job, if any.
+     */
+    public synchronized void cancel() {
+        if (currentToken != null) {
+            currentToken.cancel();
+            currentToken = null;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package de.eschoenawa.wifiar;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import de.eschoenawa.wifiar.heatmap.ColorSelector;
+import de.eschoenawa.wifiar.heatmap.GradientColors;
+import de.eschoenawa.wifiar.heatmap.HeatmapGrid;
+import de.eschoenawa.wifiar.heatmap.PowerScale;
+import de.eschoenawa.wifiar.models.Polygon;
+import de.eschoenawa.wifiar.utils.UnitConverter;
+import io.github.jdiemke.triangulation.Vector2D;
+
+import static org.junit.Assert.assertEquals;
+
+public class ColorSelectorTest {
+    @Test
+    public void testFindMinMaxHeatmapValues() {
+        HeatmapGrid heatmap = new HeatmapGrid(2, 2);
+        heatmap.set(0, 0, 1);
+        heatmap.set(0, 1, 2);
+        heatmap.set(1, 0, 3);
+        heatmap.set(1, 1, 4);
+
+        // Define area (exclude P(0|0)
+        List<Vector2D> area = new ArrayList<>();
+        area.add(new Vector2D(-0.1, 1.1));
+        area.add(new Vector2D(1.1, -0.1));
+        area.add(new Vector2D(1.1, 1.1));
+        Polygon testPolygon = new Polygon(area);
+
+        double[] minMaxValues = ColorSelector.findMinAndMaxValuesInHeatmap(testPolygon, heatmap);
+        assertEquals(2, minMaxValues[0], 0);
+        assertEquals(4, minMaxValues[1], 0);
+    }
+
+    @Test
+    public void testBoundsGradient() {
+        GradientColors colors = new GradientColors(GradientColors.MODE_RED_GREEN);
+        int red = colors.getColors()[0];
+        int green = colors.getColors()[1];
+        ColorSelector colorSelector = new ColorSelector(ColorSelector.Mode.BOUNDS, colors, 100, 0, 10);
+        assertEquals(100, colorSelector.getGradientWidth());
+        // Values outside the boundaries are clamped to the ends of the gradient
+        assertEquals(colorSelector.getColorForValue(0), colorSelector.getColorForValue(-5));
+        assertEquals(colorSelector.getColorForValue(10), colorSelector.getColorForValue(20));
+        // The gradient is sampled at the pixel centers, so the ends are almost the pure colors
+        int first = colorSelector.getColorForValue(0);
+        int last = colorSelector.getColorForValue(10);
+        assertEquals(red >>> 24, first >>> 24);
+        assertEquals(green >>> 24, last >>> 24);
+        assertEquals((red >> 16) & 0xFF, (first >> 16) & 0xFF, 2);
+        assertEquals((green >> 8) & 0xFF, (last >> 8) & 0xFF, 2);
+    }
+
+    @Test
+    public void testWifiBarsMatchSignalLevel() {
+        GradientColors colors = new GradientColors(GradientColors.MODE_RED_YELLOW_GREEN_DARKGREEN);
+        int levels = colors.getColors().length;
+        ColorSelector colorSelector = new ColorSelector(ColorSelector.Mode.WIFI_BARS, colors, -1);
+        ColorSelector reference = new ColorSelector(ColorSelector.Mode.BOUNDS, colors, levels, 0, levels);
+        for (double dbm = -110; dbm <= -30; dbm += 0.3) {
+            int rssi = (int) Math.round(dbm);
+            int expectedLevel;
+            // Same calculation as WifiManager.calculateSignalLevel
+            if (rssi <= -100) {
+                expectedLevel = 0;
+            } else if (rssi >= -55) {
+                expectedLevel = levels - 1;
+            } else {
+                expectedLevel = (int) ((float) (rssi + 100) * (levels - 1) / 45);
+            }
+            assertEquals("Color at " + dbm + " dBm", reference.getColorForValue(expectedLevel + 0.5), colorSelector.getColorForValue(UnitConverter.dbmToWatts(dbm)));
+        }
+    }
+
+    @Test
+    public void testDbmMatchesWatts() {
+        GradientColors colors = new GradientColors(GradientColors.MODE_RED_YELLOW_GREEN_DARKGREEN);
+        ColorSelector wifiBars = new ColorSelector(ColorSelector.Mode.WIFI_BARS, colors, -1);
+        ColorSelector wifiBarsDbm = new ColorSelector(ColorSelector.Mode.WIFI_BARS, colors, -1, PowerScale.DBM);
+        for (double dbm = -110; dbm <= -30; dbm += 0.3) {
+            assertEquals("Color at " + dbm + " dBm", wifiBars.getColorForValue(UnitConverter.dbmToWatts(dbm)), wifiBarsDbm.getColorForValue(dbm));
+        }
+
+        // In dBm the gradient spans from the lowest to the highest (negative) boundary
+        ColorSelector bounds = new ColorSelector(ColorSelector.Mode.BOUNDS, colors, 100, 0, 60);
+        ColorSelector boundsDbm = new ColorSelector(ColorSelector.Mode.BOUNDS, colors, 100, PowerScale.DBM, -90, -30);
+        for (double value = -100; value <= -20; value += 0.7) {
+            assertEquals(bounds.getColorForValue(value + 90), boundsDbm.getColorForValue(value));
+        }
+        HeatmapGrid heatmap = new HeatmapGrid(2, 1);
+        heatmap.set(0, 0, -80);
+        heatmap.set(1, 0, -40);
+        double[] minMaxValues = ColorSelector.findMinAndMaxValuesInHeatmap(new Polygon(Arrays.asList(new Vector2D(-1, -1), new Vector2D(3, -1), new Vector2D(3, 2), new Vector2D(-1, 2))), heatmap);
+        assertEquals(-80, minMaxValues[0], 0);
+        assertEquals(-40, minMaxValues[1], 0);
+    }
+
+    @Test
+    public void testGetMode() {
+        String modeBounds = "BOUNDS";
+        String modeWifiBars = "WIFI_BARS";
+        assertEquals(ColorSelector.Mode.BOUNDS, ColorSelector.getMode(modeBounds));
+        assertEquals(ColorSelector.Mode.WIFI_BARS, ColorSelector.getMode(modeWifiBars));
+    }
+}
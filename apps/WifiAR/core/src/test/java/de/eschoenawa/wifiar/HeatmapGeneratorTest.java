@@ -0,0 +1,408 @@
+package de.eschoenawa.wifiar;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+
+import de.eschoenawa.wifiar.heatmap.HeatmapGenerator;
+import de.eschoenawa.wifiar.heatmap.HeatmapGrid;
+import de.eschoenawa.wifiar.heatmap.HeatmapRegion;
+import de.eschoenawa.wifiar.heatmap.InterpolationMethod;
+import de.eschoenawa.wifiar.heatmap.PowerScale;
+import de.eschoenawa.wifiar.heatmap.TrianglePlane;
+import de.eschoenawa.wifiar.models.Polygon;
+import de.eschoenawa.wifiar.models.PolygonMask;
+import de.eschoenawa.wifiar.models.WifiMeasurement;
+import de.eschoenawa.wifiar.utils.UnitConverter;
+import de.eschoenawa.wifiar.utils.concurrent.CancellationToken;
+import de.eschoenawa.wifiar.utils.concurrent.JobSlot;
+import io.github.jdiemke.triangulation.Triangle2D;
+import io.github.jdiemke.triangulation.Vector2D;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class HeatmapGeneratorTest {
+    @Test
+    public void testTriangleAreaCalculation() {
+        HeatmapGenerator heatmapGenerator = new HeatmapGenerator(100, 100, new Vector2D(2, 2), HeatmapGenerator.ExternalPointStrategy.ASSUME_NEAREST, null);
+        double area = heatmapGenerator.getArea(new Triangle2D(new Vector2D(0, 4), new Vector2D(3, 0), new Vector2D(0, 0)));
+        assertEquals(6, area, 0.00000000001);
+    }
+
+    @Test
+    public void testTrianglePlaneMatchesBarycentricInterpolation() {
+        HeatmapGenerator heatmapGenerator = new HeatmapGenerator(100, 100, new Vector2D(2, 2), HeatmapGenerator.ExternalPointStrategy.ASSUME_NEAREST, null);
+        WifiMeasurement a = new WifiMeasurement(0.000001, 2.4, 1, 1);
+        WifiMeasurement b = new WifiMeasurement(0.0000002, 2.4, 40, 7);
+        WifiMeasurement c = new WifiMeasurement(0.00000003, 2.4, 12, 33);
+        Vector2D point = new Vector2D(17, 12);
+        double area = heatmapGenerator.getArea(new Triangle2D(a, b, c));
+        double expected = (heatmapGenerator.getArea(new Triangle2D(point, b, c)) * a.getPower()
+                + heatmapGenerator.getArea(new Triangle2D(point, a, c)) * b.getPower()
+                + heatmapGenerator.getArea(new Triangle2D(point, a, b)) * c.getPower()) / area;
+        TrianglePlane plane = new TrianglePlane(a, b, c);
+        assertEquals(expected, plane.valueAt(point.x, point.y), 1e-15);
+        assertEquals(b.getPower(), plane.valueAt(b.x, b.y), 1e-15);
+
+        // Measurements on one line don't span a triangle
+        TrianglePlane flatPlane = new TrianglePlane(a, new WifiMeasurement(0.0000002, 2.4, 2, 2), new WifiMeasurement(0.0000003, 2.4, 3, 3));
+        assertEquals((0.000001 + 0.0000002 + 0.0000003) / 3, flatPlane.valueAt(5, 9), 1e-15);
+    }
+
+    @Test
+    public void testScanlineMatchesLinearSearch() throws Exception {
+        HeatmapGenerator linearSearch = new HeatmapGenerator(50, 40, new Vector2D(0, 0), HeatmapGenerator.ExternalPointStrategy.ASSUME_NEAREST, HeatmapGenerator.TriangleLookupStrategy.LINEAR_SEARCH, createMeasurements());
+        HeatmapGenerator scanline = new HeatmapGenerator(50, 40, new Vector2D(0, 0), HeatmapGenerator.ExternalPointStrategy.ASSUME_NEAREST, HeatmapGenerator.TriangleLookupStrategy.SCANLINE, createMeasurements());
+        linearSearch.generateHeatmap();
+        scanline.generateHeatmap();
+        HeatmapGrid expected = linearSearch.getHeatmap();
+        HeatmapGrid actual = scanline.getHeatmap();
+        assertEquals(50, actual.getWidth());
+        assertEquals(40, actual.getHeight());
+        for (int x = 0; x < 50; x++) {
+            for (int y = 0; y < 40; y++) {
+                assertEquals(expected.get(x, y), actual.get(x, y), 1e-12);
+            }
+        }
+    }
+
+    @Test
+    public void testAdjacencyWalkMatchesLinearSearch() throws Exception {
+        HeatmapGenerator linearSearch = new HeatmapGenerator(50, 40, new Vector2D(0, 0), HeatmapGenerator.ExternalPointStrategy.ASSUME_NEAREST, HeatmapGenerator.TriangleLookupStrategy.LINEAR_SEARCH, createMeasurements());
+        HeatmapGenerator walk = new HeatmapGenerator(50, 40, new Vector2D(0, 0), HeatmapGenerator.ExternalPointStrategy.ASSUME_NEAREST, HeatmapGenerator.TriangleLookupStrategy.ADJACENCY_WALK, createMeasurements());
+        linearSearch.generateHeatmap();
+        walk.generateHeatmap();
+        HeatmapGrid expected = linearSearch.getHeatmap();
+        HeatmapGrid actual = walk.getHeatmap();
+        for (int x = 0; x < 50; x++) {
+            for (int y = 0; y < 40; y++) {
+                assertEquals(expected.get(x, y), actual.get(x, y), 1e-12);
+            }
+        }
+    }
+
+    @Test
+    public void testValueAtMatchesHeatmap() throws Exception {
+        HeatmapGenerator full = new HeatmapGenerator(50, 40, new Vector2D(0, 0), HeatmapGenerator.ExternalPointStrategy.ASSUME_NEAREST, createMeasurements());
+        HeatmapGenerator tiled = new HeatmapGenerator(50, 40, new Vector2D(0, 0), HeatmapGenerator.ExternalPointStrategy.ASSUME_NEAREST, createMeasurements());
+        full.generateHeatmap();
+        HeatmapGrid tiles = new HeatmapGrid(50, 40);
+        tiled.generateHeatmapTiles(16, (originX, originY, tile) -> {
+            for (int x = 0; x < tile.getWidth(); x++) {
+                for (int y = 0; y < tile.getHeight(); y++) {
+                    tiles.set(originX + x, originY + y, tile.get(x, y));
+                }
+            }
+        });
+        full.addMeasurement(new WifiMeasurement(0.0000007, 2.4, 33.3, 11.7));
+        HeatmapGrid expected = full.getHeatmap();
+        // Query in an order that makes the walk cross the whole triangulation
+        for (int y = 39; y >= 0; y--) {
+            for (int x = (y % 2) * 49; x >= 0 && x < 50; x += y % 2 == 0 ? 1 : -1) {
+                assertEquals(expected.get(x, y), full.getValueAt(x, y), 1e-12);
+            }
+        }
+        // Heatmaps generated in tiles can be queried as well
+        for (int y = 0; y < 40; y++) {
+            for (int x = 0; x < 50; x++) {
+                assertEquals(tiles.get(x, y), tiled.getValueAt(x, y), 1e-12);
+            }
+        }
+        assertTrue(Double.isNaN(full.getValueAt(-0.5, 10)));
+        assertTrue(Double.isNaN(full.getValueAt(50, 10)));
+    }
+
+    @Test
+    public void testTilesMatchFullHeatmap() throws Exception {
+        HeatmapGenerator full = new HeatmapGenerator(50, 40, new Vector2D(0, 0), HeatmapGenerator.ExternalPointStrategy.ASSUME_NEAREST, createMeasurements());
+        HeatmapGenerator tiled = new HeatmapGenerator(50, 40, new Vector2D(0, 0), HeatmapGenerator.ExternalPointStrategy.ASSUME_NEAREST, createMeasurements());
+        full.generateHeatmap();
+        HeatmapGrid expected = full.getHeatmap();
+        int[] tileCount = new int[1];
+        tiled.generateHeatmapTiles(16, (originX, originY, tile) -> {
+            tileCount[0]++;
+            for (int x = 0; x < tile.getWidth(); x++) {
+                for (int y = 0; y < tile.getHeight(); y++) {
+                    assertEquals(expected.get(originX + x, originY + y), tile.get(x, y), 1e-12);
+                }
+            }
+        });
+        // 4 tiles in x-direction and 3 in y-direction (the last ones are smaller)
+        assertEquals(12, tileCount[0]);
+    }
+
+    @Test
+    public void testAreaClippedHeatmap() throws Exception {
+        HeatmapGenerator full = new HeatmapGenerator(50, 40, new Vector2D(0, 0), HeatmapGenerator.ExternalPointStrategy.ASSUME_NEAREST, createMeasurements());
+        full.generateHeatmap();
+        HeatmapGrid expected = full.getHeatmap();
+        for (HeatmapGenerator.TriangleLookupStrategy strategy : HeatmapGenerator.TriangleLookupStrategy.values()) {
+            HeatmapGenerator clipped = new HeatmapGenerator(50, 40, new Vector2D(0, 0), HeatmapGenerator.ExternalPointStrategy.ASSUME_NEAREST, strategy, createMeasurements());
+            clipped.setArea(createLShapedArea());
+            clipped.generateHeatmap();
+            PolygonMask mask = clipped.getAreaMask();
+            HeatmapGrid actual = clipped.getHeatmap();
+            for (int x = 0; x < 50; x++) {
+                for (int y = 0; y < 40; y++) {
+                    if (mask.contains(x, y)) {
+                        assertEquals(expected.get(x, y), actual.get(x, y), 1e-12);
+                    } else {
+                        assertTrue(Float.isNaN(actual.get(x, y)));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testAddedMeasurementsMatchRegeneratedHeatmap() throws Exception {
+        // The second measurement is closer to an edge point than the measurement it was copied from
+        WifiMeasurement[] addedMeasurements = {new WifiMeasurement(0.0000007, 2.4, 33.3, 11.7), new WifiMeasurement(0.00000002, 2.4, 4.6, 37.2)};
+        List<WifiMeasurement> allMeasurements = createMeasurements();
+        HeatmapGenerator incremental = new HeatmapGenerator(50, 40, new Vector2D(0, 0), HeatmapGenerator.ExternalPointStrategy.ASSUME_NEAREST, createMeasurements());
+        incremental.generateHeatmap();
+        HeatmapGrid actual = incremental.getHeatmap();
+        for (WifiMeasurement measurement : addedMeasurements) {
+            allMeasurements.add(new WifiMeasurement(measurement));
+            float[] before = new float[50 * 40];
+            for (int y = 0; y < 40; y++) {
+                for (int x = 0; x < 50; x++) {
+                    before[y * 50 + x] = actual.get(x, y);
+                }
+            }
+            HeatmapRegion region = incremental.addMeasurement(measurement);
+            HeatmapGenerator full = new HeatmapGenerator(50, 40, new Vector2D(0, 0), HeatmapGenerator.ExternalPointStrategy.ASSUME_NEAREST, new ArrayList<>(allMeasurements));
+            full.generateHeatmap();
+            HeatmapGrid expected = full.getHeatmap();
+            for (int y = 0; y < 40; y++) {
+                for (int x = 0; x < 50; x++) {
+                    assertEquals(expected.get(x, y), actual.get(x, y), 1e-12);
+                    if (!region.contains(x, y)) {
+                        assertEquals(before[y * 50 + x], actual.get(x, y), 0);
+                    }
+                }
+            }
+        }
+
+        // Measurements outside of the heatmap or at the position of another measurement can't be added
+        assertNull(incremental.addMeasurement(new WifiMeasurement(0.0000001, 2.4, 60, 10)));
+        assertNull(incremental.addMeasurement(new WifiMeasurement(0.0000001, 2.4, 20, 20)));
+    }
+
+    @Test
+    public void testInterpolatorGeneratesConsistentHeatmaps() throws Exception {
+        for (InterpolationMethod method : new InterpolationMethod[]{InterpolationMethod.INVERSE_DISTANCE, InterpolationMethod.KRIGING}) {
+            HeatmapGenerator full = new HeatmapGenerator(50, 40, new Vector2D(0, 0), HeatmapGenerator.ExternalPointStrategy.ASSUME_NEAREST, createMeasurements());
+            HeatmapGenerator tiled = new HeatmapGenerator(50, 40, new Vector2D(0, 0), HeatmapGenerator.ExternalPointStrategy.ASSUME_NEAREST, createMeasurements());
+            HeatmapGenerator progressive = new HeatmapGenerator(50, 40, new Vector2D(0, 0), HeatmapGenerator.ExternalPointStrategy.ASSUME_NEAREST, createMeasurements());
+            for (HeatmapGenerator generator : new HeatmapGenerator[]{full, tiled, progressive}) {
+                generator.setInterpolator(method.createInterpolator());
+                generator.setArea(createLShapedArea());
+            }
+            full.generateHeatmap();
+            HeatmapGrid expected = full.getHeatmap();
+            PolygonMask mask = full.getAreaMask();
+            for (int x = 0; x < 50; x++) {
+                for (int y = 0; y < 40; y++) {
+                    if (mask.contains(x, y)) {
+                        assertEquals(expected.get(x, y), full.getValueAt(x, y), 1e-12);
+                    } else {
+                        assertTrue(Float.isNaN(expected.get(x, y)));
+                    }
+                }
+            }
+            tiled.generateHeatmapTiles(16, (originX, originY, tile) -> {
+                for (int x = 0; x < tile.getWidth(); x++) {
+                    for (int y = 0; y < tile.getHeight(); y++) {
+                        assertEquals(expected.get(originX + x, originY + y), tile.get(x, y), 0);
+                    }
+                }
+            });
+            progressive.generateHeatmapProgressively(4, (step, level) -> {
+                for (int x = 0; x < level.getWidth(); x++) {
+                    for (int y = 0; y < level.getHeight(); y++) {
+                        assertEquals(expected.get(x * step, y * step), level.get(x, y), 0);
+                    }
+                }
+            }, CancellationToken.NONE);
+
+            // Added measurements update the heatmap as if it was generated again
+            float[] before = expected.getValues().clone();
+            WifiMeasurement added = new WifiMeasurement(0.0000007, 2.4, 8, 10);
+            List<WifiMeasurement> allMeasurements = createMeasurements();
+            allMeasurements.add(new WifiMeasurement(added));
+            HeatmapRegion region = full.addMeasurement(added);
+            assertEquals(0.0000007, full.getHeatmap().get(8, 10), 1e-12);
+            HeatmapGenerator regenerated = new HeatmapGenerator(50, 40, new Vector2D(0, 0), HeatmapGenerator.ExternalPointStrategy.ASSUME_NEAREST, allMeasurements);
+            regenerated.setInterpolator(method.createInterpolator());
+            regenerated.setArea(createLShapedArea());
+            regenerated.generateHeatmap();
+            for (int x = 0; x < 50; x++) {
+                for (int y = 0; y < 40; y++) {
+                    if (mask.contains(x, y)) {
+                        assertEquals(regenerated.getHeatmap().get(x, y), full.getHeatmap().get(x, y), 1e-12);
+                    }
+                    if (!region.contains(x, y)) {
+                        assertEquals(before[full.getHeatmap().indexOf(x, y)], full.getHeatmap().get(x, y), 0);
+                    }
+                }
+            }
+            if (!full.hasLocalUpdates()) {
+                assertEquals(new HeatmapRegion(0, 0, 50, 40).toString(), region.toString());
+            }
+        }
+    }
+
+    @Test
+    public void testInverseDistanceUpdatesNeighborhoodOnly() throws Exception {
+        List<WifiMeasurement> measurements = new ArrayList<>();
+        Random random = new Random(42);
+        for (int x = 2; x < 100; x += 8) {
+            for (int y = 3; y < 80; y += 8) {
+                // Irregular positions, so the nearest measurements of a pixel are unambiguous
+                measurements.add(new WifiMeasurement(0.0000001 * (1 + random.nextInt(10)), 2.4, x + random.nextDouble() * 4, y + random.nextDouble() * 4));
+            }
+        }
+        HeatmapGenerator incremental = new HeatmapGenerator(100, 80, new Vector2D(0, 0), HeatmapGenerator.ExternalPointStrategy.ASSUME_NEAREST, new ArrayList<>(measurements));
+        incremental.setInterpolator(InterpolationMethod.INVERSE_DISTANCE.createInterpolator());
+        incremental.generateHeatmap();
+        assertTrue(incremental.hasLocalUpdates());
+        float[] before = incremental.getHeatmap().getValues().clone();
+        WifiMeasurement added = new WifiMeasurement(0.000003, 2.4, 41.5, 37.2);
+        measurements.add(new WifiMeasurement(added));
+        HeatmapRegion region = incremental.addMeasurement(added);
+        assertTrue(region.getWidth() < 100 && region.getHeight() < 80);
+
+        HeatmapGenerator regenerated = new HeatmapGenerator(100, 80, new Vector2D(0, 0), HeatmapGenerator.ExternalPointStrategy.ASSUME_NEAREST, measurements);
+        regenerated.setInterpolator(InterpolationMethod.INVERSE_DISTANCE.createInterpolator());
+        regenerated.generateHeatmap();
+        HeatmapGrid actual = incremental.getHeatmap();
+        for (int x = 0; x < 100; x++) {
+            for (int y = 0; y < 80; y++) {
+                assertEquals(regenerated.getHeatmap().get(x, y), actual.get(x, y), 1e-12);
+                if (!region.contains(x, y)) {
+                    assertEquals(before[actual.indexOf(x, y)], actual.get(x, y), 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDbmScaleInterpolatesInDbm() throws Exception {
+        for (InterpolationMethod method : InterpolationMethod.values()) {
+            if (method == InterpolationMethod.PATH_LOSS) {
+                // The path loss model always fits the logarithm of the power, so it can't be given
+                // measurements in dBm as a reference; PathLossFitterTest covers it in dBm
+                continue;
+            }
+            HeatmapGenerator dbm = new HeatmapGenerator(50, 40, new Vector2D(0, 0), HeatmapGenerator.ExternalPointStrategy.ASSUME_NEAREST, createMeasurements());
+            dbm.setInterpolator(method.createInterpolator());
+            dbm.setPowerScale(PowerScale.DBM);
+            dbm.generateHeatmap();
+            // Interpolating in dBm is the same as interpolating measurements whose power is given in dBm
+            List<WifiMeasurement> convertedMeasurements = createMeasurements();
+            for (WifiMeasurement measurement : convertedMeasurements) {
+                measurement.setPower(UnitConverter.wattsToDbm(measurement.getPower()));
+            }
+            HeatmapGenerator reference = new HeatmapGenerator(50, 40, new Vector2D(0, 0), HeatmapGenerator.ExternalPointStrategy.ASSUME_NEAREST, convertedMeasurements);
+            reference.setInterpolator(method.createInterpolator());
+            reference.generateHeatmap();
+            HeatmapGrid expected = reference.getHeatmap();
+            HeatmapGrid actual = dbm.getHeatmap();
+            for (int y = 0; y < 40; y++) {
+                for (int x = 0; x < 50; x++) {
+                    assertEquals(expected.get(x, y), actual.get(x, y), 1e-4);
+                    assertEquals(reference.getValueAt(x + 0.25, y + 0.5), dbm.getValueAt(x + 0.25, y + 0.5), 1e-9);
+                }
+            }
+            assertEquals(UnitConverter.wattsToDbm(0.0000001), actual.get(20, 20), 1e-4);
+        }
+    }
+
+    @Test
+    public void testProgressiveLevelsMatchHeatmap() throws Exception {
+        for (boolean clipped : new boolean[]{false, true}) {
+            HeatmapGenerator full = new HeatmapGenerator(50, 40, new Vector2D(0, 0), HeatmapGenerator.ExternalPointStrategy.ASSUME_NEAREST, createMeasurements());
+            HeatmapGenerator progressive = new HeatmapGenerator(50, 40, new Vector2D(0, 0), HeatmapGenerator.ExternalPointStrategy.ASSUME_NEAREST, createMeasurements());
+            if (clipped) {
+                full.setArea(createLShapedArea());
+                progressive.setArea(createLShapedArea());
+            }
+            full.generateHeatmap();
+            HeatmapGrid expected = full.getHeatmap();
+            List<Integer> steps = new ArrayList<>();
+            progressive.generateHeatmapProgressively(8, (step, level) -> {
+                steps.add(step);
+                assertEquals((50 + step - 1) / step, level.getWidth());
+                assertEquals((40 + step - 1) / step, level.getHeight());
+                for (int x = 0; x < level.getWidth(); x++) {
+                    for (int y = 0; y < level.getHeight(); y++) {
+                        float value = expected.get(x * step, y * step);
+                        if (Float.isNaN(value)) {
+                            assertTrue(Float.isNaN(level.get(x, y)));
+                        } else {
+                            assertEquals(value, level.get(x, y), 1e-12);
+                        }
+                    }
+                }
+            }, CancellationToken.NONE);
+            assertEquals(Arrays.asList(8, 4, 2, 1), steps);
+            assertEquals(expected.getWidth(), progressive.getHeatmap().getWidth());
+        }
+    }
+
+    @Test
+    public void testNewerJobCancelsGeneration() throws Exception {
+        JobSlot jobs = new JobSlot();
+        CancellationToken first = jobs.next();
+        CancellationToken second = jobs.next();
+        assertTrue(first.isCancelled());
+        assertFalse(second.isCancelled());
+        HeatmapGenerator heatmapGenerator = new HeatmapGenerator(50, 40, new Vector2D(0, 0), HeatmapGenerator.ExternalPointStrategy.ASSUME_NEAREST, createMeasurements());
+        try {
+            heatmapGenerator.generateHeatmap(first);
+            throw new AssertionError("Cancelled generation has been completed");
+        } catch (CancellationException e) {
+            // expected
+        }
+        int[] tileCount = new int[1];
+        try {
+            new HeatmapGenerator(50, 40, new Vector2D(0, 0), HeatmapGenerator.ExternalPointStrategy.ASSUME_NEAREST, createMeasurements())
+                    .generateHeatmapTiles(16, (originX, originY, tile) -> tileCount[0]++, first);
+            throw new AssertionError("Cancelled generation has been completed");
+        } catch (CancellationException e) {
+            assertEquals(0, tileCount[0]);
+        }
+        CancellationToken.NONE.cancel();
+        assertFalse(CancellationToken.NONE.isCancelled());
+    }
+
+    private Polygon createLShapedArea() {
+        List<Vector2D> points = new ArrayList<>();
+        points.add(new Vector2D(2, 2));
+        points.add(new Vector2D(47.5, 2));
+        points.add(new Vector2D(47.5, 15));
+        points.add(new Vector2D(15, 15));
+        points.add(new Vector2D(15, 38));
+        points.add(new Vector2D(2, 38));
+        return new Polygon(points);
+    }
+
+    private List<WifiMeasurement> createMeasurements() {
+        List<WifiMeasurement> measurements = new ArrayList<>();
+        measurements.add(new WifiMeasurement(0.00000001, 2.4, 3, 4));
+        measurements.add(new WifiMeasurement(0.000001, 2.4, 45, 2));
+        measurements.add(new WifiMeasurement(0.0000001, 2.4, 20, 20));
+        measurements.add(new WifiMeasurement(0.00000005, 2.4, 10, 35));
+        measurements.add(new WifiMeasurement(0.000000001, 2.4, 48, 37));
+        measurements.add(new WifiMeasurement(0.0000003, 2.4, 30, 28));
+        return measurements;
+    }
+}
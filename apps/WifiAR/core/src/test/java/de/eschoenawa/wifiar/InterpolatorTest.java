@@ -0,0 +1,111 @@
+package de.eschoenawa.wifiar;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import de.eschoenawa.wifiar.heatmap.Interpolator;
+import de.eschoenawa.wifiar.heatmap.InverseDistanceInterpolator;
+import de.eschoenawa.wifiar.heatmap.KrigingInterpolator;
+import de.eschoenawa.wifiar.heatmap.PowerScale;
+import de.eschoenawa.wifiar.models.WifiMeasurement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class InterpolatorTest {
+    @Test
+    public void testInverseDistanceMatchesShepard() {
+        List<WifiMeasurement> measurements = createMeasurements(40);
+        // With all measurements as neighbors the result is the classic Shepard interpolation
+        Interpolator interpolator = new InverseDistanceInterpolator(measurements.size(), 2);
+        interpolator.prepare(measurements, PowerScale.WATTS);
+        Interpolator.Evaluator evaluator = interpolator.createEvaluator();
+        Random random = new Random(3);
+        for (int i = 0; i < 200; i++) {
+            double x = random.nextDouble() * 100;
+            double y = random.nextDouble() * 80;
+            double weightedSum = 0;
+            double weightSum = 0;
+            for (WifiMeasurement measurement : measurements) {
+                double weight = 1 / ((measurement.x - x) * (measurement.x - x) + (measurement.y - y) * (measurement.y - y));
+                weightedSum += weight * measurement.getPower();
+                weightSum += weight;
+            }
+            assertEquals(weightedSum / weightSum, evaluator.valueAt(x, y), 1e-18);
+        }
+    }
+
+    @Test
+    public void testInterpolatorsReproduceMeasurements() {
+        List<WifiMeasurement> measurements = createMeasurements(200);
+        for (Interpolator interpolator : new Interpolator[]{new InverseDistanceInterpolator(12, 2), new KrigingInterpolator(16)}) {
+            interpolator.prepare(measurements, PowerScale.WATTS);
+            Interpolator.Evaluator evaluator = interpolator.createEvaluator();
+            for (WifiMeasurement measurement : measurements) {
+                assertEquals(measurement.getPower(), evaluator.valueAt(measurement.x, measurement.y), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testKrigingStaysWithinMeasuredRange() {
+        List<WifiMeasurement> measurements = createMeasurements(300);
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        for (WifiMeasurement measurement : measurements) {
+            min = Math.min(min, measurement.getPower());
+            max = Math.max(max, measurement.getPower());
+        }
+        Interpolator interpolator = new KrigingInterpolator(16);
+        interpolator.prepare(measurements, PowerScale.WATTS);
+        Interpolator.Evaluator evaluator = interpolator.createEvaluator();
+        double previous = Double.NaN;
+        double largestStep = 0;
+        for (int x = 0; x < 100; x++) {
+            double value = evaluator.valueAt(x, 40.5);
+            assertTrue(value >= min && value <= max);
+            if (x > 0) {
+                largestStep = Math.max(largestStep, Math.abs(value - previous));
+            }
+            previous = value;
+        }
+        // The field is smooth, so neighboring pixels don't jump across the whole range
+        assertTrue(largestStep < (max - min) / 4);
+    }
+
+    @Test
+    public void testKrigingReproducesConstantField() {
+        List<WifiMeasurement> measurements = createMeasurements(50);
+        for (WifiMeasurement measurement : measurements) {
+            measurement.setPower(0.0000004);
+        }
+        // Two measurements at the same position make the kriging system singular
+        measurements.add(new WifiMeasurement(0.0000004, 2.4, measurements.get(0).x, measurements.get(0).y));
+        Interpolator interpolator = new KrigingInterpolator(16);
+        interpolator.prepare(measurements, PowerScale.WATTS);
+        Interpolator.Evaluator evaluator = interpolator.createEvaluator();
+        for (int y = 0; y < 80; y += 7) {
+            for (int x = 0; x < 100; x += 7) {
+                assertEquals(0.0000004, evaluator.valueAt(x + 0.5, y + 0.5), 1e-18);
+            }
+        }
+    }
+
+    /**
+     * Creates measurements of a smooth field (a single transmitter) at random positions.
+     */
+    private static List<WifiMeasurement> createMeasurements(int count) {
+        Random random = new Random(11);
+        List<WifiMeasurement> measurements = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            double x = random.nextDouble() * 100;
+            double y = random.nextDouble() * 80;
+            double squaredDistance = (x - 30) * (x - 30) + (y - 50) * (y - 50) + 25;
+            measurements.add(new WifiMeasurement(0.001 / squaredDistance, 2.4, x, y));
+        }
+        return measurements;
+    }
+}
@@ -0,0 +1,77 @@
+package de.eschoenawa.wifiar;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import de.eschoenawa.wifiar.heatmap.MeasurementIndex;
+import de.eschoenawa.wifiar.models.WifiMeasurement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class MeasurementIndexTest {
+    @Test
+    public void testFindNearestMatchesLinearSearch() {
+        Random random = new Random(42);
+        List<WifiMeasurement> measurements = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            // Integer coordinates to provoke ties
+            measurements.add(new WifiMeasurement(random.nextDouble(), 2.4, random.nextInt(100), random.nextInt(100)));
+        }
+        MeasurementIndex index = new MeasurementIndex(measurements);
+        for (int i = 0; i < 1000; i++) {
+            double x = random.nextInt(120) - 10;
+            double y = random.nextDouble() * 120 - 10;
+            assertSame(findNearestLinear(measurements, x, y), index.findNearest(x, y));
+        }
+    }
+
+    @Test
+    public void testFindKNearestMatchesLinearSearch() {
+        Random random = new Random(7);
+        List<WifiMeasurement> measurements = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            measurements.add(new WifiMeasurement(random.nextDouble(), 2.4, random.nextInt(100), random.nextInt(100)));
+        }
+        MeasurementIndex index = new MeasurementIndex(measurements);
+        int[] indices = new int[12];
+        double[] distances = new double[12];
+        double[] expected = new double[measurements.size()];
+        for (int i = 0; i < 500; i++) {
+            double x = random.nextDouble() * 120 - 10;
+            double y = random.nextDouble() * 120 - 10;
+            for (int j = 0; j < measurements.size(); j++) {
+                WifiMeasurement measurement = measurements.get(j);
+                expected[j] = (measurement.x - x) * (measurement.x - x) + (measurement.y - y) * (measurement.y - y);
+            }
+            Arrays.sort(expected);
+            assertEquals(12, index.findNearest(x, y, 12, indices, distances));
+            for (int j = 0; j < 12; j++) {
+                // Ties may be returned in any order, so compare the distances
+                assertEquals(expected[j], distances[j], 0);
+                WifiMeasurement measurement = measurements.get(indices[j]);
+                assertEquals(distances[j], (measurement.x - x) * (measurement.x - x) + (measurement.y - y) * (measurement.y - y), 0);
+            }
+        }
+        // Less measurements than requested
+        MeasurementIndex small = new MeasurementIndex(measurements.subList(0, 3));
+        assertEquals(3, small.findNearest(50, 50, 12, indices, distances));
+    }
+
+    private WifiMeasurement findNearestLinear(List<WifiMeasurement> measurements, double x, double y) {
+        WifiMeasurement result = null;
+        double resultDistance = Double.MAX_VALUE;
+        for (WifiMeasurement measurement : measurements) {
+            double distance = (measurement.x - x) * (measurement.x - x) + (measurement.y - y) * (measurement.y - y);
+            if (distance < resultDistance) {
+                result = measurement;
+                resultDistance = distance;
+            }
+        }
+        return result;
+    }
+}
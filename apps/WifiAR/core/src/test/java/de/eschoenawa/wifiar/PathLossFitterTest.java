@@ -0,0 +1,109 @@
+package de.eschoenawa.wifiar;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import de.eschoenawa.wifiar.heatmap.HeatmapGenerator;
+import de.eschoenawa.wifiar.heatmap.HeatmapGrid;
+import de.eschoenawa.wifiar.heatmap.PathLossFitter;
+import de.eschoenawa.wifiar.heatmap.PathLossInterpolator;
+import de.eschoenawa.wifiar.heatmap.PathLossModel;
+import de.eschoenawa.wifiar.heatmap.PowerScale;
+import de.eschoenawa.wifiar.models.WifiMeasurement;
+import de.eschoenawa.wifiar.utils.UnitConverter;
+import io.github.jdiemke.triangulation.Vector2D;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PathLossFitterTest {
+    @Test
+    public void testFitRecoversModel() {
+        PathLossModel expected = new PathLossModel(37, 21, -30, 2.7, 1, 0);
+        PathLossModel model = new PathLossFitter(1).fit(createMeasurements(expected, 200, 2, 100, 80));
+        assertEquals(37, model.getAccessPointX(), 3);
+        assertEquals(21, model.getAccessPointY(), 3);
+        assertEquals(2.7, model.getExponent(), 0.3);
+        assertEquals(2, model.getRmsError(), 0.5);
+    }
+
+    @Test
+    public void testFitInParallelIsExact() {
+        // Enough measurements to split the sums across several tasks
+        PathLossModel expected = new PathLossModel(61.5, 12.25, -35, 3.1, 1, 0);
+        PathLossModel model = new PathLossFitter(1).fit(createMeasurements(expected, 20000, 0, 100, 80));
+        assertEquals(61.5, model.getAccessPointX(), 1e-3);
+        assertEquals(12.25, model.getAccessPointY(), 1e-3);
+        assertEquals(-35, model.getReferencePower(), 1e-3);
+        assertEquals(3.1, model.getExponent(), 1e-4);
+        assertEquals(0, model.getRmsError(), 1e-3);
+    }
+
+    @Test
+    public void testFitFindsAccessPointOutsideOfMeasurements() {
+        PathLossModel expected = new PathLossModel(-20, 40, -30, 2.2, 1, 0);
+        PathLossModel model = new PathLossFitter(1).fit(createMeasurements(expected, 300, 1, 100, 80));
+        assertEquals(-20, model.getAccessPointX(), 5);
+        assertEquals(40, model.getAccessPointY(), 5);
+    }
+
+    @Test
+    public void testInterpolatorPredictsModel() throws Exception {
+        PathLossModel expected = new PathLossModel(20, 15, -30, 2.5, 1, 0);
+        List<WifiMeasurement> measurements = createMeasurements(expected, 100, 0, 50, 40);
+        double maxDbm = -Double.MAX_VALUE;
+        for (WifiMeasurement measurement : measurements) {
+            maxDbm = Math.max(maxDbm, UnitConverter.wattsToDbm(measurement.getPower()));
+        }
+        PathLossInterpolator interpolator = new PathLossInterpolator(1);
+        HeatmapGenerator generator = new HeatmapGenerator(50, 40, new Vector2D(0, 0), HeatmapGenerator.ExternalPointStrategy.ASSUME_NEAREST, measurements);
+        generator.setInterpolator(interpolator);
+        generator.setPowerScale(PowerScale.DBM);
+        generator.generateHeatmap();
+        HeatmapGrid heatmap = generator.getHeatmap();
+        for (int y = 0; y < 40; y++) {
+            for (int x = 0; x < 50; x++) {
+                // Close to the access point the prediction is limited to the strongest measurement
+                assertEquals(Math.min(maxDbm, expected.predictDbm(x, y)), heatmap.get(x, y), 1e-3);
+            }
+        }
+        assertTrue(interpolator.getModel().getRmsError() < 1e-3);
+    }
+
+    @Test
+    public void testInterpolatorFitsInMeters() throws Exception {
+        // A survey of 10 x 8 meters rendered with 5 pixels per meter
+        PathLossModel expected = new PathLossModel(4, 3, -30, 2.5, 1, 0);
+        List<WifiMeasurement> measurements = createMeasurements(expected, 100, 0, 10, 8);
+        for (WifiMeasurement measurement : measurements) {
+            measurement.x *= 5;
+            measurement.y *= 5;
+        }
+        PathLossInterpolator interpolator = new PathLossInterpolator(1, 5);
+        HeatmapGenerator generator = new HeatmapGenerator(50, 40, new Vector2D(0, 0), HeatmapGenerator.ExternalPointStrategy.ASSUME_NEAREST, measurements);
+        generator.setInterpolator(interpolator);
+        generator.setPowerScale(PowerScale.DBM);
+        generator.generateHeatmap();
+        PathLossModel model = interpolator.getModel();
+        assertEquals(4, model.getAccessPointX(), 1e-3);
+        assertEquals(3, model.getAccessPointY(), 1e-3);
+        // The reference power is the power at one meter
+        assertEquals(-30, model.getReferencePower(), 1e-3);
+        assertEquals(expected.predictDbm(8, 6), generator.getHeatmap().get(40, 30), 1e-3);
+    }
+
+    private static List<WifiMeasurement> createMeasurements(PathLossModel model, int count, double noise, double width, double height) {
+        Random random = new Random(5);
+        List<WifiMeasurement> measurements = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            double x = random.nextDouble() * width;
+            double y = random.nextDouble() * height;
+            double dbm = model.predictDbm(x, y) + random.nextGaussian() * noise;
+            measurements.add(new WifiMeasurement(UnitConverter.dbmToWatts(dbm), 2.4, x, y));
+        }
+        return measurements;
+    }
+}
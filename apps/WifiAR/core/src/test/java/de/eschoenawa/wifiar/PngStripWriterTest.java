@@ -0,0 +1,53 @@
+package de.eschoenawa.wifiar;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import javax.imageio.ImageIO;
+
+import de.eschoenawa.wifiar.heatmap.PngStripWriter;
+
+import static org.junit.Assert.assertEquals;
+
+public class PngStripWriterTest {
+    @Test
+    public void testTilesAreEncodedAsPng() throws Exception {
+        int width = 5;
+        int height = 3;
+        int tileSize = 2;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PngStripWriter writer = new PngStripWriter(out);
+        writer.begin(width, height);
+        for (int originY = 0; originY < height; originY += tileSize) {
+            for (int originX = 0; originX < width; originX += tileSize) {
+                int tileWidth = Math.min(tileSize, width - originX);
+                int tileHeight = Math.min(tileSize, height - originY);
+                int[] pixels = new int[tileWidth * tileHeight];
+                for (int y = 0; y < tileHeight; y++) {
+                    for (int x = 0; x < tileWidth; x++) {
+                        pixels[y * tileWidth + x] = colorAt(originX + x, originY + y);
+                    }
+                }
+                writer.writeTile(originX, originY, tileWidth, tileHeight, pixels);
+            }
+        }
+        writer.finish();
+        writer.close();
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(width, image.getWidth());
+        assertEquals(height, image.getHeight());
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                assertEquals(colorAt(x, y), image.getRGB(x, y));
+            }
+        }
+    }
+
+    private int colorAt(int x, int y) {
+        return 0xFF000000 | (x * 40) << 16 | (y * 60) << 8 | (x + y);
+    }
+}
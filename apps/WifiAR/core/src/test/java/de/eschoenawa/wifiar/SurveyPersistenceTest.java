@@ -0,0 +1,225 @@
+package de.eschoenawa.wifiar;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import de.eschoenawa.wifiar.models.Survey;
+import de.eschoenawa.wifiar.models.WifiMeasurement;
+import de.eschoenawa.wifiar.persistence.MappedSurvey;
+import de.eschoenawa.wifiar.persistence.SurveyBinaryFormat;
+import de.eschoenawa.wifiar.persistence.SurveyJournal;
+import de.eschoenawa.wifiar.persistence.SurveyTextFormat;
+import io.github.jdiemke.triangulation.Vector2D;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SurveyPersistenceTest {
+    @Test
+    public void testTextFormatRoundTrip() throws IOException {
+        Survey survey = createSurvey();
+        StringWriter writer = new StringWriter();
+        SurveyTextFormat.write(writer, survey);
+        assertSurveyEquals(survey, SurveyTextFormat.read(new StringReader(writer.toString())));
+    }
+
+    @Test
+    public void testTextFormatRejectsInvalidLines() {
+        try {
+            SurveyTextFormat.read(new StringReader("# Comment\n\narea 0 0\nmeasurement 1 2 x 2400\n"));
+            fail("Invalid number was accepted");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().startsWith("Line 4:"));
+        }
+        try {
+            SurveyTextFormat.read(new StringReader("area 0 0 0\n"));
+            fail("Invalid entry was accepted");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().startsWith("Line 1:"));
+        }
+    }
+
+    @Test
+    public void testBinaryFormatRoundTrip() throws IOException {
+        Survey survey = createSurvey();
+        File file = File.createTempFile("survey", ".bin");
+        try {
+            SurveyBinaryFormat.write(file, survey);
+            assertTrue(SurveyBinaryFormat.isBinarySurvey(file));
+            MappedSurvey mappedSurvey = SurveyBinaryFormat.map(file);
+            assertEquals(SurveyBinaryFormat.VERSION, mappedSurvey.getVersion());
+            assertEquals(survey.getMeasurements().get(2).getTimestamp(), mappedSurvey.getMeasurement(2).getTimestamp());
+            assertSurveyEquals(survey, mappedSurvey.toSurvey());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testBinaryFormatRejectsInvalidFiles() throws IOException {
+        File file = File.createTempFile("survey", ".bin");
+        try {
+            SurveyBinaryFormat.write(file, createSurvey());
+            try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+                // Unknown future version
+                randomAccessFile.seek(4);
+                randomAccessFile.writeShort(SurveyBinaryFormat.VERSION + 1);
+            }
+            assertMapFails(file);
+            try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+                randomAccessFile.seek(4);
+                randomAccessFile.writeShort(SurveyBinaryFormat.VERSION);
+                randomAccessFile.setLength(randomAccessFile.length() - 1);
+            }
+            assertMapFails(file);
+            StringWriter writer = new StringWriter();
+            SurveyTextFormat.write(writer, createSurvey());
+            try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+                randomAccessFile.setLength(0);
+                randomAccessFile.writeBytes(writer.toString());
+            }
+            assertFalse(SurveyBinaryFormat.isBinarySurvey(file));
+            assertMapFails(file);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testJournalReplay() throws IOException {
+        Survey survey = createSurvey();
+        File file = File.createTempFile("survey", ".journal");
+        try {
+            SurveyJournal journal = SurveyJournal.open(file);
+            assertTrue(journal.getRecovery().isEmpty());
+            for (Vector2D point : survey.getAreaPoints()) {
+                journal.appendAreaPoint(point);
+            }
+            journal.appendAreaPoint(new Vector2D(42, 42));
+            journal.append(SurveyJournal.RecordType.REMOVE_AREA_POINT);
+            journal.append(SurveyJournal.RecordType.AREA_CLOSED);
+            for (WifiMeasurement measurement : survey.getMeasurements()) {
+                journal.appendMeasurement(measurement);
+            }
+            journal.appendMeasurement(new WifiMeasurement(1, 1, 1, 1));
+            journal.append(SurveyJournal.RecordType.REMOVE_MEASUREMENT);
+            journal.close();
+
+            journal = SurveyJournal.open(file);
+            assertTrue(journal.getRecovery().isAreaClosed());
+            assertSurveyEquals(survey, journal.getRecovery().toSurvey());
+            journal.clear();
+            journal.appendAreaPoint(new Vector2D(1, 2));
+            journal.close();
+
+            journal = SurveyJournal.open(file);
+            assertFalse(journal.getRecovery().isAreaClosed());
+            assertEquals(1, journal.getRecovery().getAreaPoints().size());
+            assertEquals(2, journal.getRecovery().getAreaPoints().get(0).y, 0);
+            journal.close();
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testJournalClearKeepsNewerRecords() throws IOException {
+        File file = File.createTempFile("survey", ".journal");
+        try {
+            SurveyJournal journal = SurveyJournal.open(file);
+            journal.appendAreaPoint(new Vector2D(1, 1));
+            long mark = journal.mark();
+            journal.appendMeasurement(new WifiMeasurement(1, 1, 1, 1));
+            // The measurement isn't covered by the mark
+            assertFalse(journal.clear(mark));
+            assertTrue(journal.clear(journal.mark()));
+            journal.appendAreaPoint(new Vector2D(2, 2));
+            journal.closeAsync();
+
+            journal = SurveyJournal.open(file);
+            assertEquals(1, journal.getRecovery().getAreaPoints().size());
+            assertEquals(2, journal.getRecovery().getAreaPoints().get(0).x, 0);
+            assertTrue(journal.getRecovery().getMeasurements().isEmpty());
+            journal.close();
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testJournalStopsAtCorruptedRecord() throws IOException {
+        File file = File.createTempFile("survey", ".journal");
+        try {
+            SurveyJournal journal = SurveyJournal.open(file);
+            for (int i = 0; i < 3; i++) {
+                journal.appendAreaPoint(new Vector2D(i, i));
+            }
+            journal.close();
+            try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+                // Corrupt the y coordinate of the last record and append a torn record
+                randomAccessFile.seek(randomAccessFile.length() - 40);
+                randomAccessFile.writeByte(1);
+                randomAccessFile.seek(randomAccessFile.length());
+                randomAccessFile.write(new byte[10]);
+            }
+            journal = SurveyJournal.open(file);
+            assertEquals(2, journal.getRecovery().getAreaPoints().size());
+            // New records replace the invalid ones
+            journal.appendAreaPoint(new Vector2D(5, 5));
+            journal.close();
+            journal = SurveyJournal.open(file);
+            assertEquals(3, journal.getRecovery().getAreaPoints().size());
+            assertEquals(5, journal.getRecovery().getAreaPoints().get(2).x, 0);
+            journal.close();
+        } finally {
+            file.delete();
+        }
+    }
+
+    private void assertMapFails(File file) {
+        try {
+            SurveyBinaryFormat.map(file);
+            fail("Invalid survey was mapped");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    private Survey createSurvey() {
+        List<Vector2D> area = Arrays.asList(new Vector2D(-1.5, 0), new Vector2D(10.25, 0.1), new Vector2D(10, 8), new Vector2D(0, 1d / 3));
+        List<WifiMeasurement> measurements = new ArrayList<>();
+        measurements.add(new WifiMeasurement(1e-6, 2.412e9, 1, 1));
+        measurements.add(new WifiMeasurement(3.7e-9, 2.412e9, 9.5, 0.2));
+        measurements.add(new WifiMeasurement(2e-10, 5.18e9, 5, 7.75, 1546300800000L, 5));
+        return new Survey(area, measurements);
+    }
+
+    private void assertSurveyEquals(Survey expected, Survey actual) {
+        assertEquals(expected.getAreaPoints().size(), actual.getAreaPoints().size());
+        for (int i = 0; i < expected.getAreaPoints().size(); i++) {
+            assertEquals(expected.getAreaPoints().get(i).x, actual.getAreaPoints().get(i).x, 0);
+            assertEquals(expected.getAreaPoints().get(i).y, actual.getAreaPoints().get(i).y, 0);
+        }
+        assertEquals(expected.getMeasurements().size(), actual.getMeasurements().size());
+        for (int i = 0; i < expected.getMeasurements().size(); i++) {
+            WifiMeasurement expectedMeasurement = expected.getMeasurements().get(i);
+            WifiMeasurement actualMeasurement = actual.getMeasurements().get(i);
+            assertEquals(expectedMeasurement.x, actualMeasurement.x, 0);
+            assertEquals(expectedMeasurement.y, actualMeasurement.y, 0);
+            assertEquals(expectedMeasurement.getPower(), actualMeasurement.getPower(), 0);
+            assertEquals(expectedMeasurement.getWavelength(), actualMeasurement.getWavelength(), 0);
+            assertEquals(expectedMeasurement.getTimestamp(), actualMeasurement.getTimestamp());
+            assertEquals(expectedMeasurement.getNumberOfSamples(), actualMeasurement.getNumberOfSamples());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package de.eschoenawa.wifiar;
+
+import org.junit.Test;
+
+import de.eschoenawa.wifiar.heatmap.TriangleRasterizer;
+import io.github.jdiemke.triangulation.Vector2D;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TriangleRasterizerTest {
+    @Test
+    public void testSharedEdgesAreCoveredExactlyOnce() {
+        // Fan of triangles around a center point; all vertices are on integer coordinates so many
+        // pixels lie exactly on shared edges and vertices
+        Vector2D center = new Vector2D(5, 4);
+        Vector2D[] corners = {
+                new Vector2D(-1, -1),
+                new Vector2D(10, -1),
+                new Vector2D(10, 8),
+                new Vector2D(-1, 8)
+        };
+        int width = 10;
+        int height = 8;
+        int[][] coverage = new int[width][height];
+        for (int i = 0; i < corners.length; i++) {
+            Vector2D a = corners[i];
+            Vector2D b = corners[(i + 1) % corners.length];
+            // Alternate the orientation to make sure it doesn't matter
+            Vector2D first = i % 2 == 0 ? a : b;
+            Vector2D second = i % 2 == 0 ? b : a;
+            TriangleRasterizer.rasterize(center, first, second, width, height, (y, startX, endX) -> {
+                for (int x = startX; x < endX; x++) {
+                    coverage[x][y]++;
+                }
+            });
+        }
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                assertEquals("Pixel (" + x + "|" + y + ")", 1, coverage[x][y]);
+            }
+        }
+    }
+
+    @Test
+    public void testCoversMatchesRasterization() {
+        Vector2D a = new Vector2D(0.3, 0.2);
+        Vector2D b = new Vector2D(7.9, 2.5);
+        Vector2D c = new Vector2D(3.1, 6.8);
+        boolean[][] rasterized = new boolean[10][10];
+        TriangleRasterizer.rasterize(a, b, c, 10, 10, (y, startX, endX) -> {
+            for (int x = startX; x < endX; x++) {
+                rasterized[x][y] = true;
+            }
+        });
+        for (int x = 0; x < 10; x++) {
+            for (int y = 0; y < 10; y++) {
+                assertEquals(TriangleRasterizer.covers(a, b, c, x, y), rasterized[x][y]);
+            }
+        }
+        assertTrue(rasterized[3][3]);
+        assertFalse(rasterized[0][6]);
+    }
+}
@@ -0,0 +1,94 @@
+package de.eschoenawa.wifiar;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import de.eschoenawa.wifiar.heatmap.ReferenceTriangulator;
+import de.eschoenawa.wifiar.heatmap.SweepHullTriangulator;
+import de.eschoenawa.wifiar.heatmap.Triangulation;
+import io.github.jdiemke.triangulation.NotEnoughPointsException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TriangulatorTest {
+    @Test
+    public void testSweepHullMatchesReference() throws NotEnoughPointsException {
+        for (int pointCount : new int[]{1, 10, 300}) {
+            for (long seed = 0; seed < 5; seed++) {
+                double[] coordinates = createSurveyPoints(seed, pointCount, 120, 80);
+                Triangulation expected = new ReferenceTriangulator().triangulate(coordinates);
+                Triangulation actual = new SweepHullTriangulator().triangulate(coordinates);
+                String message = "Seed " + seed + ", " + pointCount + " points";
+                // The reference drops triangles at the convex hull for some point sets (its super
+                // triangle is too small), so it is only required to be contained in the result
+                Set<String> actualTriangles = toTriangleSet(actual);
+                assertTrue(message, actualTriangles.containsAll(toTriangleSet(expected)));
+                // The hull is the rectangle of the corners, which leaves 2n - 6 triangles
+                assertEquals(message, 2 * actual.getPointCount() - 6, actualTriangles.size());
+            }
+        }
+    }
+
+    @Test
+    public void testNeighborsShareEdges() throws NotEnoughPointsException {
+        Triangulation triangulation = new SweepHullTriangulator().triangulate(createSurveyPoints(7, 500, 200, 100));
+        int hullEdges = 0;
+        for (int t = 0; t < triangulation.getTriangleCount(); t++) {
+            for (int i = 0; i < 3; i++) {
+                int neighbor = triangulation.getNeighbor(t, i);
+                if (neighbor == Triangulation.NO_NEIGHBOR) {
+                    hullEdges++;
+                    continue;
+                }
+                int from = triangulation.getVertex(t, i);
+                int to = triangulation.getVertex(t, (i + 1) % 3);
+                boolean found = false;
+                for (int j = 0; j < 3; j++) {
+                    if (triangulation.getVertex(neighbor, j) == to && triangulation.getVertex(neighbor, (j + 1) % 3) == from) {
+                        found = triangulation.getNeighbor(neighbor, j) == t;
+                    }
+                }
+                assertTrue("Edge " + i + " of triangle " + t, found);
+            }
+        }
+        // The convex hull is the rectangle of the four corners
+        assertEquals(4, hullEdges);
+        assertEquals(2 * triangulation.getPointCount() - 2 - hullEdges, triangulation.getTriangleCount());
+    }
+
+    @Test(expected = NotEnoughPointsException.class)
+    public void testCollinearPointsCannotBeTriangulated() throws NotEnoughPointsException {
+        new SweepHullTriangulator().triangulate(new double[]{0, 0, 1, 1, 2, 2, 3, 3});
+    }
+
+    /**
+     * Creates random points inside a rectangle plus its corners, like the measurements and edge
+     * points triangulated by the HeatmapGenerator.
+     */
+    private static double[] createSurveyPoints(long seed, int pointCount, int width, int height) {
+        Random random = new Random(seed);
+        double[] coordinates = new double[(pointCount + 4) * 2];
+        for (int i = 0; i < pointCount; i++) {
+            coordinates[2 * i] = random.nextDouble() * width;
+            coordinates[2 * i + 1] = random.nextDouble() * height;
+        }
+        double[] corners = {-1, -1, width, -1, width, height, -1, height};
+        System.arraycopy(corners, 0, coordinates, pointCount * 2, corners.length);
+        return coordinates;
+    }
+
+    private static Set<String> toTriangleSet(Triangulation triangulation) {
+        Set<String> triangles = new HashSet<>();
+        for (int t = 0; t < triangulation.getTriangleCount(); t++) {
+            int[] vertices = {triangulation.getVertex(t, 0), triangulation.getVertex(t, 1), triangulation.getVertex(t, 2)};
+            Arrays.sort(vertices);
+            triangles.add(vertices[0] + "/" + vertices[1] + "/" + vertices[2]);
+        }
+        return triangles;
+    }
+}